@@ -0,0 +1,129 @@
+package de.di;
+
+import de.di.helper.RelationCache;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A JobServer executes jobs for clients on the local machine, so that a stream of small jobs pays neither for the
+ * start of a JVM nor for reading the same files again. A client connects to the loopback interface and sends one job
+ * per line; a job is a command line of Main, e.g., "UCCProfiler --input data/data_profiling", in which arguments with
+ * spaces are enclosed in double quotes. The server streams the output of every job back and terminates it with the
+ * END_OF_JOB line. Connections are served in parallel, the jobs of one connection one after another, and all jobs
+ * share one RelationCache.
+ */
+public class JobServer implements Closeable {
+
+    public static final String END_OF_JOB = "// end of job //";
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor;
+    private final RelationCache cache;
+
+    /**
+     * Opens the server socket; jobs are accepted once serve() is called.
+     * @param port The port to listen on or 0 to choose a free port.
+     * @param numThreads The number of connections that are served in parallel.
+     * @param cache The cache of relations that are shared by all jobs.
+     * @throws IOException if the socket can not be opened.
+     */
+    public JobServer(int port, int numThreads, RelationCache cache) throws IOException {
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.executor = Executors.newFixedThreadPool(Math.max(1, numThreads));
+        this.cache = cache;
+    }
+
+    public int getPort() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections until the server is closed.
+     * @throws IOException if accepting a connection fails for another reason than the server being closed.
+     */
+    public void serve() throws IOException {
+        while (!this.serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = this.serverSocket.accept();
+            } catch (SocketException e) {
+                if (this.serverSocket.isClosed())
+                    return;
+                throw e;
+            }
+            this.executor.execute(() -> this.handle(socket));
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream()), false, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] args = tokenize(line);
+                if (args.length == 0)
+                    continue;
+                Main.execute(args, out, this.cache);
+                out.println(END_OF_JOB);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // The client has closed the connection; there is nobody left to report to
+        }
+    }
+
+    /**
+     * Splits a job line into its arguments: arguments are separated by whitespace and a pair of double quotes encloses
+     * an argument that may contain whitespace.
+     * @param line The job line.
+     * @return The arguments of the job.
+     */
+    static String[] tokenize(String line) {
+        List<String> args = new ArrayList<>();
+        StringBuilder arg = new StringBuilder();
+        boolean inArg = false;
+        boolean inQuotes = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                inQuotes = !inQuotes;
+                inArg = true;
+            } else if (Character.isWhitespace(c) && !inQuotes) {
+                if (inArg)
+                    args.add(arg.toString());
+                arg.setLength(0);
+                inArg = false;
+            } else {
+                arg.append(c);
+                inArg = true;
+            }
+        }
+        if (inArg)
+            args.add(arg.toString());
+        return args.toArray(new String[0]);
+    }
+
+    /**
+     * Stops accepting connections; jobs that are already running are completed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.serverSocket.close();
+        this.executor.shutdown();
+    }
+}
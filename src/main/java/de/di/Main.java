@@ -12,6 +12,8 @@ import de.di.duplicate_detection.RecordComparator;
 import de.di.duplicate_detection.SortedNeighborhood;
 import de.di.duplicate_detection.TransitiveClosure;
 import de.di.duplicate_detection.structures.Duplicate;
+import de.di.helper.RecordStream;
+import de.di.helper.RelationCache;
 import de.di.schema_matching.FirstLineSchemaMatcher;
 import de.di.schema_matching.SecondLineSchemaMatcher;
 import de.di.schema_matching.helper.AUCPR;
@@ -26,6 +28,7 @@ import de.di.similarity_measures.helper.Tokenizer;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -38,88 +41,169 @@ import java.util.stream.Stream;
 public class Main {
 
     public static void main(String[] args) {
-        CommandJaccard commandJaccard = new CommandJaccard();
-        CommandLevenshtein commandLevenshtein = new CommandLevenshtein();
-        CommandLocalitySensitiveHashing commandLocalitySensitiveHashing = new CommandLocalitySensitiveHashing();
-        CommandUCCProfiler commandUCCProfiler = new CommandUCCProfiler();
-        CommandINDProfiler commandINDProfiler = new CommandINDProfiler();
-        CommandFirstLineSchemaMatcher commandFirstLineSchemaMatcher = new CommandFirstLineSchemaMatcher();
-        CommandSecondLineSchemaMatcher commandSecondLineSchemaMatcher = new CommandSecondLineSchemaMatcher();
-        CommandDuplicateDetection commandDuplicateDetection = new CommandDuplicateDetection();
-
-        JCommander jCommander = JCommander.newBuilder()
-                .addCommand(CommandJaccard.COMMAND, commandJaccard)
-                .addCommand(CommandLevenshtein.COMMAND, commandLevenshtein)
-                .addCommand(CommandLocalitySensitiveHashing.COMMAND, commandLocalitySensitiveHashing)
-                .addCommand(CommandUCCProfiler.COMMAND, commandUCCProfiler)
-                .addCommand(CommandINDProfiler.COMMAND, commandINDProfiler)
-                .addCommand(CommandFirstLineSchemaMatcher.COMMAND, commandFirstLineSchemaMatcher)
-                .addCommand(CommandSecondLineSchemaMatcher.COMMAND, commandSecondLineSchemaMatcher)
-                .addCommand(CommandDuplicateDetection.COMMAND, commandDuplicateDetection)
-                .build();
+        Job job = new Job();
+        try {
+            job.parse(args);
+
+            if (job.getCommand().equals(CommandServe.COMMAND)) {
+                serve(job.commandServe);
+                return;
+            }
+            job.run(System.out, null);
+
+        } catch (ParameterException e) {
+            System.out.printf("Could not parse args: %s\n", e.getMessage());
+            job.jCommander.usage();
+            System.exit(1);
+        }
+    }
 
+    /**
+     * Executes one job, i.e., one command line, and prints its results into the provided stream. Errors are printed
+     * into the stream as well, so that a server can report them to its client and carry on.
+     * @param args The command line of the job.
+     * @param out The stream that receives the results.
+     * @param cache The cache of relations that are shared across jobs or null to read all relations from their files.
+     */
+    static void execute(String[] args, PrintStream out, RelationCache cache) {
+        Job job = new Job();
         try {
-            jCommander.parse(args);
+            job.parse(args);
+            if (job.getCommand().equals(CommandServe.COMMAND))
+                throw new ParameterException("A server can not run another server.");
+            job.run(out, cache);
+        } catch (ParameterException e) {
+            out.printf("Could not parse args: %s\n", e.getMessage());
+        } catch (RuntimeException e) {
+            out.printf("Job failed: %s\n", e);
+        }
+    }
+
+    private static void serve(CommandServe commandServe) {
+        try (JobServer server = new JobServer(commandServe.port, commandServe.numThreads, new RelationCache(commandServe.cacheSize))) {
+            System.out.println("Serving jobs on port " + server.getPort());
+            server.serve();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-            if (jCommander.getParsedCommand() == null)
+    /**
+     * A Job holds the command objects of one command line. JCommander writes the parsed values into these objects,
+     * so every command line needs its own Job.
+     */
+    private static class Job {
+
+        private final CommandJaccard commandJaccard = new CommandJaccard();
+        private final CommandLevenshtein commandLevenshtein = new CommandLevenshtein();
+        private final CommandLocalitySensitiveHashing commandLocalitySensitiveHashing = new CommandLocalitySensitiveHashing();
+        private final CommandUCCProfiler commandUCCProfiler = new CommandUCCProfiler();
+        private final CommandINDProfiler commandINDProfiler = new CommandINDProfiler();
+        private final CommandFirstLineSchemaMatcher commandFirstLineSchemaMatcher = new CommandFirstLineSchemaMatcher();
+        private final CommandSecondLineSchemaMatcher commandSecondLineSchemaMatcher = new CommandSecondLineSchemaMatcher();
+        private final CommandDuplicateDetection commandDuplicateDetection = new CommandDuplicateDetection();
+        private final CommandServe commandServe = new CommandServe();
+
+        private final JCommander jCommander = JCommander.newBuilder()
+                .addCommand(CommandJaccard.COMMAND, this.commandJaccard)
+                .addCommand(CommandLevenshtein.COMMAND, this.commandLevenshtein)
+                .addCommand(CommandLocalitySensitiveHashing.COMMAND, this.commandLocalitySensitiveHashing)
+                .addCommand(CommandUCCProfiler.COMMAND, this.commandUCCProfiler)
+                .addCommand(CommandINDProfiler.COMMAND, this.commandINDProfiler)
+                .addCommand(CommandFirstLineSchemaMatcher.COMMAND, this.commandFirstLineSchemaMatcher)
+                .addCommand(CommandSecondLineSchemaMatcher.COMMAND, this.commandSecondLineSchemaMatcher)
+                .addCommand(CommandDuplicateDetection.COMMAND, this.commandDuplicateDetection)
+                .addCommand(CommandServe.COMMAND, this.commandServe)
+                .build();
+
+        private void parse(String[] args) {
+            this.jCommander.parse(args);
+
+            if (this.jCommander.getParsedCommand() == null)
                 throw new ParameterException("No command given.");
+        }
+
+        private String getCommand() {
+            return this.jCommander.getParsedCommand();
+        }
 
+        private void run(PrintStream out, RelationCache cache) {
             long time = System.currentTimeMillis();
 
-            System.out.println("// " + jCommander.getParsedCommand() + " //");
+            out.println("// " + this.getCommand() + " //");
 
-            switch (jCommander.getParsedCommand()) {
+            switch (this.getCommand()) {
                 case CommandJaccard.COMMAND:
                     SimilarityMeasure jaccard = new Jaccard(new Tokenizer(commandJaccard.tokenSize, commandJaccard.usePadding), commandJaccard.bagSemantics);
-                    System.out.println(jaccard.calculate(commandJaccard.string1, commandJaccard.string2));
+                    out.println(jaccard.calculate(commandJaccard.string1, commandJaccard.string2));
                     break;
                 case CommandLevenshtein.COMMAND:
                     SimilarityMeasure levenshtein = new Levenshtein(commandLevenshtein.withDamerau);
-                    System.out.println(levenshtein.calculate(commandLevenshtein.string1, commandLevenshtein.string2));
+                    out.println(levenshtein.calculate(commandLevenshtein.string1, commandLevenshtein.string2));
                     break;
                 case CommandLocalitySensitiveHashing.COMMAND:
-                    SimilarityMeasure localitySensitiveHashing = new LocalitySensitiveHashing(new Tokenizer(commandLocalitySensitiveHashing.tokenSize, commandLocalitySensitiveHashing.usePadding), commandLocalitySensitiveHashing.bagSemantics, commandLocalitySensitiveHashing.numHashFunctions);
-                    System.out.println(localitySensitiveHashing.calculate(commandLocalitySensitiveHashing.string1, commandLocalitySensitiveHashing.string2));
+                    SimilarityMeasure localitySensitiveHashing = new LocalitySensitiveHashing(new Tokenizer(commandLocalitySensitiveHashing.tokenSize, commandLocalitySensitiveHashing.usePadding), commandLocalitySensitiveHashing.bagSemantics, commandLocalitySensitiveHashing.numHashFunctions, commandLocalitySensitiveHashing.onePermutation);
+                    out.println(localitySensitiveHashing.calculate(commandLocalitySensitiveHashing.string1, commandLocalitySensitiveHashing.string2));
                     break;
                 case CommandUCCProfiler.COMMAND:
                     UCCProfiler uccProfiler = new UCCProfiler();
                     List<UCC> uccResult = new ArrayList<>();
-                    for (Relation relation : Relation.readAllRelationsIn(commandUCCProfiler.inputPath, commandUCCProfiler.hasHeader, commandUCCProfiler.separator.charAt(0), StandardCharsets.UTF_8))
-                        uccResult.addAll(uccProfiler.profile(relation));
-                    uccResult.forEach(System.out::println);
+                    if (commandUCCProfiler.offHeapPath != null) {
+                        // Stream one relation at a time into off-heap columns and profile it, so that the heap holds the PLIs of only one relation
+                        for (Path file : scanFiles(commandUCCProfiler.inputPath)) {
+                            Relation relation = new Relation(file, commandUCCProfiler.hasHeader, commandUCCProfiler.separator.charAt(0), StandardCharsets.UTF_8, Paths.get(commandUCCProfiler.offHeapPath));
+                            if (commandUCCProfiler.reportHeap)
+                                printSavedHeap(out, relation);
+                            uccResult.addAll(uccProfiler.profile(relation));
+                        }
+                    } else {
+                        for (Relation relation : readAllRelationsIn(commandUCCProfiler.inputPath, commandUCCProfiler.hasHeader, commandUCCProfiler.separator.charAt(0), commandUCCProfiler.numThreads, cache)) {
+                            if (commandUCCProfiler.reportHeap)
+                                printSavedHeap(out, relation);
+                            uccResult.addAll(uccProfiler.profile(relation));
+                        }
+                    }
+                    uccResult.forEach(out::println);
                     break;
                 case CommandINDProfiler.COMMAND:
                     INDProfiler indProfiler = new INDProfiler();
-                    List<Relation> relations = Relation.readAllRelationsIn(commandINDProfiler.inputPath, commandINDProfiler.hasHeader, commandINDProfiler.separator.charAt(0), StandardCharsets.UTF_8);
-                    List<IND> indResult = indProfiler.profile(relations, commandINDProfiler.discoverNary);
-                    indResult.forEach(System.out::println);
+                    List<IND> indResult;
+                    if (commandINDProfiler.streaming && !commandINDProfiler.discoverNary) {
+                        indResult = indProfiler.profile(scanFiles(commandINDProfiler.inputPath), commandINDProfiler.hasHeader, commandINDProfiler.separator.charAt(0), StandardCharsets.UTF_8);
+                    } else {
+                        List<Relation> relations = readAllRelationsIn(commandINDProfiler.inputPath, commandINDProfiler.hasHeader, commandINDProfiler.separator.charAt(0), commandINDProfiler.numThreads, cache);
+                        if (commandINDProfiler.reportHeap)
+                            relations.forEach(relation -> printSavedHeap(out, relation));
+                        indResult = indProfiler.profile(relations, commandINDProfiler.discoverNary);
+                    }
+                    indResult.forEach(out::println);
                     break;
                 case CommandFirstLineSchemaMatcher.COMMAND:
-                    runMatchingFor(commandFirstLineSchemaMatcher.scenarioPath, false);
+                    runMatchingFor(commandFirstLineSchemaMatcher.scenarioPath, false, out, cache);
                     break;
                 case CommandSecondLineSchemaMatcher.COMMAND:
-                    runMatchingFor(commandSecondLineSchemaMatcher.scenarioPath, true);
+                    runMatchingFor(commandSecondLineSchemaMatcher.scenarioPath, true, out, cache);
                     break;
                 case CommandDuplicateDetection.COMMAND:
-                    Relation relation = new Relation(commandDuplicateDetection.scenarioPath, commandDuplicateDetection.hasHeader, commandDuplicateDetection.separator.charAt(0), StandardCharsets.ISO_8859_1);
-                    RecordComparator recordComparator = SortedNeighborhood.suggestRecordComparatorFor(relation);
+                    // Stream the input file instead of loading it, so that the input may be larger than the heap
+                    Path inputFile = Path.of(commandDuplicateDetection.scenarioPath);
+                    char separator = commandDuplicateDetection.separator.charAt(0);
+                    RecordComparator recordComparator;
+                    try (RecordStream records = RecordStream.open(inputFile, commandDuplicateDetection.hasHeader, separator, StandardCharsets.ISO_8859_1)) {
+                        recordComparator = SortedNeighborhood.suggestRecordComparatorFor(records);
+                    }
                     SortedNeighborhood sortedNeighborhood = new SortedNeighborhood();
                     int[] sortingKeys = Arrays.stream(commandDuplicateDetection.sortingKeys.split(",")).mapToInt(Integer::parseInt).toArray();
-                    Set<Duplicate> duplicates = sortedNeighborhood.detectDuplicates(relation, sortingKeys, commandDuplicateDetection.windowSize, recordComparator);
+                    Set<Duplicate> duplicates = sortedNeighborhood.detectDuplicates(inputFile, commandDuplicateDetection.hasHeader, separator, StandardCharsets.ISO_8859_1, sortingKeys, commandDuplicateDetection.windowSize, recordComparator);
                     TransitiveClosure transitiveClosure = new TransitiveClosure();
                     duplicates = transitiveClosure.calculate(duplicates);
-                    duplicates.forEach(System.out::println);
+                    duplicates.forEach(out::println);
                     break;
                 default:
                     throw new AssertionError();
             }
 
-            System.out.println("Runtime: " + (System.currentTimeMillis() - time) / 1000 + " sec");
-
-        } catch (ParameterException e) {
-            System.out.printf("Could not parse args: %s\n", e.getMessage());
-            jCommander.usage();
-            System.exit(1);
+            out.println("Runtime: " + (System.currentTimeMillis() - time) / 1000 + " sec");
         }
     }
 
@@ -179,8 +263,11 @@ public class Main {
         @Parameter(names = {"--usePadding"}, description = "Specification of whether or not padding should be used", required = false, arity = 1)
         boolean usePadding = false;
 
-        @Parameter(names = {"--numHashFunctions"}, description = "Specification of the number of minHash functions to be used; must be smaller or equal to the tokenSize", required = false, arity = 1)
+        @Parameter(names = {"--numHashFunctions"}, description = "Specification of the number of minHash functions, i.e., the signature length to be used", required = false, arity = 1)
         int numHashFunctions = 2;
+
+        @Parameter(names = {"--onePermutation"}, description = "Specification of whether the signatures should be calculated with one-permutation hashing", required = false, arity = 1)
+        boolean onePermutation = false;
     }
 
     @Parameters(commandDescription = "Execute the UCCProfiler data profiling algorithm.")
@@ -196,6 +283,15 @@ public class Main {
 
         @Parameter(names = {"--separator"}, description = "File separator character", required = false, arity = 1)
         String separator = ";";
+
+        @Parameter(names = {"--threads"}, description = "Number of threads that read the input files", required = false, arity = 1)
+        int numThreads = Runtime.getRuntime().availableProcessors();
+
+        @Parameter(names = {"--reportHeap"}, description = "Flag to report the heap that the deduplication of equal values saves per relation", required = false, arity = 1)
+        boolean reportHeap = false;
+
+        @Parameter(names = {"--offHeap"}, description = "Directory in which the relations are streamed one by one into off-heap columns in memory-mapped files, so that they may be larger than the heap; the columns stay on the heap if no directory is given", required = false, arity = 1)
+        String offHeapPath = null;
     }
 
     @Parameters(commandDescription = "Execute the INDProfiler data profiling algorithm.")
@@ -214,6 +310,15 @@ public class Main {
 
         @Parameter(names = {"--discoverNary"}, description = "Flag to indicate whether n-ary INDs should be discovered as well", required = false, arity = 1)
         boolean discoverNary = false;
+
+        @Parameter(names = {"--threads"}, description = "Number of threads that read the input files", required = false, arity = 1)
+        int numThreads = Runtime.getRuntime().availableProcessors();
+
+        @Parameter(names = {"--reportHeap"}, description = "Flag to report the heap that the deduplication of equal values saves per relation", required = false, arity = 1)
+        boolean reportHeap = false;
+
+        @Parameter(names = {"--streaming"}, description = "Flag to stream the input files instead of loading them; supports only unary IND discovery", required = false, arity = 1)
+        boolean streaming = false;
     }
 
     @Parameters(commandDescription = "Execute the FirstLineSchemaMatcher algorithm.")
@@ -255,13 +360,37 @@ public class Main {
         int windowSize = 5;
     }
 
-    private static void runMatchingFor(String scenarioPath, boolean withSecondLineMatcher) {
+    @Parameters(commandDescription = "Run a resident server that executes jobs, i.e., the command lines of the other commands, sent line by line to a local socket.")
+    private static class CommandServe {
+
+        public static final String COMMAND = "serve";
+
+        @Parameter(names = {"--port"}, description = "Port on the loopback interface to listen on", required = false, arity = 1)
+        int port = 4711;
+
+        @Parameter(names = {"--threads"}, description = "Number of connections that are served in parallel", required = false, arity = 1)
+        int numThreads = Runtime.getRuntime().availableProcessors();
+
+        @Parameter(names = {"--cacheSize"}, description = "Number of relations that are kept loaded across jobs", required = false, arity = 1)
+        int cacheSize = 64;
+    }
+
+    private static List<Relation> readAllRelationsIn(String folderPath, boolean hasHeader, char separator, int numThreads, RelationCache cache) {
+        if (cache != null)
+            return cache.getAll(folderPath, hasHeader, separator, StandardCharsets.UTF_8, numThreads);
+        return Relation.readAllRelationsIn(folderPath, hasHeader, separator, StandardCharsets.UTF_8, numThreads);
+    }
+
+    private static void runMatchingFor(String scenarioPath, boolean withSecondLineMatcher, PrintStream out, RelationCache cache) {
         List<Path> sources = scanFiles(scenarioPath + File.separator + "source");
         List<Path> targets = scanFiles(scenarioPath + File.separator + "target");
 
         Collections.sort(sources);
         Collections.sort(targets);
 
+        // Every source and target relation takes part in several pairs, but needs to be read only once
+        RelationCache relations = (cache != null) ? cache : new RelationCache(Integer.MAX_VALUE);
+
         for (Path source : sources) {
             for (Path target : targets) {
                 // Check if this relation pair is actually a pair that is supposed to match
@@ -270,9 +399,9 @@ public class Main {
                     continue;
 
                 // Load the relations and ground truth data
-                Relation sourceRelation = new Relation(source.toString(), true, ',', StandardCharsets.UTF_8);
-                Relation targetRelation = new Relation(target.toString(), true, ',', StandardCharsets.UTF_8);
-                Relation groundRelation = new Relation(groundTruth.toString(), false, ',', StandardCharsets.UTF_8);
+                Relation sourceRelation = relations.get(source, true, ',', StandardCharsets.UTF_8);
+                Relation targetRelation = relations.get(target, true, ',', StandardCharsets.UTF_8);
+                Relation groundRelation = relations.get(groundTruth, false, ',', StandardCharsets.UTF_8);
 
                 // Calculate first-line matching
                 FirstLineSchemaMatcher firstMatcher = new FirstLineSchemaMatcher();
@@ -302,15 +431,19 @@ public class Main {
                 }
 
                 // Print results
-                System.out.println("ROC-AUC:\t" + rocScore);
-                System.out.println("PR-AUC: \t" + prScore);
+                out.println("ROC-AUC:\t" + rocScore);
+                out.println("PR-AUC: \t" + prScore);
 
-                System.out.println((withSecondLineMatcher) ? corrMatrix : simMatrix);
-                System.out.println(goldMatrix);
+                out.println((withSecondLineMatcher) ? corrMatrix : simMatrix);
+                out.println(goldMatrix);
             }
         }
     }
 
+    private static void printSavedHeap(PrintStream out, Relation relation) {
+        out.printf("%s: value deduplication saves %.1f KB of heap%n", relation.getName(), relation.estimateSavedBytes() / 1024.0);
+    }
+
     private static List<Path> scanFiles(String folderPath) {
         try (Stream<Path> paths = Files.walk(Paths.get(folderPath))) {
             return paths.filter(Files::isRegularFile).collect(Collectors.toList());
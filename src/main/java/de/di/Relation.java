@@ -1,15 +1,16 @@
 package de.di;
 
-import com.opencsv.CSVParser;
-import com.opencsv.CSVParserBuilder;
-import com.opencsv.CSVReader;
-import com.opencsv.CSVReaderBuilder;
-import com.opencsv.enums.CSVReaderNullFieldIndicator;
-import com.opencsv.exceptions.CsvValidationException;
-import lombok.AllArgsConstructor;
+import de.di.helper.CsvRecordStream;
+import de.di.helper.MappedCsvReader;
+import de.di.helper.RecordStream;
+import de.di.helper.RelationSnapshot;
+import de.di.structures.ColumnStatistics;
+import de.di.structures.DictionaryColumn;
+import de.di.structures.EncodedColumn;
+import de.di.structures.OffHeapColumn;
+import lombok.AccessLevel;
 import lombok.Getter;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
@@ -19,25 +20,131 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * A Relation stores its values column-wise: every attribute is held as a DictionaryColumn that is built once while the
+ * file is read. The row-wise records are only materialized from these columns if a caller asks for them. Files that
+ * are read memory-mapped decode each column only when it is accessed for the first time. Relations that are too large
+ * for the heap can move their columns off-heap, where they are held as OffHeapColumns.
+ */
 @Getter
-@AllArgsConstructor
 public class Relation {
 
     private String name;
     private String[] attributes;
-    private String[][] records;
+    private int numRecords;
+    private EncodedColumn[] encodedColumns;
+
+    // The materialized records; volatile, so that a thread never sees a partially published array
+    private volatile String[][] records;
+
+    // The statistics of every column, calculated when they are requested for the first time
+    @Getter(AccessLevel.NONE)
+    private ColumnStatistics[] statistics;
+
+    // The memory-mapped file whose columns have not all been decoded yet; null if the relation is fully decoded.
+    @Getter(AccessLevel.NONE)
+    private MappedCsvReader source;
+
+    // Whether the relation only describes the schema and size of a streamed file and holds no values.
+    @Getter(AccessLevel.NONE)
+    private boolean schemaOnly;
 
     public static List<Relation> readAllRelationsIn(String folderPath, boolean hasHeader, char separator, Charset charset) {
+        return readAllRelationsIn(folderPath, hasHeader, separator, charset, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Reads all files in the provided folder as relations. The files are read in parallel by the provided number of
+     * threads, which also share the parsing of large single files; the relations are returned in the order in which
+     * the files are listed.
+     * @param folderPath The path of the folder.
+     * @param hasHeader Whether the first record of every file holds the attribute names.
+     * @param separator The field separator.
+     * @param charset The charset of the files.
+     * @param numThreads The number of threads that read the files.
+     * @return The relations of all files in the folder.
+     */
+    public static List<Relation> readAllRelationsIn(String folderPath, boolean hasHeader, char separator, Charset charset, int numThreads) {
+        List<Path> filePaths;
         try (Stream<Path> paths = Files.walk(Paths.get(folderPath))) {
-            return paths.filter(Files::isRegularFile)
-                    .map(filePath -> new Relation(filePath, hasHeader, separator, charset))
-                    .collect(Collectors.toList());
+            filePaths = paths.filter(Files::isRegularFile).collect(Collectors.toList());
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+
+        // A parallel stream that is started inside a ForkJoinPool runs on the threads of that pool
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, numThreads));
+        try {
+            return pool.submit(() -> filePaths.parallelStream()
+                    .map(filePath -> new Relation(filePath, hasHeader, separator, charset))
+                    .collect(Collectors.toList())).get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public Relation(String name, String[] attributes, String[][] records) {
+        this(name, attributes, records, false);
+    }
+
+    /**
+     * Creates a relation from records that are already in memory.
+     * @param name The name of the relation.
+     * @param attributes The attribute names of the relation.
+     * @param records The records of the relation.
+     * @param internValues Whether equal values of one column should be canonicalized, i.e., every value in the records
+     *                     array is replaced by the one instance that the column's dictionary holds, so that repeated
+     *                     values no longer occupy the heap once the caller drops its own references to them.
+     */
+    public Relation(String name, String[] attributes, String[][] records, boolean internValues) {
+        this.name = name;
+        this.attributes = attributes;
+        this.numRecords = records.length;
+        this.records = records;
+
+        int numColumns = attributes.length;
+        for (String[] record : records)
+            if (record != null)
+                numColumns = Math.max(numColumns, record.length);
+
+        this.encodedColumns = new EncodedColumn[numColumns];
+        for (int i = 0; i < numColumns; i++) {
+            DictionaryColumn.Builder builder = new DictionaryColumn.Builder(records.length);
+            for (String[] record : records)
+                builder.add((record != null && i < record.length && record[i] != null) ? record[i] : "");
+            this.encodedColumns[i] = builder.build();
+        }
+
+        if (internValues)
+            for (int j = 0; j < records.length; j++)
+                for (int i = 0; records[j] != null && i < records[j].length; i++)
+                    if (records[j][i] != null)
+                        records[j][i] = this.encodedColumns[i].getValue(j);
+    }
+
+    /**
+     * Creates a relation that only describes the schema and the size of a file whose records are streamed instead of
+     * loaded, for example, to reference it from the results of a streaming algorithm. The relation holds no values, so
+     * all accessors of its columns, statistics and records throw an IllegalStateException.
+     * @param name The name of the relation.
+     * @param attributes The attribute names of the relation.
+     * @param numRecords The number of records in the file.
+     */
+    public Relation(String name, String[] attributes, int numRecords) {
+        this.name = name;
+        this.attributes = attributes;
+        this.numRecords = numRecords;
+        this.encodedColumns = new EncodedColumn[attributes.length];
+        this.schemaOnly = true;
     }
 
     public Relation(String filePath) {
@@ -48,57 +155,352 @@ public class Relation {
         this(Path.of(filePath), hasHeader, separator, charset);
     }
 
+    /**
+     * Reads a relation from a CSV file. If the snapshot cache holds a valid snapshot of the file, the relation is
+     * loaded from this snapshot; otherwise, the file is parsed and a snapshot is written for the next time. The snapshot
+     * is written column by column and keeps no column decoded, so that a memory-mapped relation still decodes its
+     * columns only when they are accessed.
+     * @param filePath The path of the CSV file.
+     * @param hasHeader Whether the first record of the file holds the attribute names.
+     * @param separator The field separator.
+     * @param charset The charset of the file.
+     */
     public Relation(Path filePath, boolean hasHeader, char separator, Charset charset) {
-        this.name = filePath.getFileName().toString().split("\\.")[0];
-
-        CSVParser parser = new CSVParserBuilder()
-                .withSeparator(separator)
-                .withQuoteChar('"')
-                .withEscapeChar('\\')
-                .withStrictQuotes(false)
-                .withIgnoreLeadingWhiteSpace(false)
-                .withFieldAsNull(CSVReaderNullFieldIndicator.EMPTY_SEPARATORS)
-                .build();
-
-        ArrayList<String[]> records;
+        this.name = nameOf(filePath);
+
+        RelationSnapshot snapshot = RelationSnapshot.load(filePath, hasHeader, separator, charset);
+        if (snapshot != null) {
+            this.attributes = snapshot.getAttributes();
+            this.numRecords = snapshot.getNumRecords();
+            this.encodedColumns = snapshot.getColumns();
+            return;
+        }
+
+        if (RelationSnapshot.getCacheDirectory() == null) {
+            this.read(filePath, hasHeader, separator, charset, MappedCsvReader.supports(separator, charset), null);
+            return;
+        }
+
+        // The state of the file is taken before parsing, so that a change during parsing invalidates the snapshot
+        long fileSize;
+        long lastModified;
         try {
-            BufferedReader buffer = Files.newBufferedReader(filePath, charset);
-            CSVReader reader = new CSVReaderBuilder(buffer).withCSVParser(parser).build();
-
-            if (hasHeader)
-                this.attributes = reader.readNext();
-
-            records = new ArrayList<>();
-            String[] line;
-            while ((line = reader.readNext()) != null) {
-                for (int i = 0; i < line.length; i++)
-                    if (line[i] == null)
-                        line[i] = "";
-                records.add(line);
+            fileSize = Files.size(filePath);
+            lastModified = Files.getLastModifiedTime(filePath).to(TimeUnit.NANOSECONDS);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        this.read(filePath, hasHeader, separator, charset, MappedCsvReader.supports(separator, charset), null);
+        RelationSnapshot.write(filePath, hasHeader, separator, charset, fileSize, lastModified, this.attributes, this.numRecords, this.encodedColumns.length, this::peekColumn);
+    }
+
+    /**
+     * Reads a relation from a CSV file without using the snapshot cache.
+     * @param filePath The path of the CSV file.
+     * @param hasHeader Whether the first record of the file holds the attribute names.
+     * @param separator The field separator.
+     * @param charset The charset of the file.
+     * @param memoryMapped Whether the file should be parsed on its memory-mapped bytes with a MappedCsvReader instead
+     *                     of with opencsv; both produce the same values.
+     */
+    public Relation(Path filePath, boolean hasHeader, char separator, Charset charset, boolean memoryMapped) {
+        this.name = nameOf(filePath);
+        this.read(filePath, hasHeader, separator, charset, memoryMapped, null);
+    }
+
+    /**
+     * Reads only the provided attributes of a CSV file. The relation keeps the schema and attribute indexes of the
+     * file, but all other attributes hold only empty values; their fields are parsed, so that quotes and separators
+     * are handled correctly, but never stored or decoded. Projected relations bypass the snapshot cache.
+     * @param filePath The path of the CSV file.
+     * @param hasHeader Whether the first record of the file holds the attribute names.
+     * @param separator The field separator.
+     * @param charset The charset of the file.
+     * @param projection The indexes of the attributes to read.
+     */
+    public Relation(Path filePath, boolean hasHeader, char separator, Charset charset, int[] projection) {
+        this.name = nameOf(filePath);
+        this.read(filePath, hasHeader, separator, charset, MappedCsvReader.supports(separator, charset), toFlags(projection));
+    }
+
+    /**
+     * Reads only the provided attributes of a CSV file with a header; see the constructor with attribute indexes.
+     * @param filePath The path of the CSV file.
+     * @param separator The field separator.
+     * @param charset The charset of the file.
+     * @param projection The names of the attributes to read.
+     */
+    public Relation(Path filePath, char separator, Charset charset, String... projection) {
+        this(filePath, true, separator, charset, indexesOf(filePath, separator, charset, projection));
+    }
+
+    /**
+     * Reads a relation from a CSV file directly into OffHeapColumns. The file is streamed record by record and every
+     * value is encoded into the off-heap buffers of its column's OffHeapColumn.Builder right away, so the heap holds
+     * only the current record, but neither the parsed fields of the file nor a decoded column; the relation can
+     * therefore be larger than the heap. Off-heap relations bypass the snapshot cache.
+     * @param filePath The path of the CSV file.
+     * @param hasHeader Whether the first record of the file holds the attribute names.
+     * @param separator The field separator.
+     * @param charset The charset of the file.
+     * @param directory The directory of the temporary files that back the columns or null to use direct buffers.
+     */
+    public Relation(Path filePath, boolean hasHeader, char separator, Charset charset, Path directory) {
+        this.name = nameOf(filePath);
+
+        List<OffHeapColumn.Builder> builders = new ArrayList<>();
+        int numRecords = 0;
+        try (RecordStream records = RecordStream.open(filePath, hasHeader, separator, charset)) {
+            this.attributes = records.getHeader();
+            while (records.next()) {
+                while (builders.size() < records.getNumFields())
+                    builders.add(emptyBuilder(numRecords, directory));
+                for (int i = 0; i < builders.size(); i++)
+                    builders.get(i).add(records.getField(i));
+                numRecords++;
             }
-            reader.close();
-        } catch (CsvValidationException | IOException e) {
+        }
+        if (this.attributes != null)
+            while (builders.size() < this.attributes.length)
+                builders.add(emptyBuilder(numRecords, directory));
+
+        this.numRecords = numRecords;
+        this.encodedColumns = new EncodedColumn[builders.size()];
+        for (int i = 0; i < builders.size(); i++)
+            this.encodedColumns[i] = builders.get(i).build();
+
+        if (!hasHeader)
+            this.numberAttributes();
+    }
+
+    private static OffHeapColumn.Builder emptyBuilder(int numRecords, Path directory) {
+        OffHeapColumn.Builder builder = new OffHeapColumn.Builder(directory);
+        for (int i = 0; i < numRecords; i++)
+            builder.add("");
+        return builder;
+    }
+
+    private static boolean[] toFlags(int[] projection) {
+        int numFlags = 0;
+        for (int attribute : projection)
+            numFlags = Math.max(numFlags, attribute + 1);
+        boolean[] flags = new boolean[numFlags];
+        for (int attribute : projection)
+            flags[attribute] = true;
+        return flags;
+    }
+
+    private static int[] indexesOf(Path filePath, char separator, Charset charset, String[] projection) {
+        String[] header;
+        try (RecordStream records = RecordStream.open(filePath, true, separator, charset)) {
+            header = records.getHeader();
+        }
+        List<String> attributes = (header != null) ? Arrays.asList(header) : new ArrayList<>();
+
+        int[] indexes = new int[projection.length];
+        for (int i = 0; i < projection.length; i++) {
+            indexes[i] = attributes.indexOf(projection[i]);
+            if (indexes[i] < 0)
+                throw new IllegalArgumentException("The relation " + nameOf(filePath) + " has no attribute " + projection[i] + ".");
+        }
+        return indexes;
+    }
+
+    private static boolean isProjected(boolean[] projection, int attribute) {
+        return projection == null || (attribute < projection.length && projection[attribute]);
+    }
+
+    private static DictionaryColumn emptyColumn(int numRecords) {
+        return new DictionaryColumn((numRecords > 0) ? new String[]{""} : new String[0], new int[numRecords]);
+    }
+
+    private void read(Path filePath, boolean hasHeader, char separator, Charset charset, boolean memoryMapped, boolean[] projection) {
+        if (memoryMapped)
+            this.readMapped(filePath, hasHeader, separator, charset, projection);
+        else
+            this.readWithOpenCsv(filePath, hasHeader, separator, charset, projection);
+
+        if (!hasHeader)
+            this.numberAttributes();
+    }
+
+    // Names the attributes of a file without header by their indexes
+    private void numberAttributes() {
+        this.attributes = new String[this.encodedColumns.length];
+        for (int i = 0; i < this.encodedColumns.length; i++)
+            this.attributes[i] = String.valueOf(i);
+    }
+
+    /**
+     * Derives the name of a relation from the name of its file.
+     * @param filePath The path of the file.
+     * @return The name of the file without its extension.
+     */
+    public static String nameOf(Path filePath) {
+        return filePath.getFileName().toString().split("\\.")[0];
+    }
+
+    private void readMapped(Path filePath, boolean hasHeader, char separator, Charset charset, boolean[] projection) {
+        try {
+            this.source = new MappedCsvReader(filePath, hasHeader, separator, charset, projection);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        if (hasHeader)
+            this.attributes = this.source.getHeader();
+        this.numRecords = this.source.getNumRecords();
+
+        int numColumns = this.source.getNumColumns();
+        if (this.attributes != null)
+            numColumns = Math.max(numColumns, this.attributes.length);
+        this.encodedColumns = new EncodedColumn[numColumns];
+
+        DictionaryColumn emptyColumn = emptyColumn(this.numRecords);
+        for (int i = 0; i < numColumns; i++)
+            if (!isProjected(projection, i))
+                this.encodedColumns[i] = emptyColumn;
+    }
+
+    private void readWithOpenCsv(Path filePath, boolean hasHeader, char separator, Charset charset, boolean[] projection) {
+        // Encode the values column by column while reading, so that no row-wise copy of the file is kept
+        List<DictionaryColumn.Builder> builders = new ArrayList<>();
+        int numRecords = 0;
+        try (RecordStream records = new CsvRecordStream(filePath, hasHeader, separator, charset)) {
+            this.attributes = records.getHeader();
+            while (records.next()) {
+                while (builders.size() < records.getNumFields()) {
+                    DictionaryColumn.Builder builder = new DictionaryColumn.Builder();
+                    for (int i = 0; i < numRecords && isProjected(projection, builders.size()); i++)
+                        builder.add("");
+                    builders.add(builder);
+                }
+                for (int i = 0; i < builders.size(); i++)
+                    if (isProjected(projection, i))
+                        builders.get(i).add(records.getField(i));
+                numRecords++;
+            }
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
 
-        this.records = new String[records.size()][];
-        for (int i = 0; i < records.size(); i++)
-            this.records[i] = records.get(i);
+        if (this.attributes != null)
+            for (int i = builders.size(); i < this.attributes.length; i++) {
+                DictionaryColumn.Builder builder = new DictionaryColumn.Builder(numRecords);
+                for (int j = 0; j < numRecords; j++)
+                    builder.add("");
+                builders.add(builder);
+            }
+
+        this.numRecords = numRecords;
+        this.encodedColumns = new EncodedColumn[builders.size()];
+        DictionaryColumn emptyColumn = emptyColumn(numRecords);
+        for (int i = 0; i < builders.size(); i++)
+            this.encodedColumns[i] = isProjected(projection, i) ? builders.get(i).build() : emptyColumn;
+    }
+
+    /**
+     * Returns the dictionary-encoded column of the provided attribute.
+     * @param attribute The index of the attribute.
+     * @return The column of the attribute.
+     */
+    public EncodedColumn getColumn(int attribute) {
+        EncodedColumn column = this.encodedColumns[attribute];
+        return (column != null) ? column : this.decodeColumn(attribute);
+    }
 
-        if (!hasHeader && this.records.length != 0) {
-            this.attributes = new String[this.records[0].length];
-            for (int i = 0; i < this.records[0].length; i++)
-                this.attributes[i] = String.valueOf(i);
+    private synchronized EncodedColumn decodeColumn(int attribute) {
+        if (this.schemaOnly)
+            throw new IllegalStateException("The relation " + this.name + " holds no values; it only describes the schema of a streamed file.");
+        if (this.encodedColumns[attribute] == null) {
+            this.encodedColumns[attribute] = this.source.decodeColumn(attribute);
+            if (Arrays.stream(this.encodedColumns).allMatch(Objects::nonNull))
+                this.source = null;
         }
+        return this.encodedColumns[attribute];
+    }
+
+    // Returns the column of the provided attribute without keeping it, if it has not been decoded yet
+    private EncodedColumn peekColumn(int attribute) {
+        EncodedColumn column = this.encodedColumns[attribute];
+        return (column != null) ? column : this.source.decodeColumn(attribute);
+    }
+
+    /**
+     * Returns the statistics of the provided attribute's column. They are derived from the column's dictionary and
+     * the occurrence counts of its codes, so the values are not scanned again, and cached for later calls.
+     * @param attribute The index of the attribute.
+     * @return The statistics of the attribute's column.
+     */
+    public synchronized ColumnStatistics getStatistics(int attribute) {
+        if (this.statistics == null)
+            this.statistics = new ColumnStatistics[this.encodedColumns.length];
+        if (this.statistics[attribute] == null)
+            this.statistics[attribute] = ColumnStatistics.of(this.getColumn(attribute));
+        return this.statistics[attribute];
+    }
+
+    /**
+     * Returns the dictionary-encoded columns of all attributes.
+     * @return The columns of this relation.
+     */
+    public EncodedColumn[] getEncodedColumns() {
+        for (int i = 0; i < this.encodedColumns.length; i++)
+            this.getColumn(i);
+        return this.encodedColumns;
+    }
+
+    /**
+     * Moves all columns of this relation out of the Java heap; records that have already been materialized are
+     * dropped. Afterwards, all accessors work as before, but read their values from the off-heap buffers. Note that
+     * the relation has already been read onto the heap: a memory-mapped relation holds the field offsets of all its
+     * columns and decodes every column on the heap before it is copied. Relations that are larger than the heap must
+     * be read with the off-heap constructor instead.
+     * @param directory The directory of the temporary files that back the columns or null to use direct buffers.
+     */
+    public synchronized void moveOffHeap(Path directory) {
+        this.records = null;
+        for (int i = 0; i < this.encodedColumns.length; i++)
+            if (!(this.encodedColumns[i] instanceof OffHeapColumn))
+                this.encodedColumns[i] = OffHeapColumn.of(this.getColumn(i), directory);
+        this.source = null;
+    }
+
+    /**
+     * Returns the records of this relation row by row. The records are materialized from the columns on the first
+     * call and cached afterwards; equal values of one column share the same String instance.
+     * @return The records of this relation.
+     */
+    public String[][] getRecords() {
+        String[][] records = this.records;
+        if (records == null) {
+            EncodedColumn[] columns = this.getEncodedColumns();
+            records = new String[this.numRecords][];
+            for (int j = 0; j < records.length; j++) {
+                records[j] = new String[columns.length];
+                for (int i = 0; i < columns.length; i++)
+                    records[j][i] = columns[i].getValue(j);
+            }
+            this.records = records;
+        }
+        return records;
+    }
+
+    /**
+     * Estimates how much heap the relation saves by storing every distinct value of a column only once instead of
+     * keeping one String object per cell.
+     * @return The estimated number of saved bytes.
+     */
+    public long estimateSavedBytes() {
+        long savedBytes = 0;
+        for (EncodedColumn column : this.getEncodedColumns())
+            savedBytes += column.estimateSavedBytes();
+        return savedBytes;
     }
 
     public String[][] getColumns() {
         String[][] columns = new String[this.attributes.length][];
         for (int i = 0; i < columns.length; i++)
-            columns[i] = new String[this.records.length];
-        for (int j = 0; j < this.records.length; j++)
-            for (int i = 0; i < columns.length; i++)
-                columns[i][j] = this.records[j][i];
+            columns[i] = this.getColumn(i).decode();
         return columns;
     }
 
@@ -106,7 +508,9 @@ public class Relation {
     public String toString() {
         StringBuilder builder = new StringBuilder();
         builder.append(this.name).append(Arrays.toString(this.attributes));
-        for (String[] record : this.records)
+        if (this.schemaOnly)
+            return builder.toString();
+        for (String[] record : this.getRecords())
             builder.append("\r\n").append(Arrays.toString(record));
         return builder.toString();
     }
@@ -3,7 +3,12 @@ package de.di.data_profiling;
 import de.di.Relation;
 import de.di.data_profiling.structures.AttributeList;
 import de.di.data_profiling.structures.IND;
+import de.di.helper.RecordStream;
+import de.di.structures.ColumnStatistics;
+import de.di.structures.EncodedColumn;
 
+import java.nio.charset.Charset;
+import java.nio.file.Path;
 import java.sql.Array;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -21,35 +26,109 @@ public class INDProfiler {
              throw new RuntimeException("nary discovery is not implemented!");
         }
         List<IND> inclusionDependencies = new ArrayList<>();
+        Map<Relation, String[][]> columnValues = new HashMap<>();
+        Map<Relation, ColumnStatistics[]> columnStatistics = new HashMap<>();
+        for (Relation relation : relations) {
+            EncodedColumn[] trimmedColumns = getTrimmedColumns(relation);
+            String[][] values = new String[trimmedColumns.length][];
+            ColumnStatistics[] statistics = new ColumnStatistics[trimmedColumns.length];
+            for (int i = 0; i < trimmedColumns.length; i++) {
+                values[i] = trimmedColumns[i].getDictionary();
+                statistics[i] = ColumnStatistics.of(trimmedColumns[i]);
+            }
+            columnValues.put(relation, values);
+            columnStatistics.put(relation, statistics);
+        }
+
         for (Relation table1 : relations) {
             for (Relation table2 : relations) {
 //                if (!table1.getName().equals(table2.getName())) {
-                    discoverUnaryInclusionDependencies(table1, table2, inclusionDependencies);
+                    discoverUnaryInclusionDependencies(table1, table2, columnValues, columnStatistics, inclusionDependencies);
 //                }
             }
         }
         return inclusionDependencies;
     }
 
+    /**
+     * Discovers all non-trivial unary inclusion dependencies in the provided files without loading them as relations.
+     * Every file is streamed once to collect the distinct, trimmed values of its columns, so only the distinct values
+     * and not the records need to fit into memory. The discovered INDs reference schema-only relations.
+     * @param files The CSV files that should be profiled for inclusion dependencies.
+     * @param hasHeader Whether the first record of every file holds the attribute names.
+     * @param separator The field separator.
+     * @param charset The charset of the files.
+     * @return The list of all non-trivial unary inclusion dependencies in the provided files.
+     */
+    public List<IND> profile(List<Path> files, boolean hasHeader, char separator, Charset charset) {
+        List<Relation> relations = new ArrayList<>();
+        Map<Relation, String[][]> columnValues = new HashMap<>();
+        for (Path file : files) {
+            try (RecordStream records = RecordStream.open(file, hasHeader, separator, charset)) {
+                List<Set<String>> distinctValues = new ArrayList<>();
+                int numRecords = 0;
+                while (records.next()) {
+                    for (int i = distinctValues.size(); i < records.getNumFields(); i++) {
+                        Set<String> values = new HashSet<>();
+                        if (numRecords > 0)
+                            values.add("");
+                        distinctValues.add(values);
+                    }
+                    for (int i = 0; i < distinctValues.size(); i++)
+                        distinctValues.get(i).add(records.getField(i).trim());
+                    numRecords++;
+                }
+
+                String[] attributes = records.getHeader();
+                if (!hasHeader) {
+                    attributes = new String[distinctValues.size()];
+                    for (int i = 0; i < attributes.length; i++)
+                        attributes[i] = String.valueOf(i);
+                }
+
+                String[][] values = new String[attributes.length][];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = (i < distinctValues.size()) ? distinctValues.get(i).toArray(new String[0]) : (numRecords > 0 ? new String[]{""} : new String[0]);
+                    Arrays.sort(values[i]);
+                }
+
+                Relation relation = new Relation(Relation.nameOf(file), attributes, numRecords);
+                relations.add(relation);
+                columnValues.put(relation, values);
+            }
+        }
+
+        List<IND> inclusionDependencies = new ArrayList<>();
+        for (Relation table1 : relations)
+            for (Relation table2 : relations)
+                discoverUnaryInclusionDependencies(table1, table2, columnValues, null, inclusionDependencies);
+        return inclusionDependencies;
+    }
+
     /**
      * Processes inclusion dependencies between two given relations
      * @param r1 Relation 1
      * @param r2 Relation 2
+     * @param columnValues Sorted distinct column values of all relations
+     * @param columnStatistics Statistics of the column values of all relations or null, if no statistics are known
      * @param inclusionDependencies Unary inclusion dependencies
      */
-    private void discoverUnaryInclusionDependencies (Relation r1, Relation r2, List<IND> inclusionDependencies) {
+    private void discoverUnaryInclusionDependencies (Relation r1, Relation r2, Map<Relation, String[][]> columnValues, Map<Relation, ColumnStatistics[]> columnStatistics, List<IND> inclusionDependencies) {
 
         List<String> r1Attributes = Arrays.asList(r1.getAttributes());
         List<String> r2Attributes = Arrays.asList(r2.getAttributes());
 
         for (String attr1 : r1Attributes) {
-            Set<String> attr1Values = getColumnValues(r1, attr1);
+            String[] attr1Values = columnValues.get(r1)[r1Attributes.indexOf(attr1)];
             for (String attr2 : r2Attributes) {
                 if (r1.getName().equals(r2.getName()) && attr1.equals(attr2)) {
                     continue;
                 }
-                Set<String> attr2Values = getColumnValues(r2, attr2);
-                if (attr2Values.containsAll(attr1Values)) {
+                if (columnStatistics != null && !mayBeIncluded(columnStatistics.get(r1)[r1Attributes.indexOf(attr1)], columnStatistics.get(r2)[r2Attributes.indexOf(attr2)])) {
+                    continue;
+                }
+                String[] attr2Values = columnValues.get(r2)[r2Attributes.indexOf(attr2)];
+                if (containsAll(attr2Values, attr1Values)) {
                     inclusionDependencies.add(new IND(r1, r1Attributes.indexOf(attr1), r2, r2Attributes.indexOf(attr2)));
                 }
             }
@@ -57,25 +136,61 @@ public class INDProfiler {
     }
 
     /**
-     * Gets column values for an attribute in given relation
+     * Gets the trimmed columns for all attributes of the given relation. The encoded columns are mapped over their
+     * dictionaries, so every distinct value is trimmed only once.
      * @param r Relation
-     * @param columnName Attribute name
-     * @return Set<String> columnValues
+     * @return EncodedColumn[] trimmed column per attribute
+     */
+    private EncodedColumn[] getTrimmedColumns(Relation r) {
+        EncodedColumn[] trimmedColumns = new EncodedColumn[r.getAttributes().length];
+        for (int columnIndex = 0; columnIndex < trimmedColumns.length; columnIndex++) {
+            trimmedColumns[columnIndex] = r.getColumn(columnIndex).map(String::trim);
+        }
+        return trimmedColumns;
+    }
+
+    /**
+     * Checks with the column statistics whether the dependent column can possibly be included in the referenced
+     * column: it must not have more distinct values, its value range must lie within the referenced range, and its
+     * values must not be of a more general type than all values of the referenced column.
+     * @param dependent Statistics of the dependent column
+     * @param referenced Statistics of the referenced column
+     * @return false if the inclusion is impossible, true if it needs to be checked on the values
      */
-    private Set<String> getColumnValues(Relation r, String columnName) {
-        Set<String> columnValues = new HashSet<>();
-        String[] attributes = r.getAttributes();
+    private static boolean mayBeIncluded(ColumnStatistics dependent, ColumnStatistics referenced) {
+        if (dependent.getNumValues() == 0) {
+            return true;
+        }
+        if (referenced.getNumValues() == 0 || dependent.getNumDistinctValues() > referenced.getNumDistinctValues()) {
+            return false;
+        }
+        return dependent.getMinValue().compareTo(referenced.getMinValue()) >= 0 &&
+                dependent.getMaxValue().compareTo(referenced.getMaxValue()) <= 0 &&
+                dependent.getType().compareTo(referenced.getType()) <= 0;
+    }
 
-        int columnIndex = Arrays.asList(attributes).indexOf(columnName);
-        if (columnIndex < 0) {
-            throw new IllegalArgumentException("Column " + columnName + " does not exist in table data.");
+    /**
+     * Checks with a single merge pass whether all values of the sorted subset candidate are contained in the sorted
+     * superset candidate.
+     * @param superset Sorted distinct values of the referenced column
+     * @param subset Sorted distinct values of the dependent column
+     * @return boolean
+     */
+    private static boolean containsAll(String[] superset, String[] subset) {
+        if (subset.length > superset.length) {
+            return false;
         }
-        int rSize = r.getRecords().length;
-        String[][] records = r.getRecords();
-        for (int row = 0; row < rSize; row++) {
-            columnValues.add(records[row][columnIndex].trim());
+        int i = 0;
+        for (String value : subset) {
+            while (i < superset.length && superset[i].compareTo(value) < 0) {
+                i++;
+            }
+            if (i == superset.length || !superset[i].equals(value)) {
+                return false;
+            }
+            i++;
         }
-        return columnValues;
+        return true;
     }
 
 //    private List<Set<String>> toColumnSets(String[][] columns) {
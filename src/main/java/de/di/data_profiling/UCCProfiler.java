@@ -33,14 +33,15 @@ public class UCCProfiler {
             // Calculate all unary UCCs and unary non-UCCs
             for (int attribute = 0; attribute < numAttributes; attribute++) {
                 AttributeList attributes = new AttributeList(attribute);
-                PositionListIndex pli = new PositionListIndex(attributes, relation.getColumns()[attribute]);
-                if (pli.isUnique()) {
+                // The exact distinct count identifies unique columns without building their PLIs
+                if (relation.getStatistics(attribute).getNumDistinctValues() == relation.getNumRecords()) {
                     uniques.add(new UCC(relation, attributes));
                 } else
-                    currentNonUniques.add(pli);
+                    currentNonUniques.add(new PositionListIndex(attributes, relation.getColumn(attribute)));
             }
         } else {
             // Solution to find non-trivial attribute set grater than 1
+            PositionListIndex[] plis = calculateTrimmedPlis(relation);
             int initialCombinationLen = 2;
             Set<Set<Integer>> currentLevel = new LinkedHashSet<>();
             // directly generate candidates of minimum combination length
@@ -50,7 +51,7 @@ public class UCCProfiler {
                     combination.add(i);
                     combination.add(j);
                     currentLevel.add(combination);
-                    if (isUniqueCombination(relation, combination)) {
+                    if (isUniqueCombination(relation, plis, combination)) {
                         uniques.add(new UCC(relation, new AttributeList(convertSetToArr(combination))));
                     }
                 }
@@ -68,7 +69,7 @@ public class UCCProfiler {
                             newCombination.add(i);
                             nextLevel.add(newCombination);
                             // Ensure minimality
-                            if (isMinimal(newCombination, uniques) && isUniqueCombination(relation, newCombination)) {
+                            if (isMinimal(newCombination, uniques) && isUniqueCombination(relation, plis, newCombination)) {
                                 uniques.add(new UCC(relation, new AttributeList(convertSetToArr(newCombination))));
                             }
                         }
@@ -81,25 +82,46 @@ public class UCCProfiler {
     }
 
     /**
-     * Generates value hash of combined column candidates and returns true if all combined value is unique, otherwise false
+     * Builds the PLIs of all single attributes over the trimmed values directly from the dictionary-encoded columns;
+     * trimming is applied once per distinct value and not once per record.
      * @param relation table
+     * @return PositionListIndex[] indexed by attribute
+     */
+    private static PositionListIndex[] calculateTrimmedPlis(Relation relation) {
+        PositionListIndex[] plis = new PositionListIndex[relation.getAttributes().length];
+        for (int attribute = 0; attribute < plis.length; attribute++)
+            plis[attribute] = new PositionListIndex(new AttributeList(attribute), relation.getColumn(attribute).map(String::trim));
+        return plis;
+    }
+
+    /**
+     * Intersects the PLIs of the combined column candidates and returns true if the combined values are unique, otherwise false.
+     * A combination can have at most as many distinct value combinations as the product of its columns' distinct counts,
+     * so if that product is smaller than the number of records, the combination is rejected without any intersection.
+     * @param relation table
+     * @param plis single attribute PLIs of the table
      * @param combination column candidate set
      * @return boolean
      */
-    private static boolean isUniqueCombination(Relation relation, Set<Integer> combination) {
-        Set<String> seen = new HashSet<>();
-        for (String[] row : relation.getRecords()) {
-            StringBuilder sb = new StringBuilder();
-            for (int index : combination) {
-                sb.append(row[index].trim()).append(",");
-            }
-            String key = sb.toString();
-            if (seen.contains(key)) {
-                return false;
+    private static boolean isUniqueCombination(Relation relation, PositionListIndex[] plis, Set<Integer> combination) {
+        long maxCombinations = 1;
+        for (int index : combination) {
+            maxCombinations *= relation.getStatistics(index).getNumDistinctValues();
+            if (maxCombinations >= relation.getNumRecords())
+                break;
+        }
+        if (!combination.isEmpty() && maxCombinations < relation.getNumRecords()) {
+            return false;
+        }
+
+        PositionListIndex intersection = null;
+        for (int index : combination) {
+            intersection = (intersection == null) ? plis[index] : intersection.intersect(plis[index]);
+            if (intersection.isUnique()) {
+                return true;
             }
-            seen.add(key);
         }
-        return true;
+        return intersection == null;
     }
 
     /**
@@ -1,5 +1,7 @@
 package de.di.data_profiling.structures;
 
+import de.di.helper.Kernels;
+import de.di.structures.EncodedColumn;
 import it.unimi.dsi.fastutil.ints.Int2ObjectArrayMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
@@ -21,6 +23,12 @@ public class PositionListIndex {
         this.invertedClusters = this.calculateInverted(this.clusters, values.length);
     }
 
+    public PositionListIndex(final AttributeList attributes, final EncodedColumn column) {
+        this.attributes = attributes;
+        this.clusters = this.calculateClusters(column);
+        this.invertedClusters = this.calculateInverted(this.clusters, column.size());
+    }
+
     public PositionListIndex(final AttributeList attributes, final List<IntArrayList> clusters, int relationLength) {
         this.attributes = attributes;
         this.clusters = clusters;
@@ -36,6 +44,27 @@ public class PositionListIndex {
         return invertedIndex.values().stream().filter(cluster -> cluster.size() > 1).collect(Collectors.toList());
     }
 
+    private List<IntArrayList> calculateClusters(final EncodedColumn column) {
+        // The codes are dense, so they can address the clusters directly instead of hashing the values
+        int[] counts = column.countCodes();
+        IntArrayList[] clustersByCode = new IntArrayList[counts.length];
+        for (int code = 0; code < counts.length; code++)
+            if (counts[code] > 1)
+                clustersByCode[code] = new IntArrayList(counts[code]);
+
+        for (int recordIndex = 0; recordIndex < column.size(); recordIndex++) {
+            IntArrayList cluster = clustersByCode[column.getCode(recordIndex)];
+            if (cluster != null)
+                cluster.add(recordIndex);
+        }
+
+        List<IntArrayList> clusters = new ArrayList<>();
+        for (IntArrayList cluster : clustersByCode)
+            if (cluster != null)
+                clusters.add(cluster);
+        return clusters;
+    }
+
     private int[] calculateInverted(List<IntArrayList> clusters, int relationLength) {
         int[] invertedClusters = new int[relationLength];
         Arrays.fill(invertedClusters, -1);
@@ -54,13 +83,13 @@ public class PositionListIndex {
     }
 
     public PositionListIndex intersect(PositionListIndex other) {
-        List<IntArrayList> clustersIntersection = this.intersect(this.clusters, other.getInvertedClusters());
+        List<IntArrayList> clustersIntersection = this.intersect(this.clusters, other.getInvertedClusters(), other.getClusters().size());
         AttributeList attributesUnion = this.attributes.union(other.getAttributes());
 
         return new PositionListIndex(attributesUnion, clustersIntersection, this.relationLength());
     }
 
-    private List<IntArrayList> intersect(List<IntArrayList> clusters, int[] invertedClusters) {
+    private List<IntArrayList> intersect(List<IntArrayList> clusters, int[] invertedClusters, int numProbes) {
         List<IntArrayList> clustersIntersection = new ArrayList<>();
 
         ////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -69,7 +98,35 @@ public class PositionListIndex {
         // invertedClusters. The clustersIntersection is a new list that stores the intersection result. Note that    //
         // the clusters are "Stripped Partitions", which means that only clusters of size >1 are part of the result.  //
 
-
+        // Split every cluster by the other PLI's cluster ids, which are the numProbes indexes of its clusters; records
+        // without an id are unique in the other PLI
+        IntArrayList[] probes = new IntArrayList[numProbes];
+        IntArrayList touchedProbes = new IntArrayList();
+        // The cluster ids of a cluster's records are looked up in one gather, before the data-dependent split
+        int maxClusterSize = 0;
+        for (IntArrayList cluster : clusters)
+            maxClusterSize = Math.max(maxClusterSize, cluster.size());
+        int[] clusterProbes = new int[maxClusterSize];
+        for (IntArrayList cluster : clusters) {
+            int[] recordIndexes = cluster.elements();
+            Kernels.gather(invertedClusters, recordIndexes, cluster.size(), clusterProbes);
+            for (int i = 0; i < cluster.size(); i++) {
+                int probe = clusterProbes[i];
+                if (probe < 0)
+                    continue;
+                if (probes[probe] == null) {
+                    probes[probe] = new IntArrayList();
+                    touchedProbes.add(probe);
+                }
+                probes[probe].add(recordIndexes[i]);
+            }
+            for (int probe : touchedProbes) {
+                if (probes[probe].size() > 1)
+                    clustersIntersection.add(probes[probe]);
+                probes[probe] = null;
+            }
+            touchedProbes.clear();
+        }
 
         //                                                                                                            //
         ////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -17,6 +17,10 @@ public class RecordComparator {
     // or not. The threshold should fit the attrSimWeights-based similarity scoring of this RecordComparator;
     private double threshold;
 
+    // The bounds that compareBounded() derives are loosened by this tolerance, so that rounding errors never reject a
+    // duplicate whose similarity is close to the threshold
+    private static final double BOUND_TOLERANCE = 1e-9;
+
     public RecordComparator(List<AttrSimWeight> attrSimWeights, double threshold) {
         this.attrSimWeights = this.normalize(attrSimWeights);
         this.threshold = threshold;
@@ -63,6 +67,107 @@ public class RecordComparator {
         return totalWeight > 0 ? recordSimilarity / totalWeight : 0;
     }
 
+    /**
+     * Compares the two provided tuples like compare(), but pushes the threshold down into the similarity measures,
+     * because a caller that only needs to know whether the tuples are duplicates does not need the exact similarity of
+     * a clear non-duplicate. Before an attribute is compared, the similarities calculated so far and the largest
+     * possible similarities of the remaining attributes determine the smallest similarity that this attribute needs
+     * for the tuples to still exceed the threshold; the similarity measure may stop as soon as it knows that the
+     * attribute misses this bound, and the comparison then stops as well.
+     * @param tuple1 The first tuple for the comparison.
+     * @param tuple2 The second tuple for the comparison.
+     * @return The similarity of the two tuples, if they are duplicates, and otherwise a value that is not larger than
+     * the threshold.
+     */
+    public double compareBounded(String[] tuple1, String[] tuple2) {
+        // The weights are summed in the same order as in compare(), so that duplicates get exactly the same similarity
+        double totalWeight = 0;
+        for (AttrSimWeight asw : attrSimWeights)
+            if (asw.getAttribute() < tuple1.length && asw.getAttribute() < tuple2.length)
+                totalWeight += asw.getWeight();
+        if (totalWeight <= 0)
+            return 0;
+
+        double recordSimilarity = 0;
+        double remainingWeight = totalWeight;
+        for (AttrSimWeight asw : attrSimWeights) {
+            int attrIndex = asw.getAttribute();
+            if (attrIndex < tuple1.length && attrIndex < tuple2.length) {
+                double weight = asw.getWeight();
+                remainingWeight -= weight;
+                // Even if all remaining attributes were equal, this attribute needs at least minSimilarity
+                double minSimilarity = (this.threshold * totalWeight - recordSimilarity - remainingWeight) / weight - BOUND_TOLERANCE;
+                double similarity = asw.getSimilarityMeasure().calculate(tuple1[attrIndex], tuple2[attrIndex], minSimilarity);
+                if (similarity < minSimilarity)
+                    return 0;
+                recordSimilarity += similarity * weight;
+            }
+        }
+        return recordSimilarity / totalWeight;
+    }
+
+    /**
+     * Prepares the provided tuple for repeated comparisons: every internal similarity measure turns the value of its
+     * attribute into a profile, so that a tuple that is compared with many others is processed only once.
+     * @param tuple The tuple that should be prepared.
+     * @return The profile of every AttrSimWeight in the order of the AttrSimWeights; null for attributes that the
+     * tuple does not have.
+     */
+    public Object[] prepare(String[] tuple) {
+        Object[] profiles = new Object[this.attrSimWeights.size()];
+        for (int i = 0; i < profiles.length; i++) {
+            AttrSimWeight asw = this.attrSimWeights.get(i);
+            if (asw.getAttribute() < tuple.length)
+                profiles[i] = asw.getSimilarityMeasure().prepare(tuple[asw.getAttribute()]);
+        }
+        return profiles;
+    }
+
+    /**
+     * Compares two tuples from their profiles, which prepare() created, exactly like compareBounded() compares the
+     * tuples themselves.
+     * @param profiles1 The profiles of the first tuple.
+     * @param profiles2 The profiles of the second tuple.
+     * @return The similarity of the two tuples, if they are duplicates, and otherwise a value that is not larger than
+     * the threshold.
+     */
+    public double compareProfiles(Object[] profiles1, Object[] profiles2) {
+        double totalWeight = 0;
+        for (int i = 0; i < profiles1.length; i++)
+            if (profiles1[i] != null && profiles2[i] != null)
+                totalWeight += this.attrSimWeights.get(i).getWeight();
+        if (totalWeight <= 0)
+            return 0;
+
+        double recordSimilarity = 0;
+        double remainingWeight = totalWeight;
+        for (int i = 0; i < profiles1.length; i++) {
+            if (profiles1[i] != null && profiles2[i] != null) {
+                AttrSimWeight asw = this.attrSimWeights.get(i);
+                double weight = asw.getWeight();
+                remainingWeight -= weight;
+                double minSimilarity = (this.threshold * totalWeight - recordSimilarity - remainingWeight) / weight - BOUND_TOLERANCE;
+                double similarity = asw.getSimilarityMeasure().compareProfiles(profiles1[i], profiles2[i], minSimilarity);
+                if (similarity < minSimilarity)
+                    return 0;
+                recordSimilarity += similarity * weight;
+            }
+        }
+        return recordSimilarity / totalWeight;
+    }
+
+    /**
+     * Returns the indexes of all attributes that the internal similarity measures compare; the values of all other
+     * attributes do not influence the similarity of two tuples.
+     * @return The distinct indexes of the compared attributes.
+     */
+    public int[] getAttributes() {
+        return this.attrSimWeights.stream()
+                .mapToInt(AttrSimWeight::getAttribute)
+                .distinct()
+                .toArray();
+    }
+
     /**
      * Decides if the provided similarity is higher than the internal similarity threshold and, therefore,
      * characterizes a duplicate.
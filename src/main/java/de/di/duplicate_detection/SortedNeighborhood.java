@@ -3,25 +3,23 @@ package de.di.duplicate_detection;
 import de.di.Relation;
 import de.di.duplicate_detection.structures.AttrSimWeight;
 import de.di.duplicate_detection.structures.Duplicate;
+import de.di.helper.MappedCsvReader;
+import de.di.helper.RecordStream;
 import de.di.similarity_measures.Jaccard;
 import de.di.similarity_measures.Levenshtein;
 import de.di.similarity_measures.helper.Tokenizer;
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import de.di.structures.ColumnStatistics;
+import de.di.structures.DictionaryColumn;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 
+import java.nio.charset.Charset;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.function.IntFunction;
 
 public class SortedNeighborhood {
 
-    // A Record class that stores the values of a record with its original index. This class helps to remember the
-    // original index of a record when this record is being sorted.
-    @Data
-    @AllArgsConstructor
-    private static class Record {
-        private int index;
-        private String[] values;
-    }
-
     /**
      * Discovers all duplicates in the relation by running the Sorted Neighborhood Method once with every sortingKey.
      * Each run uses one of the specified sortingKeys for the sorting, the windowsSize for the windowing, and
@@ -39,42 +37,192 @@ public class SortedNeighborhood {
      */
     public Set<Duplicate> detectDuplicates(Relation relation, int[] sortingKeys, int windowSize, RecordComparator recordComparator) {
         Set<Duplicate> duplicates = new HashSet<>();
+        if (windowSize < 2)
+            return duplicates;
 
-        Record[] records = new Record[relation.getRecords().length];
-        for (int i = 0; i < relation.getRecords().length; i++) {
-            records[i] = new Record(i, relation.getRecords()[i]);
-        }
+        // The window reads the compared values from the columns, so that the records are never materialized
+        int numColumns = relation.getEncodedColumns().length;
+        int[] comparedAttributes = recordComparator.getAttributes();
+        IntFunction<String[]> recordAt = record -> {
+            String[] values = new String[numColumns];
+            Arrays.fill(values, "");
+            for (int attribute : comparedAttributes)
+                if (attribute < numColumns)
+                    values[attribute] = relation.getColumn(attribute).getValue(record);
+            return values;
+        };
+
+        // A record meets other neighbours in every run, so its profiles are prepared once and kept for all runs
+        Object[][] profiles = new Object[relation.getNumRecords()][];
+        IntFunction<Object[]> profilesAt = record -> {
+            if (profiles[record] == null)
+                profiles[record] = recordComparator.prepare(recordAt.apply(record));
+            return profiles[record];
+        };
+
+        int[] order = new int[relation.getNumRecords()];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
 
         for (int sortingKey : sortingKeys) {
-            // Sort the records based on the current sorting key
-            Arrays.sort(records, Comparator.comparing(r -> r.getValues()[sortingKey]));
-
-            // Apply the sliding window
-            for (int i = 0; i < records.length - windowSize + 1; i++) {
-                for (int j = i + 1; j < i + windowSize && j < records.length; j++) {
-                    Record record1 = records[i];
-                    Record record2 = records[j];
-                    double similarity = recordComparator.compare(record1.getValues(), record2.getValues());
-                    if (recordComparator.isDuplicate(similarity)) {
-                        duplicates.add(new Duplicate(record1.getIndex(), record2.getIndex(), similarity, relation));
-                    }
-                }
+            // Sort the records based on the current sorting key; the dictionary codes preserve the values' order
+            int[] codes = relation.getColumn(sortingKey).getCodes();
+            IntArrays.mergeSort(order, (r1, r2) -> Integer.compare(codes[r1], codes[r2]));
+            applyWindow(order, profilesAt, windowSize, recordComparator, relation, duplicates);
+        }
+        return duplicates;
+    }
+
+    /**
+     * Discovers all duplicates in a CSV file with the same Sorted Neighborhood runs as detectDuplicates(Relation, ...),
+     * but without loading the file: a first pass over the records extracts only the sorting keys and the position of
+     * every record; each run then sorts the record indexes by their keys and reads every record exactly once when it
+     * enters the window. Hence, only the keys and the records of one window are held in memory; of these records, only
+     * the attributes that the record comparator compares are decoded, all other values are left empty. The window reads
+     * the records in sorted order, which requires a MappedCsvReader; a file whose separator and charset it does not
+     * support is loaded and processed in memory instead. The detected Duplicates reference a schema-only relation of
+     * the streamed file.
+     * @param filePath The path of the CSV file, in which duplicates should be detected.
+     * @param hasHeader Whether the first record of the file holds the attribute names.
+     * @param separator The field separator.
+     * @param charset The charset of the file.
+     * @param sortingKeys The sorting keys that should be used.
+     * @param windowSize The window size each Sorted Neighborhood run should use.
+     * @param recordComparator The record comparator each Sorted Neighborhood run should use when comparing records.
+     * @return The list of discovered duplicate pairs of all Sorted Neighborhood runs.
+     */
+    public Set<Duplicate> detectDuplicates(Path filePath, boolean hasHeader, char separator, Charset charset, int[] sortingKeys, int windowSize, RecordComparator recordComparator) {
+        Set<Duplicate> duplicates = new HashSet<>();
+        if (windowSize < 2)
+            return duplicates;
+        if (!MappedCsvReader.supports(separator, charset))
+            return this.detectDuplicates(new Relation(filePath, hasHeader, separator, charset), sortingKeys, windowSize, recordComparator);
+
+        try (RecordStream records = RecordStream.open(filePath, hasHeader, separator, charset)) {
+            // Extract the sorting keys and the position of every record
+            LongArrayList positions = new LongArrayList();
+            DictionaryColumn.Builder[] keys = new DictionaryColumn.Builder[sortingKeys.length];
+            for (int k = 0; k < keys.length; k++)
+                keys[k] = new DictionaryColumn.Builder();
+            int numColumns = (records.getHeader() != null) ? records.getHeader().length : 0;
+            while (records.next()) {
+                positions.add(records.getPosition());
+                for (int k = 0; k < keys.length; k++)
+                    keys[k].add(records.getField(sortingKeys[k]));
+                numColumns = Math.max(numColumns, records.getNumFields());
+            }
+
+            int numRecords = positions.size();
+            String[] attributes = records.getHeader();
+            if (!hasHeader) {
+                attributes = new String[numColumns];
+                for (int i = 0; i < numColumns; i++)
+                    attributes[i] = String.valueOf(i);
+            }
+            Relation relation = new Relation(Relation.nameOf(filePath), attributes, numRecords);
+
+            // Every run sorts the order of the previous run, just as the in-memory runs re-sort the same records
+            int[] order = new int[numRecords];
+            for (int i = 0; i < numRecords; i++)
+                order[i] = i;
+            int numFields = numColumns;
+            int[] comparedAttributes = recordComparator.getAttributes();
+            // Keeping the profiles of all records would defeat streaming, so a record is prepared when it enters a window
+            IntFunction<Object[]> profilesAt = record -> {
+                records.seek(positions.getLong(record));
+                records.next();
+                String[] values = new String[numFields];
+                Arrays.fill(values, "");
+                for (int attribute : comparedAttributes)
+                    if (attribute < numFields)
+                        values[attribute] = records.getField(attribute);
+                return recordComparator.prepare(values);
+            };
+
+            for (DictionaryColumn.Builder key : keys) {
+                int[] codes = key.build().getCodes();
+                IntArrays.mergeSort(order, (r1, r2) -> Integer.compare(codes[r1], codes[r2]));
+                applyWindow(order, profilesAt, windowSize, recordComparator, relation, duplicates);
             }
         }
         return duplicates;
     }
 
+    /**
+     * Slides the window over the records in the provided order and compares every record with its windowSize - 1
+     * successors. A record is read exactly once, when it enters the window; window[i % windowSize] holds the profiles
+     * of the record at sorted position i.
+     * @param order The indexes of the records in sorted order.
+     * @param profilesAt The function that returns the profiles of a record, see RecordComparator#prepare.
+     * @param windowSize The window size, which must be at least 2.
+     * @param recordComparator The record comparator that compares the records in the window.
+     * @param relation The relation that the detected Duplicates reference.
+     * @param duplicates The set to which the detected Duplicates are added.
+     */
+    private static void applyWindow(int[] order, IntFunction<Object[]> profilesAt, int windowSize, RecordComparator recordComparator,
+                                    Relation relation, Set<Duplicate> duplicates) {
+        Object[][] window = new Object[windowSize][];
+        int numRead = 0;
+        for (int i = 0; i < order.length - windowSize + 1; i++) {
+            for (; numRead < order.length && numRead < i + windowSize; numRead++)
+                window[numRead % windowSize] = profilesAt.apply(order[numRead]);
+            for (int j = i + 1; j < i + windowSize && j < order.length; j++) {
+                // Only duplicates need their exact similarity, so clear non-duplicates can be rejected early
+                double similarity = recordComparator.compareProfiles(window[i % windowSize], window[j % windowSize]);
+                if (recordComparator.isDuplicate(similarity)) {
+                    duplicates.add(new Duplicate(order[i], order[j], similarity, relation));
+                }
+            }
+        }
+    }
+
     /**
      * Suggests a RecordComparator instance based on the provided relation for duplicate detection purposes.
      * @param relation The relation a RecordComparator needs to be suggested for.
      * @return A RecordComparator instance for comparing records of the provided relation.
      */
     public static RecordComparator suggestRecordComparatorFor(Relation relation) {
-        List<AttrSimWeight> attrSimWeights = new ArrayList<>(relation.getAttributes().length);
+        double[] averageLengths = new double[relation.getAttributes().length];
+        for (int i = 0; i < averageLengths.length; i++)
+            averageLengths[i] = relation.getStatistics(i).getAverageLength();
+        return suggestRecordComparatorFor(averageLengths);
+    }
+
+    /**
+     * Suggests a RecordComparator instance like suggestRecordComparatorFor(Relation), but collects the column
+     * statistics in a single pass over the provided stream of records.
+     * @param records The records a RecordComparator needs to be suggested for; the stream is read to its end.
+     * @return A RecordComparator instance for comparing the provided records.
+     */
+    public static RecordComparator suggestRecordComparatorFor(RecordStream records) {
+        List<ColumnStatistics.Builder> statistics = new ArrayList<>();
+        int numRecords = 0;
+        while (records.next()) {
+            while (statistics.size() < records.getNumFields()) {
+                // Records that are too short for a column hold an empty value
+                ColumnStatistics.Builder builder = new ColumnStatistics.Builder();
+                for (int i = 0; i < numRecords; i++)
+                    builder.add("");
+                statistics.add(builder);
+            }
+            for (int i = 0; i < statistics.size(); i++)
+                statistics.get(i).add(records.getField(i));
+            numRecords++;
+        }
+
+        int numAttributes = (records.getHeader() != null) ? records.getHeader().length : statistics.size();
+        double[] averageLengths = new double[numAttributes];
+        for (int i = 0; i < numAttributes && i < statistics.size(); i++)
+            averageLengths[i] = statistics.get(i).build().getAverageLength();
+        return suggestRecordComparatorFor(averageLengths);
+    }
+
+    private static RecordComparator suggestRecordComparatorFor(double[] averageLengths) {
+        List<AttrSimWeight> attrSimWeights = new ArrayList<>(averageLengths.length);
         double threshold = 0.0;
 
-        for (int i = 0; i < relation.getAttributes().length; i++) {
-            double avgLength = calculateAverageLength(relation, i);
+        for (int i = 0; i < averageLengths.length; i++) {
+            double avgLength = averageLengths[i];
 
             if (avgLength < 10) {
                 // For shorter strings, use Levenshtein
@@ -84,21 +232,8 @@ public class SortedNeighborhood {
                 attrSimWeights.add(new AttrSimWeight(i, new Jaccard(new Tokenizer(4, true), false), 0.2));
             }
             // Increase the threshold based on the number of attributes
-            threshold += 0.8 / relation.getAttributes().length;
+            threshold += 0.8 / averageLengths.length;
         }
         return new RecordComparator(attrSimWeights, threshold);
     }
-
-    private static double calculateAverageLength(Relation relation, int attributeIndex) {
-        double totalLength = 0;
-        int count = 0;
-        for (String[] record : relation.getRecords()) {
-            String value = record[attributeIndex];
-            if (value != null) {
-                totalLength += value.length();
-                count++;
-            }
-        }
-        return count > 0 ? totalLength / count : 0;
-    }
 }
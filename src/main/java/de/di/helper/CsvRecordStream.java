@@ -0,0 +1,98 @@
+package de.di.helper;
+
+import com.opencsv.CSVParser;
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.enums.CSVReaderNullFieldIndicator;
+import com.opencsv.exceptions.CsvValidationException;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A CsvRecordStream reads the records of a CSV file one by one with opencsv. It is the sequential-only RecordStream
+ * for all files whose charset or separator can not be parsed by a MappedCsvReader.
+ */
+public class CsvRecordStream implements RecordStream {
+
+    private final CSVReader reader;
+    private final String[] header;
+
+    private String[] record = null;
+    private long position = -1;
+
+    public CsvRecordStream(Path filePath, boolean hasHeader, char separator, Charset charset) throws IOException {
+        this.reader = new CSVReaderBuilder(Files.newBufferedReader(filePath, charset)).withCSVParser(createParser(separator)).build();
+        this.header = hasHeader ? this.readNext() : null;
+    }
+
+    /**
+     * Creates the opencsv parser with the parsing rules for all relations.
+     * @param separator The field separator.
+     * @return The parser.
+     */
+    public static CSVParser createParser(char separator) {
+        return new CSVParserBuilder()
+                .withSeparator(separator)
+                .withQuoteChar('"')
+                .withEscapeChar('\\')
+                .withStrictQuotes(false)
+                .withIgnoreLeadingWhiteSpace(false)
+                .withFieldAsNull(CSVReaderNullFieldIndicator.EMPTY_SEPARATORS)
+                .build();
+    }
+
+    private String[] readNext() {
+        try {
+            return this.reader.readNext();
+        } catch (CsvValidationException | IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public String[] getHeader() {
+        return this.header;
+    }
+
+    @Override
+    public boolean next() {
+        this.record = this.readNext();
+        if (this.record == null)
+            return false;
+        this.position++;
+        return true;
+    }
+
+    @Override
+    public int getNumFields() {
+        return this.record.length;
+    }
+
+    @Override
+    public String getField(int index) {
+        return (index < this.record.length && this.record[index] != null) ? this.record[index] : "";
+    }
+
+    @Override
+    public long getPosition() {
+        return this.position;
+    }
+
+    @Override
+    public void seek(long position) {
+        throw new UnsupportedOperationException("A CsvRecordStream can only be read sequentially.");
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.reader.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package de.di.helper;
+
+import de.di.similarity_measures.helper.Hashing;
+
+/**
+ * Kernels bundles the innermost loops that the similarity measures and profiling structures share. This is the scalar
+ * Java 11 implementation; the simd build profile adds a Java 21 version of this class to the multi-release jar, which
+ * runs the same loops on the Vector API of jdk.incubator.vector whenever the JVM was started with
+ * --add-modules jdk.incubator.vector, and falls back to these loops otherwise. Both versions return identical results.
+ */
+public final class Kernels {
+
+    private Kernels() {
+    }
+
+    /**
+     * Counts the positions at which the two arrays hold the same value, e.g., the agreeing values of two MinHash
+     * signatures.
+     * @param values1 The first array.
+     * @param values2 The second array.
+     * @param length The number of positions that are compared.
+     * @return The number of positions i < length with values1[i] == values2[i].
+     */
+    public static int countEqual(long[] values1, long[] values2, int length) {
+        int equal = 0;
+        for (int i = 0; i < length; i++)
+            if (values1[i] == values2[i])
+                equal++;
+        return equal;
+    }
+
+    /**
+     * Hashes the q-grams of a character sequence whose q-grams fit into 64 bits, i.e., q <= 4: the q-gram at
+     * position i packs the characters chars[i], ..., chars[i + q - 1] into one code of 16 bits per character, which
+     * Hashing.mix64 then spreads over all bits.
+     * @param chars The characters, each widened to a long.
+     * @param numTokens The number of q-grams, i.e., the number of characters minus q - 1.
+     * @param q The number of characters per q-gram.
+     * @param hashes The buffer for the hashes of the q-grams.
+     */
+    public static void hashPackedQGrams(long[] chars, int numTokens, int q, long[] hashes) {
+        long mask = (q < 4) ? (1L << (16 * q)) - 1 : -1L;
+        long code = 0;
+        for (int position = 0; position < numTokens + q - 1; position++) {
+            code = ((code << 16) | chars[position]) & mask;
+            if (position >= q - 1)
+                hashes[position - q + 1] = Hashing.mix64(code);
+        }
+    }
+
+    /**
+     * Looks up the values at the provided indexes, e.g., the cluster ids of the records of a position list index
+     * cluster in the inverted index of another one.
+     * @param values The array that is looked up.
+     * @param indexes The indexes into the values.
+     * @param length The number of indexes that are looked up.
+     * @param result The buffer for the values; result[i] = values[indexes[i]] for all i < length.
+     */
+    public static void gather(int[] values, int[] indexes, int length, int[] result) {
+        for (int i = 0; i < length; i++)
+            result[i] = values[indexes[i]];
+    }
+
+    public static boolean isVectorized() {
+        return false;
+    }
+}
@@ -0,0 +1,672 @@
+package de.di.helper;
+
+import de.di.structures.DictionaryColumn;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * A MappedCsvReader parses a CSV file directly on its memory-mapped bytes. The parsing follows exactly the rules of
+ * the opencsv parser that Relation uses (quote character '"', escape character '\\', no strict quotes, no leading
+ * white space removal, empty unquoted fields read as ""), but instead of creating a String for every field, the
+ * reader only records where every field is located in the file. A column is decoded only when it is requested, and
+ * then only its distinct values are turned into Strings.
+ */
+public class MappedCsvReader {
+
+    private static final char QUOTE = '"';
+    private static final char ESCAPE = '\\';
+
+    // opencsv keeps embedded quotes only if they occur after this many characters of a line
+    private static final int BEGINNING_OF_LINE = 3;
+
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    // Files are scanned in parallel only if every thread gets at least this many bytes
+    private static final long MIN_CHUNK_SIZE = 1L << 23;
+
+    private final char separator;
+    private final Charset charset;
+
+    // The flags of the columns whose fields are located; null if all columns are located
+    private final boolean[] projection;
+
+    // The file is mapped in segments, because a single mapping can not exceed 2 GB
+    private final ByteBuffer[] segments;
+    private final long fileSize;
+
+    @Getter
+    private String[] header;
+
+    @Getter
+    private final int numRecords;
+
+    // The position of the first record after the header
+    private final long dataStart;
+
+    // The records of the file in consecutive, independently scanned chunks
+    private final List<Chunk> chunks;
+
+    /**
+     * Checks whether the byte-level parsing produces the same fields as the character-level opencsv parsing for the
+     * provided separator and charset. This is the case for all charsets in which the ASCII characters are encoded
+     * as single bytes that never occur inside the encoding of other characters.
+     * @param separator The separator character of the file.
+     * @param charset The charset of the file.
+     * @return true if files with this separator and charset can be read with a MappedCsvReader.
+     */
+    public static boolean supports(char separator, Charset charset) {
+        if (separator >= 0x80 || separator == QUOTE || separator == ESCAPE || separator == '\n' || separator == '\r')
+            return false;
+        return charset.equals(StandardCharsets.UTF_8) || isSingleByte(charset);
+    }
+
+    private static boolean isSingleByte(Charset charset) {
+        return charset.equals(StandardCharsets.ISO_8859_1) || charset.equals(StandardCharsets.US_ASCII) ||
+                charset.name().equals("windows-1252");
+    }
+
+    public MappedCsvReader(Path filePath, boolean hasHeader, char separator, Charset charset) throws IOException {
+        this(filePath, hasHeader, separator, charset, null);
+    }
+
+    /**
+     * Reads a CSV file, but locates only the fields of the projected columns; all records are still scanned in full,
+     * so that quoted values are parsed correctly, but the fields of other columns are neither stored nor copied.
+     * @param filePath The path of the CSV file.
+     * @param hasHeader Whether the first record of the file holds the attribute names.
+     * @param separator The field separator.
+     * @param charset The charset of the file.
+     * @param projection The flags of the columns that can be decoded or null to read all columns.
+     * @throws IOException if the file can not be mapped.
+     */
+    public MappedCsvReader(Path filePath, boolean hasHeader, char separator, Charset charset, boolean[] projection) throws IOException {
+        this(filePath, hasHeader, separator, charset, MIN_CHUNK_SIZE, projection, true);
+    }
+
+    MappedCsvReader(Path filePath, boolean hasHeader, char separator, Charset charset, long minChunkSize) throws IOException {
+        this(filePath, hasHeader, separator, charset, minChunkSize, null, true);
+    }
+
+    private MappedCsvReader(Path filePath, boolean hasHeader, char separator, Charset charset, long minChunkSize, boolean[] projection, boolean locateFields) throws IOException {
+        if (!supports(separator, charset))
+            throw new IllegalArgumentException("Separator '" + separator + "' and charset " + charset + " can not be parsed on the byte level.");
+
+        this.separator = separator;
+        this.charset = charset;
+        this.projection = projection;
+
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            this.fileSize = channel.size();
+            this.segments = new ByteBuffer[(int) ((this.fileSize + SEGMENT_SIZE - 1) >>> SEGMENT_BITS)];
+            for (int i = 0; i < this.segments.length; i++) {
+                long start = (long) i << SEGMENT_BITS;
+                this.segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, this.fileSize - start));
+            }
+        }
+
+        long position = 0;
+        if (hasHeader && position < this.fileSize) {
+            RecordScanner scanner = new RecordScanner();
+            position = scanner.scanRecord(position);
+            this.header = scanner.decodeFields();
+        }
+
+        this.dataStart = position;
+
+        this.chunks = locateFields ? this.scanChunks(position, minChunkSize) : new ArrayList<>();
+        this.numRecords = this.chunks.stream().mapToInt(chunk -> chunk.numRecords).sum();
+    }
+
+    /**
+     * Opens a RecordStream on the memory-mapped file. The stream scans the records only while it is read and does not
+     * remember the location of any field, so that its memory consumption is independent of the size of the file.
+     * @param filePath The path of the CSV file.
+     * @param hasHeader Whether the first record of the file holds the attribute names.
+     * @param separator The field separator.
+     * @param charset The charset of the file.
+     * @return The stream, positioned before the first record.
+     * @throws IOException if the file can not be mapped.
+     */
+    public static RecordStream stream(Path filePath, boolean hasHeader, char separator, Charset charset) throws IOException {
+        return new MappedCsvReader(filePath, hasHeader, separator, charset, MIN_CHUNK_SIZE, null, false).new MappedRecordStream();
+    }
+
+    private boolean isProjected(int column) {
+        return this.projection == null || (column < this.projection.length && this.projection[column]);
+    }
+
+    public int getNumColumns() {
+        return this.chunks.stream().mapToInt(chunk -> chunk.fieldStarts.size()).max().orElse(0);
+    }
+
+    /**
+     * Scans all records from the provided position to the end of the file. Large files are split into chunks at line
+     * boundaries that are scanned in parallel on the current ForkJoinPool (or the common pool). Because a line break
+     * may also lie inside a quoted value, every chunk except the first one is scanned speculatively: its result is
+     * used only if the previous chunk ended exactly where it starts; otherwise, the chunk is scanned again from the
+     * actual end of its predecessor.
+     * @param position The position of the first record.
+     * @param minChunkSize The minimum number of bytes per chunk.
+     * @return The scanned chunks in file order.
+     */
+    private List<Chunk> scanChunks(long position, long minChunkSize) {
+        ForkJoinPool pool = ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool() : ForkJoinPool.commonPool();
+        long remaining = this.fileSize - position;
+        int numChunks = (pool.getParallelism() > 1) ? (int) Math.min(Integer.MAX_VALUE, Math.max(1, remaining / minChunkSize)) : 1;
+
+        List<Chunk> result = new ArrayList<>(numChunks);
+        if (numChunks == 1) {
+            result.add(this.scanChunk(position, this.fileSize));
+            return result;
+        }
+
+        LongArrayList boundaries = new LongArrayList();
+        boundaries.add(position);
+        for (int i = 1; i < numChunks; i++) {
+            long boundary = this.nextLineStart(position + remaining / numChunks * i);
+            if (boundary > boundaries.getLong(boundaries.size() - 1) && boundary < this.fileSize)
+                boundaries.add(boundary);
+        }
+        boundaries.add(this.fileSize);
+
+        List<ForkJoinTask<Chunk>> speculations = new ArrayList<>();
+        for (int i = 0; i + 1 < boundaries.size(); i++) {
+            long start = boundaries.getLong(i);
+            long end = boundaries.getLong(i + 1);
+            speculations.add(pool.submit(() -> this.speculate(start, end)));
+        }
+
+        long expectedStart = position;
+        for (int i = 0; i < speculations.size(); i++) {
+            Chunk chunk = speculations.get(i).join();
+            if (chunk == null || chunk.start != expectedStart)
+                chunk = this.scanChunk(expectedStart, boundaries.getLong(i + 1));
+            result.add(chunk);
+            expectedStart = chunk.end;
+        }
+        return result;
+    }
+
+    private Chunk speculate(long start, long end) {
+        try {
+            return this.scanChunk(start, end);
+        } catch (IllegalStateException e) {
+            // The chunk did not start at a record boundary; it is scanned again once its actual start is known
+            return null;
+        }
+    }
+
+    private Chunk scanChunk(long start, long end) {
+        Chunk chunk = new Chunk(start);
+        RecordScanner scanner = new RecordScanner();
+        scanner.projected = true;
+        long position = start;
+        while (position < end) {
+            position = scanner.scanRecord(position);
+            chunk.addRecord(scanner);
+        }
+        chunk.end = Math.max(position, start);
+        return chunk;
+    }
+
+    private long nextLineStart(long position) {
+        while (position < this.fileSize) {
+            byte c = this.byteAt(position++);
+            if (c == '\n' || (c == '\r' && (position == this.fileSize || this.byteAt(position) != '\n')))
+                return position;
+        }
+        return this.fileSize;
+    }
+
+    /**
+     * Decodes the values of one column into a dictionary-encoded column. The raw bytes of the fields are hashed and
+     * compared directly, so that a String is created only once per distinct value.
+     * @param column The index of the column to decode.
+     * @return The dictionary-encoded column.
+     */
+    public DictionaryColumn decodeColumn(int column) {
+        if (!this.isProjected(column))
+            throw new IllegalArgumentException("Column " + column + " is not part of the projection.");
+
+        ByteBuffer[] views = new ByteBuffer[this.segments.length];
+        for (int i = 0; i < views.length; i++)
+            views[i] = this.segments[i].duplicate();
+
+        ByteSliceDictionary dictionary = new ByteSliceDictionary();
+        int[] codes = new int[this.numRecords];
+        byte[] scratch = new byte[64];
+        int record = 0;
+        for (Chunk chunk : this.chunks) {
+            if (column >= chunk.fieldStarts.size()) {
+                // Records that are too short for this column hold an empty value
+                int emptyCode = dictionary.codeOf(scratch, 0);
+                for (int i = 0; i < chunk.numRecords; i++)
+                    codes[record++] = emptyCode;
+                continue;
+            }
+
+            LongArrayList starts = chunk.fieldStarts.get(column);
+            IntArrayList lengths = chunk.fieldLengths.get(column);
+            Int2ObjectOpenHashMap<byte[]> rewritten = chunk.rewrittenFields.get(column);
+            for (int i = 0; i < chunk.numRecords; i++) {
+                int length = lengths.getInt(i);
+                if (length < 0) {
+                    byte[] value = rewritten.get(i);
+                    codes[record++] = dictionary.codeOf(value, value.length);
+                } else {
+                    if (scratch.length < length)
+                        scratch = new byte[Math.max(length, 2 * scratch.length)];
+                    this.copy(views, starts.getLong(i), scratch, length);
+                    codes[record++] = dictionary.codeOf(scratch, length);
+                }
+            }
+        }
+
+        String[] values = new String[dictionary.size()];
+        for (int code = 0; code < values.length; code++)
+            values[code] = new String(dictionary.keys.get(code), this.charset);
+        return DictionaryColumn.sort(values, codes);
+    }
+
+    private byte byteAt(long position) {
+        return this.segments[(int) (position >>> SEGMENT_BITS)].get((int) (position & SEGMENT_MASK));
+    }
+
+    private void copy(ByteBuffer[] views, long position, byte[] target, int length) {
+        int copied = 0;
+        while (copied < length) {
+            ByteBuffer view = views[(int) (position >>> SEGMENT_BITS)];
+            int offset = (int) (position & SEGMENT_MASK);
+            int chunk = Math.min(length - copied, view.limit() - offset);
+            view.position(offset);
+            view.get(target, copied, chunk);
+            copied += chunk;
+            position += chunk;
+        }
+    }
+
+    /**
+     * A Chunk stores the location of every field for a consecutive range of records: the start position in the file
+     * and the length in bytes per record and column; a length of -1 marks a field whose parsed value differs from its
+     * raw bytes and is stored in rewrittenFields.
+     */
+    private class Chunk {
+
+        private final long start;
+        private long end;
+        private int numRecords = 0;
+
+        private final List<LongArrayList> fieldStarts = new ArrayList<>();
+        private final List<IntArrayList> fieldLengths = new ArrayList<>();
+        private final List<Int2ObjectOpenHashMap<byte[]>> rewrittenFields = new ArrayList<>();
+
+        Chunk(long start) {
+            this.start = start;
+        }
+
+        void addRecord(RecordScanner scanner) {
+            while (this.fieldStarts.size() < scanner.numFields) {
+                LongArrayList starts = new LongArrayList();
+                IntArrayList lengths = new IntArrayList();
+                for (int i = 0; i < this.numRecords && isProjected(this.fieldStarts.size()); i++) {
+                    starts.add(0);
+                    lengths.add(0);
+                }
+                this.fieldStarts.add(starts);
+                this.fieldLengths.add(lengths);
+                this.rewrittenFields.add(new Int2ObjectOpenHashMap<>());
+            }
+            for (int column = 0; column < this.fieldStarts.size(); column++) {
+                if (!isProjected(column)) {
+                    continue;
+                } else if (column < scanner.numFields) {
+                    this.fieldStarts.get(column).add(scanner.starts[column]);
+                    this.fieldLengths.get(column).add(scanner.lengths[column]);
+                    if (scanner.lengths[column] < 0)
+                        this.rewrittenFields.get(column).put(this.numRecords, scanner.rewritten[column]);
+                } else {
+                    this.fieldStarts.get(column).add(0);
+                    this.fieldLengths.get(column).add(0);
+                }
+            }
+            this.numRecords++;
+        }
+    }
+
+    /**
+     * A MappedRecordStream scans the records of the mapped file one at a time; the position of a record is the
+     * position of its first byte in the file, at which the scanning can be resumed at any time.
+     */
+    private class MappedRecordStream implements RecordStream {
+
+        private final RecordScanner scanner = new RecordScanner();
+        private final ByteBuffer[] views = new ByteBuffer[segments.length];
+        private byte[] scratch = new byte[64];
+
+        private long position = -1;
+        private long nextPosition = dataStart;
+
+        MappedRecordStream() {
+            for (int i = 0; i < this.views.length; i++)
+                this.views[i] = segments[i].duplicate();
+        }
+
+        @Override
+        public String[] getHeader() {
+            return header;
+        }
+
+        @Override
+        public boolean next() {
+            if (this.nextPosition >= fileSize)
+                return false;
+            this.position = this.nextPosition;
+            this.nextPosition = this.scanner.scanRecord(this.position);
+            return true;
+        }
+
+        @Override
+        public int getNumFields() {
+            return this.scanner.numFields;
+        }
+
+        @Override
+        public String getField(int index) {
+            if (index >= this.scanner.numFields)
+                return "";
+            if (this.scanner.rewritten[index] != null)
+                return new String(this.scanner.rewritten[index], charset);
+            int length = this.scanner.lengths[index];
+            if (this.scratch.length < length)
+                this.scratch = new byte[Math.max(length, 2 * this.scratch.length)];
+            copy(this.views, this.scanner.starts[index], this.scratch, length);
+            return new String(this.scratch, 0, length, charset);
+        }
+
+        @Override
+        public long getPosition() {
+            return this.position;
+        }
+
+        @Override
+        public void seek(long position) {
+            this.nextPosition = position;
+        }
+
+        @Override
+        public void close() {
+            // The mapping is released together with the stream
+        }
+    }
+
+    /**
+     * The RecordScanner implements the opencsv parsing rules on the byte level. It scans one record at a time and
+     * leaves the location of its fields in reusable arrays.
+     */
+    private class RecordScanner {
+
+        private int numFields = 0;
+        private long[] starts = new long[16];
+        private int[] lengths = new int[16];
+        private byte[][] rewritten = new byte[16][];
+        private boolean[] quoted = new boolean[16];
+
+        // Whether the fields of columns outside the projection are skipped instead of located
+        private boolean projected = false;
+
+        // Whether the current field has been quoted or has content; opencsv reads other empty fields as null
+        private boolean fromQuotedField = false;
+
+        // The current field is either a contiguous slice [sliceStart, sliceEnd) of the file or, once a character had
+        // to be dropped or inserted, a copy in the buffer
+        private long sliceStart = -1;
+        private long sliceEnd = -1;
+        private boolean buffered = false;
+        private byte[] buffer = new byte[64];
+        private int bufferSize = 0;
+
+        /**
+         * Scans the record that starts at the provided position.
+         * @param position The position of the first byte of the record.
+         * @return The position of the first byte after the record.
+         */
+        long scanRecord(long position) {
+            this.numFields = 0;
+            this.resetField();
+
+            boolean inField = false;
+            boolean pending = false;
+            while (true) {
+                long lineStart = position;
+                long lineEnd = lineStart;
+                while (lineEnd < fileSize && byteAt(lineEnd) != '\n' && byteAt(lineEnd) != '\r')
+                    lineEnd++;
+                long nextLine = lineEnd;
+                if (nextLine < fileSize)
+                    nextLine += (byteAt(nextLine) == '\r' && nextLine + 1 < fileSize && byteAt(nextLine + 1) == '\n') ? 2 : 1;
+
+                boolean inQuotes = pending;
+                this.fromQuotedField = false;
+                long i = lineStart;
+                while (i < lineEnd) {
+                    byte c = byteAt(i++);
+                    if (c == ESCAPE) {
+                        inField = true;
+                        if (i < lineEnd && this.isEscapable(byteAt(i)))
+                            this.append(i++);
+                    } else if (c == QUOTE) {
+                        if ((inQuotes || inField) && i < lineEnd && byteAt(i) == QUOTE) {
+                            this.append(i++);
+                        } else {
+                            inQuotes = !inQuotes;
+                            if (this.isEmpty())
+                                this.fromQuotedField = true;
+                            // the tricky case of an embedded quote in the middle: a,bc"d"ef,g
+                            if (i - lineStart > BEGINNING_OF_LINE && byteAt(i - 2) != separator && i < lineEnd &&
+                                    byteAt(i) != separator && this.countCharacters(lineStart, i) > BEGINNING_OF_LINE)
+                                this.append(i - 1);
+                        }
+                        inField = !inField;
+                    } else if (c == separator && !inQuotes) {
+                        this.endField();
+                        inField = false;
+                    } else {
+                        this.append(i - 1);
+                        inField = true;
+                        this.fromQuotedField = true;
+                    }
+                }
+
+                if (inQuotes) {
+                    if (nextLine >= fileSize)
+                        throw new IllegalStateException("Unterminated quoted field at end of CSV file.");
+                    // continuing a quoted section, re-append newline
+                    this.appendByte((byte) '\n');
+                    pending = true;
+                    position = nextLine;
+                } else {
+                    this.endField();
+                    return nextLine;
+                }
+            }
+        }
+
+        private boolean isEscapable(byte c) {
+            return c == QUOTE || c == ESCAPE || c == separator;
+        }
+
+        /**
+         * Counts the characters (in UTF-16 units, as opencsv sees them) in the provided range, but stops counting as
+         * soon as the count exceeds the beginning-of-line limit.
+         */
+        private int countCharacters(long from, long to) {
+            if (isSingleByte(charset))
+                return (int) Math.min(to - from, BEGINNING_OF_LINE + 1);
+            int count = 0;
+            for (long i = from; i < to && count <= BEGINNING_OF_LINE; i++) {
+                int b = byteAt(i) & 0xFF;
+                if ((b & 0xC0) != 0x80)
+                    count += ((b & 0xF8) == 0xF0) ? 2 : 1;
+            }
+            return count;
+        }
+
+        private boolean isEmpty() {
+            return this.buffered ? this.bufferSize == 0 : this.sliceStart < 0;
+        }
+
+        private void append(long position) {
+            if (this.buffered) {
+                this.appendByte(byteAt(position));
+            } else if (this.sliceStart < 0) {
+                this.sliceStart = position;
+                this.sliceEnd = position + 1;
+            } else if (this.sliceEnd == position) {
+                this.sliceEnd++;
+            } else {
+                this.appendByte(byteAt(position));
+            }
+        }
+
+        private void appendByte(byte b) {
+            if (!this.buffered) {
+                this.buffered = true;
+                this.bufferSize = 0;
+                for (long p = this.sliceStart; this.sliceStart >= 0 && p < this.sliceEnd; p++)
+                    this.appendToBuffer(byteAt(p));
+            }
+            this.appendToBuffer(b);
+        }
+
+        private void appendToBuffer(byte b) {
+            if (this.bufferSize == this.buffer.length)
+                this.buffer = Arrays.copyOf(this.buffer, 2 * this.buffer.length);
+            this.buffer[this.bufferSize++] = b;
+        }
+
+        private void endField() {
+            if (this.numFields == this.starts.length) {
+                this.starts = Arrays.copyOf(this.starts, 2 * this.starts.length);
+                this.lengths = Arrays.copyOf(this.lengths, 2 * this.lengths.length);
+                this.rewritten = Arrays.copyOf(this.rewritten, 2 * this.rewritten.length);
+                this.quoted = Arrays.copyOf(this.quoted, 2 * this.quoted.length);
+            }
+            this.quoted[this.numFields] = this.fromQuotedField;
+            this.fromQuotedField = false;
+            if (this.projected && !isProjected(this.numFields)) {
+                this.starts[this.numFields] = 0;
+                this.lengths[this.numFields] = 0;
+                this.rewritten[this.numFields] = null;
+            } else if (this.buffered) {
+                this.starts[this.numFields] = 0;
+                this.lengths[this.numFields] = -1;
+                this.rewritten[this.numFields] = Arrays.copyOf(this.buffer, this.bufferSize);
+            } else {
+                this.starts[this.numFields] = Math.max(this.sliceStart, 0);
+                this.lengths[this.numFields] = (this.sliceStart < 0) ? 0 : (int) (this.sliceEnd - this.sliceStart);
+                this.rewritten[this.numFields] = null;
+            }
+            this.numFields++;
+            this.resetField();
+        }
+
+        private void resetField() {
+            this.sliceStart = -1;
+            this.sliceEnd = -1;
+            this.buffered = false;
+            this.bufferSize = 0;
+        }
+
+        /**
+         * Decodes the fields of the last scanned record into Strings; like opencsv, empty fields that were not quoted
+         * are returned as null.
+         */
+        String[] decodeFields() {
+            String[] fields = new String[this.numFields];
+            for (int i = 0; i < this.numFields; i++) {
+                if (this.lengths[i] == 0 && !this.quoted[i])
+                    continue;
+                byte[] bytes = this.rewritten[i];
+                if (bytes == null) {
+                    bytes = new byte[this.lengths[i]];
+                    for (int j = 0; j < bytes.length; j++)
+                        bytes[j] = byteAt(this.starts[i] + j);
+                }
+                fields[i] = new String(bytes, charset);
+            }
+            return fields;
+        }
+    }
+
+    /**
+     * A ByteSliceDictionary assigns codes to byte sequences in the order of their first occurrence. It is an open
+     * addressing hash table that stores only one copy of every distinct byte sequence.
+     */
+    private static class ByteSliceDictionary {
+
+        private final List<byte[]> keys = new ArrayList<>();
+        private final IntArrayList hashes = new IntArrayList();
+        private int[] table = new int[64];
+
+        ByteSliceDictionary() {
+            Arrays.fill(this.table, -1);
+        }
+
+        int size() {
+            return this.keys.size();
+        }
+
+        int codeOf(byte[] bytes, int length) {
+            int hash = 1;
+            for (int i = 0; i < length; i++)
+                hash = 31 * hash + bytes[i];
+            hash ^= (hash >>> 16);
+
+            int mask = this.table.length - 1;
+            int slot = hash & mask;
+            while (this.table[slot] >= 0) {
+                int code = this.table[slot];
+                if (this.hashes.getInt(code) == hash && Arrays.equals(this.keys.get(code), 0, this.keys.get(code).length, bytes, 0, length))
+                    return code;
+                slot = (slot + 1) & mask;
+            }
+
+            int code = this.keys.size();
+            this.keys.add(Arrays.copyOf(bytes, length));
+            this.hashes.add(hash);
+            this.table[slot] = code;
+            if (2 * this.keys.size() > this.table.length)
+                this.rehash();
+            return code;
+        }
+
+        private void rehash() {
+            this.table = new int[2 * this.table.length];
+            Arrays.fill(this.table, -1);
+            int mask = this.table.length - 1;
+            for (int code = 0; code < this.keys.size(); code++) {
+                int slot = this.hashes.getInt(code) & mask;
+                while (this.table[slot] >= 0)
+                    slot = (slot + 1) & mask;
+                this.table[slot] = code;
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package de.di.helper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+
+/**
+ * A RecordStream is a cursor over the records of a CSV file. It reads one record at a time and is itself the view on
+ * the current record, so that algorithms that process the records incrementally run in memory that does not grow
+ * with the size of the file. The fields of a record are only valid until the next call of next().
+ */
+public interface RecordStream extends Closeable {
+
+    /**
+     * Opens a RecordStream on the provided CSV file. The stream parses the file with the same rules as Relation and
+     * works on the memory-mapped file if MappedCsvReader supports the separator and charset.
+     * @param filePath The path of the CSV file.
+     * @param hasHeader Whether the first record of the file holds the attribute names.
+     * @param separator The field separator.
+     * @param charset The charset of the file.
+     * @return The stream, positioned before the first record.
+     */
+    static RecordStream open(Path filePath, boolean hasHeader, char separator, Charset charset) {
+        try {
+            if (MappedCsvReader.supports(separator, charset))
+                return MappedCsvReader.stream(filePath, hasHeader, separator, charset);
+            return new CsvRecordStream(filePath, hasHeader, separator, charset);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Returns the attribute names of the file; empty names are null, as in opencsv.
+     * @return The header of the file or null, if the file has no header.
+     */
+    String[] getHeader();
+
+    /**
+     * Advances the cursor to the next record.
+     * @return true if there was a next record, false if the end of the file has been reached.
+     */
+    boolean next();
+
+    /**
+     * Returns the number of fields of the current record.
+     * @return The number of fields of the current record.
+     */
+    int getNumFields();
+
+    /**
+     * Returns a value of the current record; empty fields and fields that the record does not have are read as "".
+     * @param index The index of the field.
+     * @return The value of the field.
+     */
+    String getField(int index);
+
+    /**
+     * Copies the values of the current record into a new array that is padded with "" to the provided length.
+     * @param numFields The minimum length of the result.
+     * @return The values of the current record.
+     */
+    default String[] getFields(int numFields) {
+        String[] fields = new String[Math.max(numFields, this.getNumFields())];
+        for (int i = 0; i < fields.length; i++)
+            fields[i] = this.getField(i);
+        return fields;
+    }
+
+    /**
+     * Returns the position of the current record, which can be used to return to this record with seek().
+     * @return The position of the current record.
+     */
+    long getPosition();
+
+    /**
+     * Moves the cursor such that the next call of next() reads the record at the provided position. Only streams
+     * that work on a memory-mapped file support random access.
+     * @param position A position that getPosition() returned for this stream.
+     * @throws UnsupportedOperationException if the stream can only be read sequentially.
+     */
+    void seek(long position);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,134 @@
+package de.di.helper;
+
+import de.di.Relation;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A RelationCache keeps the most recently used relations loaded, so that a long-running process reads every file only
+ * once. The cache holds at most a fixed number of relations and evicts the least recently used one when it is full.
+ * A cached relation is keyed by the absolute path of its file and the parsing settings; it is read again as soon as
+ * the size or modification time of its file changes. The cache is thread-safe; a relation that is requested by
+ * several threads at once may be read more than once, but only one instance is kept.
+ */
+public class RelationCache {
+
+    private static class Entry {
+
+        private final Relation relation;
+        private final long size;
+        private final FileTime lastModified;
+
+        private Entry(Relation relation, long size, FileTime lastModified) {
+            this.relation = relation;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private final int capacity;
+    private final LinkedHashMap<String, Entry> entries;
+
+    public RelationCache(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("A RelationCache must hold at least one relation, but the capacity is " + capacity + ".");
+        this.capacity = capacity;
+        // An access-ordered map lists the least recently used relation first
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return this.size() > RelationCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the relation of the provided CSV file from the cache or reads it, if it is not cached or its file has
+     * changed since it was read.
+     * @param filePath The path of the CSV file.
+     * @param hasHeader Whether the first record of the file holds the attribute names.
+     * @param separator The field separator.
+     * @param charset The charset of the file.
+     * @return The relation of the file.
+     */
+    public Relation get(Path filePath, boolean hasHeader, char separator, Charset charset) {
+        String key = filePath.toAbsolutePath().normalize() + "|" + hasHeader + "|" + separator + "|" + charset.name();
+        long size;
+        FileTime lastModified;
+        try {
+            size = Files.size(filePath);
+            lastModified = Files.getLastModifiedTime(filePath);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        synchronized (this) {
+            Entry entry = this.entries.get(key);
+            if (entry != null && entry.size == size && entry.lastModified.equals(lastModified))
+                return entry.relation;
+        }
+
+        // Read outside of the lock, so that other threads can use the cache in the meantime
+        Relation relation = new Relation(filePath, hasHeader, separator, charset);
+        synchronized (this) {
+            this.entries.put(key, new Entry(relation, size, lastModified));
+        }
+        return relation;
+    }
+
+    public List<Relation> getAll(String folderPath, boolean hasHeader, char separator, Charset charset) {
+        return this.getAll(folderPath, hasHeader, separator, charset, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Returns the relations of all files in the provided folder in the order in which Relation#readAllRelationsIn
+     * reads them; every relation is taken from the cache if possible, and the files that are not cached are read in
+     * parallel by the provided number of threads.
+     * @param folderPath The path of the folder.
+     * @param hasHeader Whether the first record of every file holds the attribute names.
+     * @param separator The field separator.
+     * @param charset The charset of the files.
+     * @param numThreads The number of threads that read the files.
+     * @return The relations of all files in the folder.
+     */
+    public List<Relation> getAll(String folderPath, boolean hasHeader, char separator, Charset charset, int numThreads) {
+        List<Path> filePaths;
+        try (Stream<Path> paths = Files.walk(Paths.get(folderPath))) {
+            filePaths = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        // A parallel stream that is started inside a ForkJoinPool runs on the threads of that pool
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, numThreads));
+        try {
+            return pool.submit(() -> filePaths.parallelStream()
+                    .map(filePath -> this.get(filePath, hasHeader, separator, charset))
+                    .collect(Collectors.toList())).get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+}
@@ -0,0 +1,259 @@
+package de.di.helper;
+
+import de.di.structures.DictionaryColumn;
+import de.di.structures.EncodedColumn;
+import lombok.Getter;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * A RelationSnapshot is the parsed content of a CSV file stored in a compact binary file: the header, the number of
+ * records and the dictionary-encoded columns, whose codes are stored with 1, 2 or 4 bytes depending on the size of the
+ * dictionary. A snapshot is keyed by the absolute path, size and modification time of its CSV file and by the
+ * parsing settings, so that it is only used as long as it describes the current content of the file. Snapshots are
+ * written into a cache directory, which is the directory given by the system property "di.snapshotDirectory" or, by
+ * default, the folder .cache/di-snapshots in the home directory of the user; an empty property value disables the
+ * snapshots. The snapshots hold the content of the files, so the cache directory is created with permissions for its
+ * owner only, where the file system supports POSIX permissions.
+ */
+@Getter
+public class RelationSnapshot {
+
+    private static final int MAGIC = 0x44495253; // "DIRS"
+    private static final int VERSION = 1;
+
+    private static Path cacheDirectory = initCacheDirectory();
+
+    private final String[] attributes;
+    private final int numRecords;
+    private final EncodedColumn[] columns;
+
+    private RelationSnapshot(String[] attributes, int numRecords, EncodedColumn[] columns) {
+        this.attributes = attributes;
+        this.numRecords = numRecords;
+        this.columns = columns;
+    }
+
+    private static Path initCacheDirectory() {
+        String directory = System.getProperty("di.snapshotDirectory", Paths.get(System.getProperty("user.home"), ".cache", "di-snapshots").toString());
+        return directory.isEmpty() ? null : Paths.get(directory);
+    }
+
+    public static synchronized Path getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * Sets the directory into which snapshots are written and from which they are loaded.
+     * @param directory The cache directory or null to disable the snapshots.
+     */
+    public static synchronized void setCacheDirectory(Path directory) {
+        cacheDirectory = directory;
+    }
+
+    /**
+     * Loads the snapshot of the provided CSV file, if the cache holds a snapshot that matches the current state of the
+     * file and the parsing settings. The snapshot file is memory-mapped, so that loading costs hardly more than
+     * copying the codes and decoding the distinct values.
+     * @param filePath The path of the CSV file.
+     * @param hasHeader Whether the first record of the file holds the attribute names.
+     * @param separator The field separator.
+     * @param charset The charset of the file.
+     * @return The snapshot or null, if snapshots are disabled or no valid snapshot exists.
+     */
+    public static RelationSnapshot load(Path filePath, boolean hasHeader, char separator, Charset charset) {
+        Path snapshotPath = snapshotPathOf(filePath, hasHeader, separator, charset);
+        if (snapshotPath == null || !Files.isRegularFile(snapshotPath))
+            return null;
+
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+                return null;
+            if (!Objects.equals(readString(buffer), keyOf(filePath, hasHeader, separator, charset)) ||
+                    buffer.getLong() != Files.size(filePath) ||
+                    buffer.getLong() != Files.getLastModifiedTime(filePath).to(TimeUnit.NANOSECONDS))
+                return null;
+
+            String[] attributes = null;
+            int numAttributes = buffer.getInt();
+            if (numAttributes >= 0) {
+                attributes = new String[numAttributes];
+                for (int i = 0; i < numAttributes; i++)
+                    attributes[i] = readString(buffer);
+            }
+
+            int numRecords = buffer.getInt();
+            EncodedColumn[] columns = new EncodedColumn[buffer.getInt()];
+            for (int i = 0; i < columns.length; i++) {
+                String[] dictionary = new String[buffer.getInt()];
+                for (int code = 0; code < dictionary.length; code++)
+                    dictionary[code] = readString(buffer);
+                columns[i] = new DictionaryColumn(dictionary, readCodes(buffer, numRecords, dictionary.length));
+            }
+            return new RelationSnapshot(attributes, numRecords, columns);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            // A snapshot that can not be read is treated like a missing one
+            return null;
+        }
+    }
+
+    /**
+     * Writes the snapshot of a parsed CSV file into the cache. The snapshot is written into a temporary file that
+     * replaces the old snapshot only once it is complete, so that concurrent readers never see a partial snapshot. The
+     * snapshot is keyed by the size and modification time that the file had before it was parsed, so that a change of
+     * the file during parsing makes the snapshot invalid instead of attaching old content to the new file state.
+     * The columns are requested and written one at a time, so that a relation whose columns have not been decoded yet
+     * can decode and release them one by one. Failing to write a snapshot is not an error, because the file can always
+     * be parsed again.
+     * @param filePath The path of the CSV file.
+     * @param hasHeader Whether the first record of the file holds the attribute names.
+     * @param separator The field separator.
+     * @param charset The charset of the file.
+     * @param fileSize The size of the CSV file, taken before it was parsed.
+     * @param lastModified The modification time of the CSV file in nanoseconds, taken before it was parsed.
+     * @param attributes The attribute names or null, if the file has no header.
+     * @param numRecords The number of records.
+     * @param numColumns The number of columns.
+     * @param columns The function that returns the dictionary-encoded column with the provided index.
+     */
+    public static void write(Path filePath, boolean hasHeader, char separator, Charset charset, long fileSize, long lastModified, String[] attributes, int numRecords, int numColumns, IntFunction<EncodedColumn> columns) {
+        Path snapshotPath = snapshotPathOf(filePath, hasHeader, separator, charset);
+        if (snapshotPath == null)
+            return;
+
+        Path temporaryPath = null;
+        try {
+            createDirectory(snapshotPath.getParent());
+            temporaryPath = Files.createTempFile(snapshotPath.getParent(), snapshotPath.getFileName().toString(), ".tmp");
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryPath), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeString(out, keyOf(filePath, hasHeader, separator, charset));
+                out.writeLong(fileSize);
+                out.writeLong(lastModified);
+
+                out.writeInt(attributes == null ? -1 : attributes.length);
+                if (attributes != null)
+                    for (String attribute : attributes)
+                        writeString(out, attribute);
+
+                out.writeInt(numRecords);
+                out.writeInt(numColumns);
+                for (int i = 0; i < numColumns; i++) {
+                    EncodedColumn column = columns.apply(i);
+                    out.writeInt(column.cardinality());
+                    for (String value : column.getDictionary())
+                        writeString(out, value);
+                    writeCodes(out, column.getCodes(), column.cardinality());
+                }
+            }
+            Files.move(temporaryPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                if (temporaryPath != null)
+                    Files.deleteIfExists(temporaryPath);
+            } catch (IOException ignored) {
+                // The temporary file is left behind; it is never read as a snapshot
+            }
+        }
+    }
+
+    private static void createDirectory(Path directory) throws IOException {
+        if (Files.isDirectory(directory))
+            return;
+        if (directory.getParent() != null)
+            Files.createDirectories(directory.getParent());
+        try {
+            if (directory.getFileSystem().supportedFileAttributeViews().contains("posix"))
+                Files.createDirectory(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+            else
+                Files.createDirectory(directory);
+        } catch (FileAlreadyExistsException e) {
+            // Another thread has created the directory in the meantime
+        }
+    }
+
+    private static String keyOf(Path filePath, boolean hasHeader, char separator, Charset charset) {
+        return filePath.toAbsolutePath().normalize() + "|" + hasHeader + "|" + separator + "|" + charset.name();
+    }
+
+    private static Path snapshotPathOf(Path filePath, boolean hasHeader, char separator, Charset charset) {
+        Path directory = getCacheDirectory();
+        if (directory == null)
+            return null;
+        String key = keyOf(filePath, hasHeader, separator, charset);
+        return directory.resolve("relation-" + UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)) + ".snapshot");
+    }
+
+    private static int codeWidth(int cardinality) {
+        return (cardinality <= (1 << 8)) ? 1 : (cardinality <= (1 << 16)) ? 2 : 4;
+    }
+
+    private static void writeCodes(DataOutputStream out, int[] codes, int cardinality) throws IOException {
+        int width = codeWidth(cardinality);
+        for (int code : codes) {
+            if (width == 1)
+                out.writeByte(code);
+            else if (width == 2)
+                out.writeShort(code);
+            else
+                out.writeInt(code);
+        }
+    }
+
+    private static int[] readCodes(ByteBuffer buffer, int numRecords, int cardinality) {
+        int[] codes = new int[numRecords];
+        int width = codeWidth(cardinality);
+        if (width == 4) {
+            buffer.asIntBuffer().get(codes);
+            buffer.position(buffer.position() + 4 * numRecords);
+        } else if (width == 2) {
+            for (int i = 0; i < numRecords; i++)
+                codes[i] = buffer.getShort() & 0xFFFF;
+        } else {
+            for (int i = 0; i < numRecords; i++)
+                codes[i] = buffer.get() & 0xFF;
+        }
+        return codes;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0)
+            return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -21,22 +21,21 @@ public class FirstLineSchemaMatcher {
      * @return The similarity matrix that describes the attribute-to-attribute similarities of the two relations.
      */
     public SimilarityMatrix match(Relation sourceRelation, Relation targetRelation) {
-        String[][] sourceColumns = sourceRelation.getColumns();
-        String[][] targetColumns = targetRelation.getColumns();
+        // With set semantics, only the distinct values of a column matter, which the dictionaries already provide
+        String[][] sourceColumns = distinctValuesOf(sourceRelation);
+        String[][] targetColumns = distinctValuesOf(targetRelation);
 
         Jaccard jaccard = new Jaccard(new Tokenizer(4, true), false);
 
-        // Initialize the similarity matrix
-        double[][] matrix = new double[sourceColumns.length][];
-        for (int i = 0; i < sourceColumns.length; i++)
-            matrix[i] = new double[targetColumns.length];
-
-        // Calculate all pair-wise attribute similarities
-        for (int i = 0; i < sourceColumns.length; i++) {
-            for (int j = 0; j < targetColumns.length; j++) {
-                matrix[i][j] = jaccard.calculate(sourceColumns[i], targetColumns[j]);
-            }
-        }
+        // Calculate all pair-wise attribute similarities in parallel
+        double[][] matrix = jaccard.calculateMatrix(sourceColumns, targetColumns);
         return new SimilarityMatrix(matrix, sourceRelation, targetRelation);
     }
+
+    private static String[][] distinctValuesOf(Relation relation) {
+        String[][] columns = new String[relation.getAttributes().length][];
+        for (int i = 0; i < columns.length; i++)
+            columns[i] = relation.getColumn(i).getDictionary();
+        return columns;
+    }
 }
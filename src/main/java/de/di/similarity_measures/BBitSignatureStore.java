@@ -0,0 +1,178 @@
+package de.di.similarity_measures;
+
+import de.di.similarity_measures.helper.Hashing;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+/**
+ * A BBitSignatureStore keeps the MinHash signatures of many values in compressed form: it stores only b hash bits of
+ * every signature value and packs 64 / b of them into each long, so a signature of k values takes k * b / 64 longs
+ * instead of k longs, i.e., 8 to 64 times less memory. Two signatures are compared word by word: the XOR of two words
+ * has a zero slot exactly where two b-bit values agree, and after folding every slot onto its lowest bit, a
+ * population count yields the number of disagreeing slots. The b bits of two different signature values still agree
+ * by chance with probability 2^-b, so the fraction P of agreeing slots overestimates the Jaccard similarity J as
+ * P = 2^-b + (1 - 2^-b) * J; the store inverts this relation (b-bit minwise hashing of Li and König). Fewer bits need
+ * longer signatures for the same accuracy, but save memory overall. The ids of the signatures are their insertion
+ * positions. The store is not thread-safe.
+ */
+public class BBitSignatureStore {
+
+    private final LocalitySensitiveHashing localitySensitiveHashing;
+    private final int numHashFunctions;
+    private final int bits;
+
+    // The number of longs per signature
+    private final int numWords;
+
+    // The probability that the b-bit values of two different signature values agree by chance
+    private final double collisionProbability;
+
+    // The packed signatures; signature id occupies the words [id * numWords, (id + 1) * numWords)
+    private final LongArrayList words = new LongArrayList();
+
+    /**
+     * Creates an empty store for the signatures of the provided measure.
+     * @param localitySensitiveHashing The measure that calculates the signatures.
+     * @param bits The number of bits per signature value, i.e., 1, 2, 4 or 8.
+     */
+    public BBitSignatureStore(LocalitySensitiveHashing localitySensitiveHashing, int bits) {
+        if (bits != 1 && bits != 2 && bits != 4 && bits != 8)
+            throw new IllegalArgumentException("Signature values can be packed into 1, 2, 4 or 8 bits, but not into " + bits + " bits.");
+
+        this.localitySensitiveHashing = localitySensitiveHashing;
+        this.numHashFunctions = localitySensitiveHashing.getNumHashFunctions();
+        this.bits = bits;
+        this.numWords = (this.numHashFunctions * bits + Long.SIZE - 1) / Long.SIZE;
+        this.collisionProbability = 1.0 / (1 << bits);
+    }
+
+    /**
+     * Adds the signature of the provided value to the store.
+     * @param value The value whose signature should be stored.
+     * @return The id of the signature.
+     */
+    public int add(String value) {
+        return this.add(this.localitySensitiveHashing.computeSignature(value));
+    }
+
+    /**
+     * Adds a signature to the store.
+     * @param signature The MinHash signature of a value.
+     * @return The id of the signature.
+     */
+    public int add(long[] signature) {
+        int id = this.size();
+        this.words.addElements(this.words.size(), this.pack(signature));
+        return id;
+    }
+
+    public int size() {
+        return this.words.size() / this.numWords;
+    }
+
+    /**
+     * Returns the number of bytes that the packed signatures occupy.
+     * @return The size of the packed signatures in bytes.
+     */
+    public long getNumBytes() {
+        return (long) this.words.size() * Long.BYTES;
+    }
+
+    /**
+     * Packs the lowest bits of every signature value into longs, the value i into the slot i % (64 / b) of word
+     * i / (64 / b). The values are mixed first, because the lowest bits of a universal hash a * x + b depend only on
+     * the lowest bits of x.
+     * @param signature The MinHash signature of a value.
+     * @return The packed signature.
+     */
+    public long[] pack(long[] signature) {
+        if (signature.length != this.numHashFunctions)
+            throw new IllegalArgumentException("The store holds signatures of " + this.numHashFunctions + " values, but the signature has " + signature.length + " values.");
+
+        long[] packed = new long[this.numWords];
+        int slotsPerWord = Long.SIZE / this.bits;
+        long mask = (1L << this.bits) - 1;
+        for (int i = 0; i < signature.length; i++)
+            packed[i / slotsPerWord] |= (Hashing.mix64(signature[i]) & mask) << (i % slotsPerWord * this.bits);
+        return packed;
+    }
+
+    /**
+     * Counts the signature values whose lowest bits agree in the two stored signatures.
+     * @param id1 The id of the first signature.
+     * @param id2 The id of the second signature.
+     * @return The number of agreeing signature values.
+     */
+    public int countMatches(int id1, int id2) {
+        long[] elements = this.words.elements();
+        int mismatches = 0;
+        for (int w = 0; w < this.numWords; w++)
+            mismatches += Long.bitCount(this.fold(elements[id1 * this.numWords + w] ^ elements[id2 * this.numWords + w]));
+        // The unused slots of the last word are zero in both signatures and never count as mismatches
+        return this.numHashFunctions - mismatches;
+    }
+
+    /**
+     * Counts the signature values whose lowest bits agree in a stored and a packed signature.
+     * @param id The id of the stored signature.
+     * @param packed The packed signature, see pack().
+     * @return The number of agreeing signature values.
+     */
+    public int countMatches(int id, long[] packed) {
+        long[] elements = this.words.elements();
+        int mismatches = 0;
+        for (int w = 0; w < this.numWords; w++)
+            mismatches += Long.bitCount(this.fold(elements[id * this.numWords + w] ^ packed[w]));
+        return this.numHashFunctions - mismatches;
+    }
+
+    // Sets the lowest bit of every slot if any bit of the slot is set and clears all other bits
+    private long fold(long x) {
+        switch (this.bits) {
+            case 1:
+                return x;
+            case 2:
+                return (x | x >>> 1) & 0x5555555555555555L;
+            case 4:
+                x |= x >>> 1;
+                return (x | x >>> 2) & 0x1111111111111111L;
+            default:
+                x |= x >>> 1;
+                x |= x >>> 2;
+                return (x | x >>> 4) & 0x0101010101010101L;
+        }
+    }
+
+    /**
+     * Estimates the Jaccard similarity of the token sets of two stored signatures; the chance agreements of the
+     * b-bit values are corrected, see the class description.
+     * @param id1 The id of the first signature.
+     * @param id2 The id of the second signature.
+     * @return The estimated Jaccard similarity.
+     */
+    public double estimateJaccard(int id1, int id2) {
+        return this.correct(this.countMatches(id1, id2));
+    }
+
+    public double estimateJaccard(int id, long[] packed) {
+        return this.correct(this.countMatches(id, packed));
+    }
+
+    /**
+     * Estimates the similarity of two stored signatures like LocalitySensitiveHashing#calculate(), i.e., with the
+     * multiset Jaccard similarity for bag semantics.
+     * @param id1 The id of the first signature.
+     * @param id2 The id of the second signature.
+     * @return The estimated LSH similarity.
+     */
+    public double similarity(int id1, int id2) {
+        double jaccardSimilarity = this.estimateJaccard(id1, id2);
+        // The multiset Jaccard similarity |A ∩ B| / (|A| + |B|) equals J / (1 + J) for J = |A ∩ B| / |A ∪ B|
+        return this.localitySensitiveHashing.isBagSemantics() ? jaccardSimilarity / (1 + jaccardSimilarity) : jaccardSimilarity;
+    }
+
+    private double correct(int matches) {
+        double agreement = (double) matches / this.numHashFunctions;
+        double jaccardSimilarity = (agreement - this.collisionProbability) / (1 - this.collisionProbability);
+        return Math.max(0, jaccardSimilarity);
+    }
+}
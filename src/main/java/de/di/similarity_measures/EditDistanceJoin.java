@@ -0,0 +1,191 @@
+package de.di.similarity_measures;
+
+import de.di.similarity_measures.helper.Hashing;
+import de.di.similarity_measures.structures.SimilarPair;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An EditDistanceJoin finds all pairs of values whose (Damerau) Levenshtein distance is at most maxDistance without
+ * comparing all pairs. It follows the partition-based PassJoin algorithm of Li et al.: every value is cut into
+ * maxDistance + 1 segments, and because a single edit destroys at most one segment, two values within the distance
+ * share at least one segment, which must also lie at most maxDistance positions away from its original position. A
+ * transposition of two characters on both sides of a segment border destroys two segments, so the Damerau variant
+ * cuts the values into 2 * maxDistance + 1 segments. The values are processed by increasing length; every value first
+ * looks up the substrings that can match a segment of the shorter values in the other input's index and then adds its
+ * own segments to the index of its input. The candidates are verified with the bounded Levenshtein#distance(), so the
+ * result is exact.
+ */
+public class EditDistanceJoin {
+
+    // The largest edit distance of a reported pair.
+    private final int maxDistance;
+
+    // The choice of whether Levenshtein or DamerauLevenshtein distances should be calculated.
+    private final boolean withDamerau;
+
+    // The number of segments per value.
+    private final int numSegments;
+
+    public EditDistanceJoin(int maxDistance, boolean withDamerau) {
+        if (maxDistance < 0)
+            throw new IllegalArgumentException("The maximum edit distance must not be negative, but it is " + maxDistance + ".");
+
+        this.maxDistance = maxDistance;
+        this.withDamerau = withDamerau;
+        this.numSegments = withDamerau ? 2 * maxDistance + 1 : maxDistance + 1;
+    }
+
+    /**
+     * Finds all pairs of the provided values whose edit distance is at most maxDistance.
+     * @param values The values that should be joined with themselves.
+     * @return The pairs with index1 < index2 and their Levenshtein similarity, ordered by index1 and then index2.
+     */
+    public List<SimilarPair> selfJoin(String[] values) {
+        return this.join(new String[][]{values}, true);
+    }
+
+    /**
+     * Finds all pairs of a value from the first and a value from the second input whose edit distance is at most
+     * maxDistance.
+     * @param values1 The first values.
+     * @param values2 The second values.
+     * @return The pairs with index1 in values1 and index2 in values2 and their Levenshtein similarity, ordered by
+     *         index1 and then index2.
+     */
+    public List<SimilarPair> join(String[] values1, String[] values2) {
+        return this.join(new String[][]{values1, values2}, false);
+    }
+
+    private List<SimilarPair> join(String[][] inputs, boolean selfJoin) {
+        List<EditRecord> order = new ArrayList<>();
+        for (int input = 0; input < inputs.length; input++)
+            for (int index = 0; index < inputs[input].length; index++)
+                order.add(new EditRecord(input, index, (inputs[input][index] == null) ? new char[0] : inputs[input][index].toCharArray()));
+        order.sort(Comparator.comparingInt((EditRecord record) -> record.chars.length).thenComparingInt(record -> record.input).thenComparingInt(record -> record.index));
+
+        SegmentIndex[] indexes = new SegmentIndex[inputs.length];
+        for (int i = 0; i < inputs.length; i++)
+            indexes[i] = new SegmentIndex();
+
+        List<SimilarPair> pairs = new ArrayList<>();
+        // The position of the value that most recently found a record as candidate, so that it is verified only once
+        int[] lastProbes = new int[order.size()];
+        Arrays.fill(lastProbes, -1);
+        for (int position = 0; position < order.size(); position++) {
+            EditRecord x = order.get(position);
+            SegmentIndex probed = indexes[selfJoin ? 0 : 1 - x.input];
+            int length = x.chars.length;
+
+            IntArrayList candidates = new IntArrayList();
+            for (int k = probed.shortRecords.size() - 1; k >= 0; k--) {
+                int y = probed.shortRecords.getInt(k);
+                if (length - order.get(y).chars.length > this.maxDistance)
+                    break;
+                candidates.add(y);
+                lastProbes[y] = position;
+            }
+            for (int otherLength = Math.max(this.numSegments, length - this.maxDistance); otherLength <= length; otherLength++) {
+                for (int segment = 0; segment < this.numSegments; segment++) {
+                    int segmentStart = this.segmentStart(otherLength, segment);
+                    int segmentLength = this.segmentStart(otherLength, segment + 1) - segmentStart;
+                    int from = Math.max(0, segmentStart - this.maxDistance);
+                    int to = Math.min(length - segmentLength, segmentStart + this.maxDistance);
+                    for (int start = from; start <= to; start++) {
+                        IntArrayList records = probed.segments.get(segmentKey(otherLength, segment, x.chars, start, segmentLength));
+                        if (records == null)
+                            continue;
+                        for (int k = 0; k < records.size(); k++) {
+                            int y = records.getInt(k);
+                            if (lastProbes[y] != position) {
+                                lastProbes[y] = position;
+                                candidates.add(y);
+                            }
+                        }
+                    }
+                }
+            }
+
+            for (int c = 0; c < candidates.size(); c++) {
+                EditRecord y = order.get(candidates.getInt(c));
+                int distance = Levenshtein.distance(x.chars, y.chars, this.withDamerau, this.maxDistance);
+                if (distance <= this.maxDistance)
+                    pairs.add(toPair(x, y, similarity(distance, x.chars.length, y.chars.length), selfJoin));
+            }
+
+            SegmentIndex own = indexes[selfJoin ? 0 : x.input];
+            if (length < this.numSegments) {
+                own.shortRecords.add(position);
+                continue;
+            }
+            for (int segment = 0; segment < this.numSegments; segment++) {
+                int segmentStart = this.segmentStart(length, segment);
+                int segmentLength = this.segmentStart(length, segment + 1) - segmentStart;
+                own.segments.computeIfAbsent(segmentKey(length, segment, x.chars, segmentStart, segmentLength), key -> new IntArrayList()).add(position);
+            }
+        }
+
+        pairs.sort(Comparator.comparingInt(SimilarPair::getIndex1).thenComparingInt(SimilarPair::getIndex2));
+        return pairs;
+    }
+
+    // Returns the start of a segment of a value with the provided length; the last length % numSegments segments are
+    // one character longer than the others
+    private int segmentStart(int length, int segment) {
+        int shortLength = length / this.numSegments;
+        int numShortSegments = this.numSegments - length % this.numSegments;
+        return segment * shortLength + Math.max(0, segment - numShortSegments);
+    }
+
+    // Hashes the characters of a segment together with the value length and the segment number; a collision only adds
+    // a candidate that the verification rejects
+    private static long segmentKey(int length, int segment, char[] chars, int start, int segmentLength) {
+        long hash = Hashing.mix64(((long) length << 32) | segment);
+        for (int i = start; i < start + segmentLength; i++)
+            hash = (hash ^ chars[i]) * 0x9e3779b97f4a7c15L;
+        return Hashing.mix64(hash);
+    }
+
+    // The Levenshtein similarity, i.e., 1 - distance / max(length1, length2)
+    private static double similarity(int distance, int length1, int length2) {
+        int maxLength = Math.max(length1, length2);
+        return (maxLength == 0) ? 1.0 : 1 - (double) distance / maxLength;
+    }
+
+    private static SimilarPair toPair(EditRecord x, EditRecord y, double similarity, boolean selfJoin) {
+        if (selfJoin)
+            return new SimilarPair(Math.min(x.index, y.index), Math.max(x.index, y.index), similarity);
+        return (x.input == 0) ? new SimilarPair(x.index, y.index, similarity) : new SimilarPair(y.index, x.index, similarity);
+    }
+
+    /**
+     * An EditRecord is a value of one input.
+     */
+    private static final class EditRecord {
+
+        private final int input;
+        private final int index;
+        private final char[] chars;
+
+        private EditRecord(int input, int index, char[] chars) {
+            this.input = input;
+            this.index = index;
+            this.chars = chars;
+        }
+    }
+
+    /**
+     * The SegmentIndex maps the segment keys of one input to the processing positions of the values that contain
+     * them; values that are shorter than the number of segments have empty segments and are kept in a list instead.
+     */
+    private static final class SegmentIndex {
+
+        private final Long2ObjectOpenHashMap<IntArrayList> segments = new Long2ObjectOpenHashMap<>();
+        private final IntArrayList shortRecords = new IntArrayList();
+    }
+}
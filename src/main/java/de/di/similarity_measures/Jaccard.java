@@ -12,6 +12,9 @@ import java.util.stream.Stream;
 @AllArgsConstructor
 public class Jaccard implements SimilarityMeasure {
 
+    // The token buffers of the hashed tokenization and of sorting, which every thread reuses for all of its calculations
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
     // The tokenizer that is used to transform string inputs into token lists.
     private final Tokenizer tokenizer;
 
@@ -21,7 +24,8 @@ public class Jaccard implements SimilarityMeasure {
     /**
      * Calculates the Jaccard similarity of the two input strings. Note that the Jaccard similarity may use set or
      * multiset, i.e., bag semantics for the union and intersect operations. The maximum Jaccard similarity with
-     * multiset semantics is 1/2 and the maximum Jaccard similarity with set semantics is 1.
+     * multiset semantics is 1/2 and the maximum Jaccard similarity with set semantics is 1. The strings are
+     * tokenized into hash codes, so no token strings are created.
      * @param string1 The first string argument for the similarity calculation.
      * @param string2 The second string argument for the similarity calculation.
      * @return The multiset Jaccard similarity of the two arguments.
@@ -31,16 +35,173 @@ public class Jaccard implements SimilarityMeasure {
         string1 = (string1 == null) ? "" : string1;
         string2 = (string2 == null) ? "" : string2;
 
-        String[] strings1 = this.tokenizer.tokenize(string1);
-        String[] strings2 = this.tokenizer.tokenize(string2);
+        Buffers buffers = BUFFERS.get();
+        long[] tokens1 = buffers.longs1(this.tokenizer.numTokens(string1));
+        long[] tokens2 = buffers.longs2(this.tokenizer.numTokens(string2));
+        int numTokens1 = this.tokenizer.tokenize(string1, tokens1);
+        int numTokens2 = this.tokenizer.tokenize(string2, tokens2);
+        Arrays.sort(tokens1, 0, numTokens1);
+        Arrays.sort(tokens2, 0, numTokens2);
+
+        return this.calculateSorted(tokens1, numTokens1, tokens2, numTokens2);
+    }
+
+    /**
+     * Prepares the input string for repeated comparisons; its profile is the sorted array of its token hashes.
+     * @param string The string argument that should be prepared.
+     * @return The sorted token hashes of the argument.
+     */
+    @Override
+    public Object prepare(String string) {
+        string = (string == null) ? "" : string;
+        long[] tokens = new long[this.tokenizer.numTokens(string)];
+        this.tokenizer.tokenize(string, tokens);
+        Arrays.sort(tokens);
+        return tokens;
+    }
 
-        return this.calculate(strings1, strings2);
+    /**
+     * Calculates the Jaccard similarity of two values from their sorted token hashes; the Jaccard similarity has no
+     * shortcut for a bound, so the result is always exact.
+     * @param profile1 The profile of the first value.
+     * @param profile2 The profile of the second value.
+     * @param minSimilarity The smallest similarity that the caller is interested in.
+     * @return The (multiset) Jaccard similarity of the two values.
+     */
+    @Override
+    public double compareProfiles(Object profile1, Object profile2, double minSimilarity) {
+        long[] tokens1 = (long[]) profile1;
+        long[] tokens2 = (long[]) profile2;
+        return this.calculateSorted(tokens1, tokens1.length, tokens2, tokens2.length);
+    }
+
+    /**
+     * Calculates the Jaccard similarity of two token lists that are given as 64-bit token hashes, e.g., of
+     * Tokenizer#tokenize(String, long[]), with the same semantics as calculate(String[], String[]). The buffers are
+     * not modified; the tokens are sorted in thread-local copies.
+     * @param tokens1 The buffer of the first token list.
+     * @param numTokens1 The number of tokens in the first buffer.
+     * @param tokens2 The buffer of the second token list.
+     * @param numTokens2 The number of tokens in the second buffer.
+     * @return The (multiset) Jaccard similarity of the two token lists.
+     */
+    public double calculate(long[] tokens1, int numTokens1, long[] tokens2, int numTokens2) {
+        Buffers buffers = BUFFERS.get();
+        long[] sortedTokens1 = buffers.longs1(numTokens1);
+        long[] sortedTokens2 = buffers.longs2(numTokens2);
+        System.arraycopy(tokens1, 0, sortedTokens1, 0, numTokens1);
+        System.arraycopy(tokens2, 0, sortedTokens2, 0, numTokens2);
+        Arrays.sort(sortedTokens1, 0, numTokens1);
+        Arrays.sort(sortedTokens2, 0, numTokens2);
+        return this.calculateSorted(sortedTokens1, numTokens1, sortedTokens2, numTokens2);
+    }
+
+    /**
+     * Calculates the Jaccard similarity of two token lists whose 64-bit token hashes are sorted in ascending order.
+     * A single merge of the two lists visits every run of equal tokens once and counts the intersection and the
+     * distinct tokens on the way, so the calculation allocates nothing and reads both lists only once.
+     * @param sortedTokens1 The sorted buffer of the first token list.
+     * @param numTokens1 The number of tokens in the first buffer.
+     * @param sortedTokens2 The sorted buffer of the second token list.
+     * @param numTokens2 The number of tokens in the second buffer.
+     * @return The (multiset) Jaccard similarity of the two token lists.
+     */
+    public double calculateSorted(long[] sortedTokens1, int numTokens1, long[] sortedTokens2, int numTokens2) {
+        int i = 0;
+        int j = 0;
+        int numDistinctTokens = 0;
+        int bagIntersection = 0;
+        int setIntersection = 0;
+        while (i < numTokens1 || j < numTokens2) {
+            numDistinctTokens++;
+            if (j == numTokens2 || (i < numTokens1 && sortedTokens1[i] < sortedTokens2[j])) {
+                long token = sortedTokens1[i];
+                while (i < numTokens1 && sortedTokens1[i] == token)
+                    i++;
+            } else if (i == numTokens1 || sortedTokens2[j] < sortedTokens1[i]) {
+                long token = sortedTokens2[j];
+                while (j < numTokens2 && sortedTokens2[j] == token)
+                    j++;
+            } else {
+                long token = sortedTokens1[i];
+                int count1 = 0;
+                int count2 = 0;
+                for (; i < numTokens1 && sortedTokens1[i] == token; i++)
+                    count1++;
+                for (; j < numTokens2 && sortedTokens2[j] == token; j++)
+                    count2++;
+                bagIntersection += Math.min(count1, count2);
+                setIntersection++;
+            }
+        }
+        return this.toSimilarity(numTokens1 + numTokens2, numDistinctTokens, bagIntersection, setIntersection);
+    }
+
+    /**
+     * Calculates the Jaccard similarity of two token lists that are given as 32-bit token hashes, e.g., of
+     * Tokenizer#tokenize(String, int[]); see calculate(long[], int, long[], int).
+     * @param tokens1 The buffer of the first token list.
+     * @param numTokens1 The number of tokens in the first buffer.
+     * @param tokens2 The buffer of the second token list.
+     * @param numTokens2 The number of tokens in the second buffer.
+     * @return The (multiset) Jaccard similarity of the two token lists.
+     */
+    public double calculate(int[] tokens1, int numTokens1, int[] tokens2, int numTokens2) {
+        Buffers buffers = BUFFERS.get();
+        int[] sortedTokens1 = buffers.ints1(numTokens1);
+        int[] sortedTokens2 = buffers.ints2(numTokens2);
+        System.arraycopy(tokens1, 0, sortedTokens1, 0, numTokens1);
+        System.arraycopy(tokens2, 0, sortedTokens2, 0, numTokens2);
+        Arrays.sort(sortedTokens1, 0, numTokens1);
+        Arrays.sort(sortedTokens2, 0, numTokens2);
+        return this.calculateSorted(sortedTokens1, numTokens1, sortedTokens2, numTokens2);
+    }
+
+    /**
+     * Calculates the Jaccard similarity of two token lists whose 32-bit token hashes are sorted in ascending order;
+     * see calculateSorted(long[], int, long[], int).
+     * @param sortedTokens1 The sorted buffer of the first token list.
+     * @param numTokens1 The number of tokens in the first buffer.
+     * @param sortedTokens2 The sorted buffer of the second token list.
+     * @param numTokens2 The number of tokens in the second buffer.
+     * @return The (multiset) Jaccard similarity of the two token lists.
+     */
+    public double calculateSorted(int[] sortedTokens1, int numTokens1, int[] sortedTokens2, int numTokens2) {
+        int i = 0;
+        int j = 0;
+        int numDistinctTokens = 0;
+        int bagIntersection = 0;
+        int setIntersection = 0;
+        while (i < numTokens1 || j < numTokens2) {
+            numDistinctTokens++;
+            if (j == numTokens2 || (i < numTokens1 && sortedTokens1[i] < sortedTokens2[j])) {
+                int token = sortedTokens1[i];
+                while (i < numTokens1 && sortedTokens1[i] == token)
+                    i++;
+            } else if (i == numTokens1 || sortedTokens2[j] < sortedTokens1[i]) {
+                int token = sortedTokens2[j];
+                while (j < numTokens2 && sortedTokens2[j] == token)
+                    j++;
+            } else {
+                int token = sortedTokens1[i];
+                int count1 = 0;
+                int count2 = 0;
+                for (; i < numTokens1 && sortedTokens1[i] == token; i++)
+                    count1++;
+                for (; j < numTokens2 && sortedTokens2[j] == token; j++)
+                    count2++;
+                bagIntersection += Math.min(count1, count2);
+                setIntersection++;
+            }
+        }
+        return this.toSimilarity(numTokens1 + numTokens2, numDistinctTokens, bagIntersection, setIntersection);
     }
 
     /**
      * Calculates the Jaccard similarity of the two string lists. Note that the Jaccard similarity may use set or
      * multiset, i.e., bag semantics for the union and intersect operations. The maximum Jaccard similarity with
-     * multiset semantics is 1/2 and the maximum Jaccard similarity with set semantics is 1.
+     * multiset semantics is 1/2 and the maximum Jaccard similarity with set semantics is 1. The arguments are not
+     * modified, so they can be shared between threads.
      * @param strings1 The first string list argument for the similarity calculation.
      * @param strings2 The second string list argument for the similarity calculation.
      * @return The multiset Jaccard similarity of the two arguments.
@@ -59,56 +220,78 @@ public class Jaccard implements SimilarityMeasure {
         //  Note : bag semantics - don't remove duplicates from neither the union nor intersection
         //         set semantics - remove duplicates from both union and intersection
 
-        double jaccardSimilarity = 0;
-        Arrays.sort(strings1);
-        Arrays.sort(strings2);
+        // Sorted copies line up equal tokens, so one merge counts both intersections and all distinct tokens
+        String[] sortedStrings1 = strings1.clone();
+        String[] sortedStrings2 = strings2.clone();
+        Arrays.sort(sortedStrings1);
+        Arrays.sort(sortedStrings2);
+
+        int i = 0;
+        int j = 0;
+        int numDistinctTokens = 0;
+        int bagIntersection = 0;
+        int setIntersection = 0;
+        while (i < sortedStrings1.length || j < sortedStrings2.length) {
+            numDistinctTokens++;
+            int comparison = (i == sortedStrings1.length) ? 1 : (j == sortedStrings2.length) ? -1 : sortedStrings1[i].compareTo(sortedStrings2[j]);
+            String token = (comparison <= 0) ? sortedStrings1[i] : sortedStrings2[j];
+            int count1 = 0;
+            int count2 = 0;
+            if (comparison <= 0)
+                for (; i < sortedStrings1.length && sortedStrings1[i].equals(token); i++)
+                    count1++;
+            if (comparison >= 0)
+                for (; j < sortedStrings2.length && sortedStrings2[j].equals(token); j++)
+                    count2++;
+            if (comparison == 0) {
+                bagIntersection += Math.min(count1, count2);
+                setIntersection++;
+            }
+        }
+        return this.toSimilarity(sortedStrings1.length + sortedStrings2.length, numDistinctTokens, bagIntersection, setIntersection);
+    }
 
-        if (bagSemantics) {
-            ArrayList<String> intersection = getIntersection(strings1, strings2);
-            jaccardSimilarity = (double) intersection.size() / (strings1.length + strings2.length);
-        } else {
-            Set<String> set1 = new HashSet<>(Arrays.asList(strings1));
-            Set<String> set2 = new HashSet<>(Arrays.asList(strings2));
+    // Bag semantics divide the multiset intersection by the sum of both list sizes, set semantics the number of shared
+    // distinct tokens by the number of all distinct tokens
+    private double toSimilarity(int numTokens, int numDistinctTokens, int bagIntersection, int setIntersection) {
+        double jaccardSimilarity = this.bagSemantics ?
+                (double) bagIntersection / numTokens :
+                (double) setIntersection / numDistinctTokens;
+        return Math.abs(jaccardSimilarity);
+    }
 
-            // intersection without duplicates
-            Set<String> intersection = new HashSet<>(set1);
-            intersection.retainAll(set2);
+    /**
+     * The Buffers hold the token lists of one thread; every buffer grows to the longest token list seen so far.
+     */
+    private static final class Buffers {
 
-            // union of unique elements
-            Set<String> union = new HashSet<>(set1);
-            union.addAll(set2);
+        private long[] longs1 = new long[64];
+        private long[] longs2 = new long[64];
+        private int[] ints1 = new int[64];
+        private int[] ints2 = new int[64];
 
-            jaccardSimilarity = (double) intersection.size() / union.size();
+        private long[] longs1(int length) {
+            if (this.longs1.length < length)
+                this.longs1 = new long[Math.max(length, 2 * this.longs1.length)];
+            return this.longs1;
         }
-        return Math.abs(jaccardSimilarity);
-    }
 
-    private ArrayList<String> getIntersection(String[] strings1, String[] strings2) {
-        Map<String, Integer> countElem1 = getElementCountMap(strings1);
-        Map<String, Integer> countElem2 = getElementCountMap(strings2);
-        ArrayList<String> intersection = new ArrayList<>();
+        private long[] longs2(int length) {
+            if (this.longs2.length < length)
+                this.longs2 = new long[Math.max(length, 2 * this.longs2.length)];
+            return this.longs2;
+        }
 
-        // creating intersection array with duplicate elements
-        for (Map.Entry<String, Integer> entry : countElem1.entrySet()) {
-            String key = entry.getKey();
-            if (!countElem2.containsKey(key)) {
-                continue;
-            }
-            int occurrence = Math.min(entry.getValue(), countElem2.get(key));
-            while(occurrence > 0) {
-                intersection.add(key);
-                --occurrence;
-            }
+        private int[] ints1(int length) {
+            if (this.ints1.length < length)
+                this.ints1 = new int[Math.max(length, 2 * this.ints1.length)];
+            return this.ints1;
         }
-        return intersection;
-    }
 
-    // counting occurrences of each element in strings array
-    private Map<String, Integer> getElementCountMap(String[] strings) {
-        Map<String, Integer> countElem = new HashMap<>();
-        for (String token : strings) {
-            countElem.put(token, countElem.containsKey(token) ? countElem.get(token) + 1 : 1);
+        private int[] ints2(int length) {
+            if (this.ints2.length < length)
+                this.ints2 = new int[Math.max(length, 2 * this.ints2.length)];
+            return this.ints2;
         }
-        return countElem;
     }
 }
@@ -1,5 +1,6 @@
 package de.di.similarity_measures;
 
+import it.unimi.dsi.fastutil.chars.Char2IntOpenHashMap;
 import lombok.AllArgsConstructor;
 
 import java.util.Arrays;
@@ -8,9 +9,18 @@ import java.util.Arrays;
 public class Levenshtein implements SimilarityMeasure {
 
     public static int min(int... numbers) {
-        return Arrays.stream(numbers).min().orElse(Integer.MAX_VALUE);
+        int min = Integer.MAX_VALUE;
+        for (int number : numbers)
+            min = Math.min(min, number);
+        return min;
     }
 
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    // The band of the bounded distance calculation is used for long strings whose bound allows fewer than one edit
+    // per this number of pattern characters; a band cell costs about as much as two bit-parallel 64-row words
+    private static final int BAND_CELLS_PER_BLOCK = 128;
+
     // The choice of whether Levenshtein or DamerauLevenshtein should be calculated.
     private final boolean withDamerau;
 
@@ -32,55 +42,428 @@ public class Levenshtein implements SimilarityMeasure {
         //                                                                                                            //
         ////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
-        double levenshteinSimilarity = 0;
-        double levenshteinDistance = 0;
         int len1 = string1.length();
         int len2 = string2.length();
         double originalLength = Math.max(len1, len2);
 
-        String str1 = string1;
-        String str2 = string2;
-
         // Handle edge cases where one or both strings are empty
         if (len1 == 0 && len2 == 0) {
             return 1.0;
         } else if (len1 == 0 || len2 == 0) {
             return 0;
-        } else if (string1.charAt(len1 - 1) == string2.charAt(len2 - 1)) {
-            str1 = string1.substring(0, len1 - 1);
-            str2 = string2.substring(0, len2 - 1);
-            --len1;
-            --len2;
-        }
-
-        int[] upperupperLine = new int[len1 + 1];   // line for Demarau lookups
-        int[] upperLine = new int[len1 + 1];        // line for regular Levenshtein lookups
-        int[] lowerLine = new int[len1 + 1];        // line to be filled next by the algorithm
-
-        // Fill the first line with the initial positions (= edits to generate string1 from nothing)
-        for (int i = 0; i <= len1; i++) {
-            upperLine[i] = i;
-        }
-        for (int j = 1; j <= len2; j++ ) {
-            lowerLine[0] = j;
-            for (int i = 1; i <= len1; i++) {
-                if (str1.charAt(i - 1) == str2.charAt(j - 1)) {
-                    lowerLine[i] = upperLine[i - 1];
-                } else {
-                    int calcVal = Math.min(Math.min(lowerLine[i - 1], upperLine[i]), upperLine[i - 1]);
-                    if (withDamerau && i > 1 && j > 1 && str1.charAt(i - 2) == str2.charAt(j - 1) && str1.charAt(i - 1) == str2.charAt(j - 2)) {
-                        calcVal = Math.min(upperupperLine[i - 2], calcVal);
-                    }
-                    lowerLine[i] = ++calcVal;
+        }
+
+        double levenshteinDistance = distance(string1, string2, this.withDamerau);
+        return 1 - (levenshteinDistance / originalLength);
+    }
+
+    /**
+     * Calculates the Levenshtein similarity of the two input strings, if it is at least minSimilarity. The bound
+     * limits the edit distance to at most (1 - minSimilarity) * max(|string1|, |string2|) edits, which rejects pairs
+     * with very different lengths right away and lets the distance calculation stop as soon as the bound is exceeded.
+     * @param string1 The first string argument for the similarity calculation.
+     * @param string2 The second string argument for the similarity calculation.
+     * @param minSimilarity The smallest similarity that the caller is interested in.
+     * @return The (Damerau) Levenshtein similarity of the two arguments or 0, if it is smaller than minSimilarity.
+     */
+    @Override
+    public double calculate(final String string1, final String string2, final double minSimilarity) {
+        int len1 = string1.length();
+        int len2 = string2.length();
+        int maxDistance = maxDistance(len1, len2, minSimilarity);
+        if (maxDistance < 0)
+            return 0;
+        return similarity(distance(string1, string2, this.withDamerau, maxDistance), len1, len2, maxDistance);
+    }
+
+    /**
+     * Prepares the input string for repeated comparisons; its profile is its character array.
+     * @param string The string argument that should be prepared.
+     * @return The characters of the argument.
+     */
+    @Override
+    public Object prepare(final String string) {
+        return string.toCharArray();
+    }
+
+    @Override
+    public double compareProfiles(final Object profile1, final Object profile2, final double minSimilarity) {
+        char[] chars1 = (char[]) profile1;
+        char[] chars2 = (char[]) profile2;
+        int maxDistance = maxDistance(chars1.length, chars2.length, minSimilarity);
+        if (maxDistance < 0)
+            return 0;
+        return similarity(distance(chars1, chars2, this.withDamerau, maxDistance), chars1.length, chars2.length, maxDistance);
+    }
+
+    // Returns the largest distance of two strings of the provided lengths whose similarity is at least minSimilarity;
+    // an unbounded distance if the bound does not help and a negative one if no similarity reaches the bound
+    private static int maxDistance(int len1, int len2, double minSimilarity) {
+        if (minSimilarity <= 0 || len1 == 0 || len2 == 0)
+            return Integer.MAX_VALUE;
+        // The tolerance keeps rounding errors from rejecting a pair whose similarity is exactly minSimilarity
+        return (int) Math.floor((1 - minSimilarity) * Math.max(len1, len2) + 1e-9);
+    }
+
+    private static double similarity(int distance, int len1, int len2, int maxDistance) {
+        if (len1 == 0 && len2 == 0)
+            return 1.0;
+        if (len1 == 0 || len2 == 0)
+            return 0;
+        double originalLength = Math.max(len1, len2);
+        return (distance <= maxDistance) ? 1 - (distance / originalLength) : 0;
+    }
+
+    /**
+     * Calculates the Levenshtein distance or, with the Damerau extension, the optimal string alignment distance of
+     * the two input strings. Both are calculated with the bit-parallel algorithm of Myers in the formulation of Hyyrö,
+     * which simulates the columns of the dynamic programming matrix as bit vectors: the shorter string is the pattern
+     * whose characters are the rows, and every character of the longer string advances all rows of one column with a
+     * handful of word operations. Patterns of up to 64 characters fit into a single long; longer patterns are split
+     * into blocks of 64 rows that pass their carries on to the next block.
+     * @param string1 The first string.
+     * @param string2 The second string.
+     * @param withDamerau Whether the transposition of two adjacent characters counts as one edit.
+     * @return The (Damerau) Levenshtein distance of the two strings.
+     */
+    public static int distance(final String string1, final String string2, final boolean withDamerau) {
+        return distance(string1, string2, withDamerau, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Calculates the (Damerau) Levenshtein distance of the two input strings, if it is at most maxDistance. Strings
+     * whose lengths differ by more than maxDistance are rejected without any calculation. Otherwise, the calculation
+     * stops as soon as the distance can no longer drop to maxDistance: the bit-parallel algorithm stops once the
+     * remaining characters can not bring the distance of its last row down to the bound, and long strings with a
+     * small bound are compared with a dynamic program that fills only the band of the 2 * maxDistance + 1 diagonals
+     * around the main diagonal and stops at the first row of this band whose cells all exceed the bound.
+     * @param string1 The first string.
+     * @param string2 The second string.
+     * @param withDamerau Whether the transposition of two adjacent characters counts as one edit.
+     * @param maxDistance The largest distance that the caller is interested in.
+     * @return The (Damerau) Levenshtein distance of the two strings or maxDistance + 1, if it exceeds maxDistance.
+     */
+    public static int distance(final String string1, final String string2, final boolean withDamerau, final int maxDistance) {
+        int len1 = string1.length();
+        int len2 = string2.length();
+        if (Math.abs(len1 - len2) > maxDistance)
+            return maxDistance + 1;
+
+        // Copying both strings into the scratch buffers is cheaper than bounds- and coder-checked charAt calls
+        Scratch scratch = SCRATCH.get();
+        char[] chars1 = scratch.chars1(len1);
+        char[] chars2 = scratch.chars2(len2);
+        string1.getChars(0, len1, chars1, 0);
+        string2.getChars(0, len2, chars2, 0);
+        return distance(chars1, len1, chars2, len2, withDamerau, maxDistance, scratch);
+    }
+
+    /**
+     * Calculates the (Damerau) Levenshtein distance of the two input character arrays, if it is at most maxDistance;
+     * see distance(String, String, boolean, int).
+     * @param chars1 The characters of the first string.
+     * @param chars2 The characters of the second string.
+     * @param withDamerau Whether the transposition of two adjacent characters counts as one edit.
+     * @param maxDistance The largest distance that the caller is interested in.
+     * @return The (Damerau) Levenshtein distance of the two strings or maxDistance + 1, if it exceeds maxDistance.
+     */
+    public static int distance(final char[] chars1, final char[] chars2, final boolean withDamerau, final int maxDistance) {
+        return distance(chars1, chars1.length, chars2, chars2.length, withDamerau, maxDistance, SCRATCH.get());
+    }
+
+    private static int distance(char[] chars1, int len1, char[] chars2, int len2, boolean withDamerau, int maxDistance, Scratch scratch) {
+        if (Math.abs(len1 - len2) > maxDistance)
+            return maxDistance + 1;
+
+        // A common prefix and suffix never needs an edit, so they are skipped
+        int start = 0;
+        int end1 = len1;
+        int end2 = len2;
+        while (start < end1 && start < end2 && chars1[start] == chars2[start])
+            start++;
+        while (end1 > start && end2 > start && chars1[end1 - 1] == chars2[end2 - 1]) {
+            end1--;
+            end2--;
+        }
+
+        if (end1 == start || end2 == start)
+            return Math.max(end1, end2) - start;
+
+        // Both distances are symmetric, so the shorter string can always be the pattern
+        if (end1 <= end2)
+            return boundedDistance(chars1, chars2, start, end1, end2, withDamerau, maxDistance, scratch);
+        return boundedDistance(chars2, chars1, start, end2, end1, withDamerau, maxDistance, scratch);
+    }
+
+    private static int boundedDistance(char[] pattern, char[] text, int start, int patternEnd, int textEnd, boolean withDamerau, int maxDistance, Scratch scratch) {
+        int length = patternEnd - start;
+        // The band costs one cell per diagonal and text character, the bit-parallel blocks a few operations per 64 rows
+        if (length > 64 && maxDistance < length / BAND_CELLS_PER_BLOCK)
+            return bandedDistance(pattern, text, start, patternEnd, textEnd, withDamerau, maxDistance, scratch);
+        return bitParallelDistance(pattern, text, start, patternEnd, textEnd, withDamerau, maxDistance, scratch);
+    }
+
+    private static int bandedDistance(char[] pattern, char[] text, int start, int patternEnd, int textEnd, boolean withDamerau, int maxDistance, Scratch scratch) {
+        int numRows = patternEnd - start;
+        int numColumns = textEnd - start;
+        // Every cell outside of the band or above the bound is capped at infinity, i.e., maxDistance + 1
+        int infinity = maxDistance + 1;
+        // The rows are not cleared, because every cell is written before it is read
+        scratch.ensureColumns(numColumns + 1);
+        int[] upperUpperRow = scratch.upperUpperRow;
+        int[] upperRow = scratch.upperRow;
+        int[] row = scratch.row;
+
+        for (int j = 0; j <= Math.min(numColumns, maxDistance); j++)
+            row[j] = j;
+        if (maxDistance + 1 <= numColumns)
+            row[maxDistance + 1] = infinity;
+
+        for (int i = 1; i <= numRows; i++) {
+            int[] recycled = upperUpperRow;
+            upperUpperRow = upperRow;
+            upperRow = row;
+            row = recycled;
+
+            int low = Math.max(1, i - maxDistance);
+            int high = Math.min(numColumns, i + maxDistance);
+            // The cells next to the band are read by this row and the next one
+            row[low - 1] = (i <= maxDistance) ? i : infinity;
+            if (high + 1 <= numColumns)
+                row[high + 1] = infinity;
+
+            char c = pattern[start + i - 1];
+            int rowMin = row[low - 1];
+            for (int j = low; j <= high; j++) {
+                int value = upperRow[j - 1] + ((c == text[start + j - 1]) ? 0 : 1);
+                value = Math.min(value, Math.min(upperRow[j], row[j - 1]) + 1);
+                if (withDamerau && i > 1 && j > 1 && c == text[start + j - 2] && pattern[start + i - 2] == text[start + j - 1])
+                    value = Math.min(value, upperUpperRow[j - 2] + 1);
+                row[j] = Math.min(value, infinity);
+                rowMin = Math.min(rowMin, row[j]);
+            }
+            // Costs never decrease along an alignment, so if the whole band exceeds the bound, so does the distance
+            if (rowMin > maxDistance)
+                return infinity;
+        }
+        return row[numColumns];
+    }
+
+    private static int bitParallelDistance(char[] pattern, char[] text, int start, int patternEnd, int textEnd, boolean withDamerau, int maxDistance, Scratch scratch) {
+        PatternMasks masks = scratch.masks;
+        masks.set(pattern, start, patternEnd);
+        try {
+            int length = patternEnd - start;
+            if (length <= 64)
+                return singleWordDistance(masks, length, text, start, textEnd, withDamerau, maxDistance);
+            return blockDistance(masks, length, text, start, textEnd, withDamerau, maxDistance, scratch);
+        } finally {
+            masks.clear(pattern, start, patternEnd);
+        }
+    }
+
+    private static int singleWordDistance(PatternMasks masks, int length, char[] text, int start, int end, boolean withDamerau, int maxDistance) {
+        // Bit i of vp (vn) is set if the cell in row i + 1 is one larger (smaller) than the cell in row i
+        long vp = ~0L;
+        long vn = 0;
+        long d0 = 0;
+        long previousMatches = 0;
+        long last = 1L << (length - 1);
+        int distance = length;
+
+        for (int j = start; j < end; j++) {
+            long matches = masks.get(0, text[j]);
+            // A transposition continues a diagonal that matched the previous text character one row further up
+            long transpositions = withDamerau ? (((~d0 & matches) << 1) & previousMatches) : 0;
+            d0 = (((matches & vp) + vp) ^ vp) | matches | vn | transpositions;
+
+            long hp = vn | ~(d0 | vp);
+            long hn = d0 & vp;
+            if ((hp & last) != 0)
+                distance++;
+            else if ((hn & last) != 0)
+                distance--;
+
+            // The last row changes by at most one per remaining text character
+            if (distance - (end - 1 - j) > maxDistance)
+                return maxDistance + 1;
+
+            hp = (hp << 1) | 1;
+            hn = hn << 1;
+            vp = hn | ~(d0 | hp);
+            vn = hp & d0;
+            previousMatches = matches;
+        }
+        return distance;
+    }
+
+    private static int blockDistance(PatternMasks masks, int length, char[] text, int start, int end, boolean withDamerau, int maxDistance, Scratch scratch) {
+        int numWords = (length + 63) / 64;
+        scratch.ensureWords(numWords);
+        long[] vp = scratch.vp;
+        long[] vn = scratch.vn;
+        long[] d0 = scratch.d0;
+        long[] previousMatches = scratch.previousMatches;
+        Arrays.fill(vp, 0, numWords, ~0L);
+        Arrays.fill(vn, 0, numWords, 0);
+        Arrays.fill(d0, 0, numWords, 0);
+        Arrays.fill(previousMatches, 0, numWords, 0);
+        long last = 1L << ((length - 1) % 64);
+        int distance = length;
+
+        for (int j = start; j < end; j++) {
+            char c = text[j];
+            // The horizontal deltas of the last row of a block are the carries into the first row of the next block
+            long hpCarry = 1;
+            long hnCarry = 0;
+            long lowerOldD0 = 0;
+            long lowerMatches = 0;
+
+            for (int word = 0; word < numWords; word++) {
+                long matches = masks.get(word, c);
+                long oldD0 = d0[word];
+                long transpositions = withDamerau ? ((((~oldD0 & matches) << 1) | ((~lowerOldD0 & lowerMatches) >>> 63)) & previousMatches[word]) : 0;
+
+                long x = matches | hnCarry;
+                long newD0 = (((x & vp[word]) + vp[word]) ^ vp[word]) | x | vn[word] | transpositions;
+                long hp = vn[word] | ~(newD0 | vp[word]);
+                long hn = newD0 & vp[word];
+                if (word == numWords - 1) {
+                    if ((hp & last) != 0)
+                        distance++;
+                    else if ((hn & last) != 0)
+                        distance--;
                 }
+
+                long hpOut = hp >>> 63;
+                hp = (hp << 1) | hpCarry;
+                hpCarry = hpOut;
+                long hnOut = hn >>> 63;
+                hn = (hn << 1) | hnCarry;
+                hnCarry = hnOut;
+
+                vp[word] = hn | ~(newD0 | hp);
+                vn[word] = hp & newD0;
+                d0[word] = newD0;
+                lowerOldD0 = oldD0;
+                lowerMatches = matches;
+                previousMatches[word] = matches;
             }
-            upperupperLine = upperLine;
-            upperLine = lowerLine;
-            lowerLine = new int[len1 + 1];
+            if (distance - (end - 1 - j) > maxDistance)
+                return maxDistance + 1;
+        }
+        return distance;
+    }
+
+    /**
+     * The PatternMasks store for every character the bit vectors of the pattern positions that hold this character,
+     * split into words of 64 positions. Latin-1 characters are looked up in an array, all other characters in a map
+     * that points to their masks in a second array. The masks are reused for every pattern of a thread: set() fills
+     * them for a pattern and clear() zeroes exactly the words that set() has touched.
+     */
+    private static final class PatternMasks {
+
+        private int numWords;
+        private long[] latin1 = new long[256];
+        private final Char2IntOpenHashMap others = new Char2IntOpenHashMap();
+        private long[] otherMasks = new long[0];
+
+        private PatternMasks() {
+            this.others.defaultReturnValue(-1);
+        }
+
+        private void set(char[] pattern, int start, int end) {
+            this.numWords = (end - start + 63) / 64;
+            if (this.latin1.length < 256 * this.numWords)
+                this.latin1 = new long[256 * this.numWords];
+
+            int numOthers = 0;
+            for (int i = start; i < end; i++) {
+                char c = pattern[i];
+                int position = i - start;
+                if (c < 256) {
+                    this.latin1[c * this.numWords + position / 64] |= 1L << (position % 64);
+                    continue;
+                }
+                int offset = this.others.get(c);
+                if (offset < 0) {
+                    offset = numOthers * this.numWords;
+                    if (this.otherMasks.length < offset + this.numWords)
+                        this.otherMasks = Arrays.copyOf(this.otherMasks, Math.max(offset + this.numWords, 2 * this.otherMasks.length));
+                    Arrays.fill(this.otherMasks, offset, offset + this.numWords, 0);
+                    this.others.put(c, offset);
+                    numOthers++;
+                }
+                this.otherMasks[offset + position / 64] |= 1L << (position % 64);
+            }
+        }
+
+        private void clear(char[] pattern, int start, int end) {
+            for (int i = start; i < end; i++) {
+                char c = pattern[i];
+                if (c < 256)
+                    this.latin1[c * this.numWords + (i - start) / 64] = 0;
+            }
+            if (!this.others.isEmpty())
+                this.others.clear();
+        }
+
+        private long get(int word, char c) {
+            if (c < 256)
+                return this.latin1[c * this.numWords + word];
+            int offset = this.others.get(c);
+            return (offset >= 0) ? this.otherMasks[offset + word] : 0;
+        }
+    }
+
+    /**
+     * The Scratch holds the buffers of one thread: the characters of the compared strings, the pattern masks, the
+     * bit vectors of the blocks and the rows of the band. Every buffer grows to the longest input seen so far and is
+     * reused by all later calls of the thread, so that a distance calculation allocates nothing.
+     */
+    private static final class Scratch {
+
+        private char[] chars1 = new char[64];
+        private char[] chars2 = new char[64];
+        private final PatternMasks masks = new PatternMasks();
+        private long[] vp = new long[2];
+        private long[] vn = new long[2];
+        private long[] d0 = new long[2];
+        private long[] previousMatches = new long[2];
+        private int[] upperUpperRow = new int[0];
+        private int[] upperRow = new int[0];
+        private int[] row = new int[0];
+
+        private char[] chars1(int length) {
+            if (this.chars1.length < length)
+                this.chars1 = new char[Math.max(length, 2 * this.chars1.length)];
+            return this.chars1;
+        }
+
+        private char[] chars2(int length) {
+            if (this.chars2.length < length)
+                this.chars2 = new char[Math.max(length, 2 * this.chars2.length)];
+            return this.chars2;
+        }
+
+        private void ensureWords(int numWords) {
+            if (this.vp.length >= numWords)
+                return;
+            int capacity = Math.max(numWords, 2 * this.vp.length);
+            this.vp = new long[capacity];
+            this.vn = new long[capacity];
+            this.d0 = new long[capacity];
+            this.previousMatches = new long[capacity];
+        }
+
+        private void ensureColumns(int numColumns) {
+            if (this.row.length >= numColumns)
+                return;
+            int capacity = Math.max(numColumns, 2 * this.row.length);
+            this.upperUpperRow = new int[capacity];
+            this.upperRow = new int[capacity];
+            this.row = new int[capacity];
         }
-        levenshteinDistance = upperLine[upperLine.length - 1];
-        levenshteinSimilarity = 1 - (levenshteinDistance / originalLength);
-        return levenshteinSimilarity;
     }
 
     /**
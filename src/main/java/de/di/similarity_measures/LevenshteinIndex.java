@@ -0,0 +1,247 @@
+package de.di.similarity_measures;
+
+import de.di.structures.EncodedColumn;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A LevenshteinIndex is a BK-tree over distinct values that finds all values within an edit distance of a query, or
+ * the k nearest values, without comparing the query to every value. Every node of the tree stores a value and links
+ * to the children whose values have distance e to it over an edge labeled e; by the triangle inequality, the subtree
+ * of an edge e can only contain values within distance r of a query with distance d to the node if |d - e| <= r.
+ * The optimal string alignment distance that Levenshtein calculates with withDamerau is no metric, so the tree is
+ * always built with the Levenshtein distance: one transposition costs at most two Levenshtein edits, so a Damerau
+ * search with radius r visits the subtrees of a Levenshtein search with radius 2 * r and verifies the values it finds
+ * with the Damerau distance. The index is read-only after construction and can be queried by many threads.
+ */
+public class LevenshteinIndex {
+
+    // The seed of the insertion order; a shuffled order keeps the tree balanced for sorted inputs, e.g., dictionaries
+    private static final long SEED = 0x5deece66dL;
+
+    /**
+     * A Match is a value of the index within the queried distance.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Match {
+
+        // The position of the value in the indexed values, e.g., its dictionary code.
+        private final int index;
+
+        // The indexed value.
+        private final String value;
+
+        // The (Damerau) Levenshtein distance of the value to the query.
+        private final int distance;
+
+        @Override
+        public String toString() {
+            return "Match(" + this.distance + ": " + this.index + ", " + this.value + ')';
+        }
+    }
+
+    // The choice of whether Levenshtein or DamerauLevenshtein distances should be reported.
+    private final boolean withDamerau;
+
+    // The indexed values.
+    private final String[] values;
+    private final char[][] chars;
+
+    // The tree as arrays over the node ids, which are the positions of the values; the root is the first inserted value
+    private final int root;
+    private final int[] firstChildren;
+    private final int[] nextSiblings;
+    private final int[] edges;
+
+    // The statistics of all queries
+    private final LongAdder numQueries = new LongAdder();
+    private final LongAdder numDistanceComputations = new LongAdder();
+
+    /**
+     * Creates an index over the distinct values of the provided column; the indices of the matches are the
+     * dictionary codes of their values.
+     * @param column The column whose values should be indexed.
+     * @param withDamerau Whether the transposition of two adjacent characters counts as one edit.
+     */
+    public LevenshteinIndex(final EncodedColumn column, final boolean withDamerau) {
+        this(column.getDictionary(), withDamerau);
+    }
+
+    /**
+     * Creates an index over the provided values, which should be distinct; of equal values, only one is found.
+     * @param values The values that should be indexed.
+     * @param withDamerau Whether the transposition of two adjacent characters counts as one edit.
+     */
+    public LevenshteinIndex(final String[] values, final boolean withDamerau) {
+        this.withDamerau = withDamerau;
+        this.values = values;
+        this.chars = new char[values.length][];
+        this.firstChildren = new int[values.length];
+        this.nextSiblings = new int[values.length];
+        this.edges = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            this.chars[i] = (values[i] == null) ? new char[0] : values[i].toCharArray();
+            this.firstChildren[i] = -1;
+            this.nextSiblings[i] = -1;
+        }
+
+        int[] order = new int[values.length];
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < order.length; i++) {
+            int j = random.nextInt(i + 1);
+            order[i] = order[j];
+            order[j] = i;
+        }
+        this.root = (order.length > 0) ? order[0] : -1;
+        for (int i = 1; i < order.length; i++)
+            this.insert(order[i]);
+    }
+
+    private void insert(int id) {
+        int node = this.root;
+        while (true) {
+            int distance = Levenshtein.distance(this.chars[id], this.chars[node], false, Integer.MAX_VALUE);
+            if (distance == 0)
+                return;
+            int child = this.childWithEdge(node, distance);
+            if (child < 0) {
+                this.edges[id] = distance;
+                this.nextSiblings[id] = this.firstChildren[node];
+                this.firstChildren[node] = id;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    private int childWithEdge(int node, int edge) {
+        for (int child = this.firstChildren[node]; child >= 0; child = this.nextSiblings[child])
+            if (this.edges[child] == edge)
+                return child;
+        return -1;
+    }
+
+    public int size() {
+        return this.values.length;
+    }
+
+    /**
+     * Finds all indexed values whose (Damerau) Levenshtein distance to the query is at most maxDistance.
+     * @param query The value whose neighbours should be found.
+     * @param maxDistance The largest distance of a match.
+     * @return The matches ordered by distance and then by index.
+     */
+    public List<Match> range(final String query, final int maxDistance) {
+        List<Match> matches = new ArrayList<>();
+        if (this.root < 0 || maxDistance < 0)
+            return matches;
+
+        char[] queryChars = query.toCharArray();
+        int treeRadius = this.withDamerau ? 2 * maxDistance : maxDistance;
+        long computations = 0;
+        IntArrayList stack = new IntArrayList();
+        stack.add(this.root);
+        while (!stack.isEmpty()) {
+            int node = stack.popInt();
+            int distance = Levenshtein.distance(queryChars, this.chars[node], false, Integer.MAX_VALUE);
+            computations++;
+            int reported = distance;
+            if (this.withDamerau && distance <= treeRadius) {
+                reported = Levenshtein.distance(queryChars, this.chars[node], true, maxDistance);
+                computations++;
+            }
+            if (reported <= maxDistance)
+                matches.add(new Match(node, this.values[node], reported));
+            for (int child = this.firstChildren[node]; child >= 0; child = this.nextSiblings[child])
+                if (Math.abs(distance - this.edges[child]) <= treeRadius)
+                    stack.add(child);
+        }
+        this.record(computations);
+
+        matches.sort(Comparator.comparingInt(Match::getDistance).thenComparingInt(Match::getIndex));
+        return matches;
+    }
+
+    /**
+     * Finds the k indexed values with the smallest (Damerau) Levenshtein distance to the query. The search visits the
+     * subtrees with the smallest lower bound first and shrinks its radius to the k-th best distance found so far.
+     * @param query The value whose neighbours should be found.
+     * @param k The number of matches.
+     * @return The k nearest matches ordered by distance and then by index; ties at the k-th distance are resolved
+     *         arbitrarily.
+     */
+    public List<Match> topK(final String query, final int k) {
+        List<Match> matches = new ArrayList<>();
+        if (this.root < 0 || k <= 0)
+            return matches;
+
+        char[] queryChars = query.toCharArray();
+        int factor = this.withDamerau ? 2 : 1;
+        long computations = 0;
+        // The best matches so far with the worst one at the head
+        PriorityQueue<Match> best = new PriorityQueue<>(Comparator.comparingInt(Match::getDistance).thenComparingInt(Match::getIndex).reversed());
+        // The nodes to visit as pairs of the lower bound of their values' distances and the node id
+        PriorityQueue<long[]> queue = new PriorityQueue<>(Comparator.comparingLong((long[] entry) -> entry[0]));
+        queue.add(new long[]{0, this.root});
+        while (!queue.isEmpty()) {
+            long[] entry = queue.poll();
+            if (best.size() == k && entry[0] > best.peek().getDistance())
+                break;
+            int node = (int) entry[1];
+            int distance = Levenshtein.distance(queryChars, this.chars[node], false, Integer.MAX_VALUE);
+            computations++;
+            int reported = distance;
+            if (this.withDamerau) {
+                reported = Levenshtein.distance(queryChars, this.chars[node], true, Integer.MAX_VALUE);
+                computations++;
+            }
+            if (best.size() < k || reported < best.peek().getDistance()) {
+                best.add(new Match(node, this.values[node], reported));
+                if (best.size() > k)
+                    best.poll();
+            }
+            for (int child = this.firstChildren[node]; child >= 0; child = this.nextSiblings[child]) {
+                // The values below the child have a Levenshtein distance of at least |distance - edge| to the query
+                long lowerBound = (Math.abs(distance - this.edges[child]) + factor - 1) / factor;
+                if (best.size() < k || lowerBound <= best.peek().getDistance())
+                    queue.add(new long[]{Math.max(lowerBound, entry[0]), child});
+            }
+        }
+        this.record(computations);
+
+        matches.addAll(best);
+        matches.sort(Comparator.comparingInt(Match::getDistance).thenComparingInt(Match::getIndex));
+        return matches;
+    }
+
+    private void record(long computations) {
+        this.numQueries.increment();
+        this.numDistanceComputations.add(computations);
+    }
+
+    public long getNumQueries() {
+        return this.numQueries.sum();
+    }
+
+    public long getNumDistanceComputations() {
+        return this.numDistanceComputations.sum();
+    }
+
+    /**
+     * Returns the number of distance computations that the index saved over linear scans, which compute the distance
+     * of every query to every value. A Damerau search may compute two distances for some values.
+     * @return The number of saved distance computations of all queries so far.
+     */
+    public long getNumSavedComputations() {
+        return this.getNumQueries() * this.values.length - this.getNumDistanceComputations();
+    }
+}
@@ -1,29 +1,70 @@
 package de.di.similarity_measures;
 
-import de.di.similarity_measures.helper.MinHash;
+import de.di.helper.Kernels;
+import de.di.similarity_measures.helper.Hashing;
 import de.di.similarity_measures.helper.Tokenizer;
 
 import java.util.*;
 
 public class LocalitySensitiveHashing implements SimilarityMeasure {
 
+    // The signature value of a hash function or bin that no token reached, i.e., the largest unsigned value
+    private static final long EMPTY = -1L;
+
+    // The seed of the hash coefficients; a fixed seed makes signatures comparable across runs
+    private static final long SEED = 0x2545f4914f6cdd1dL;
+
     // The tokenizer that is used to transform string inputs into token lists.
     private final Tokenizer tokenizer;
 
     // A flag indicating whether the Jaccard algorithm should use set or bag semantics for the similarity calculation.
     private final boolean bagSemantics;
 
-    // The MinHash functions that are used to calculate the LSH signatures.
-    private final List<MinHash> minHashFunctions;
+    // The number of MinHash functions, i.e., the length of the LSH signatures.
+    private final int numHashFunctions;
+
+    // A flag indicating whether the signatures are calculated with one-permutation hashing instead of one hash
+    // function per signature value.
+    private final boolean onePermutation;
+
+    // The coefficients of the universal hash functions a * x + b (mod 2^64); the multipliers a are odd, so that every
+    // function permutes the 64-bit token hashes.
+    private final long[] multipliers;
+    private final long[] increments;
 
     public LocalitySensitiveHashing(final Tokenizer tokenizer, final boolean bagSemantics, final int numHashFunctions) {
-        assert(tokenizer.getTokenSize() >= numHashFunctions);
+        this(tokenizer, bagSemantics, numHashFunctions, false);
+    }
+
+    /**
+     * Creates an LSH similarity measure with signatures of numHashFunctions values. With onePermutation, a signature
+     * costs one hash per token instead of numHashFunctions hashes: the hash of a token selects one of numHashFunctions
+     * bins, every bin keeps the smallest hash that falls into it, and empty bins borrow the value of a non-empty bin
+     * that a fixed random probe sequence selects for them. Both modes estimate the Jaccard similarity equally well
+     * once the token lists are clearly longer than the signatures, so one-permutation hashing pays off for long
+     * signatures. With bagSemantics, the signatures are weighted MinHash signatures of the token multisets: the k-th
+     * occurrence of a token is hashed as a token of its own, so a signature value agrees in two signatures with the
+     * probability of the multiset Jaccard similarity, and a signature costs one hash per token as with set semantics.
+     * @param tokenizer The tokenizer that is used to transform string inputs into token lists.
+     * @param bagSemantics Whether the estimated Jaccard similarity uses bag or set semantics.
+     * @param numHashFunctions The length of the signatures.
+     * @param onePermutation Whether the signatures are calculated with one-permutation hashing.
+     */
+    public LocalitySensitiveHashing(final Tokenizer tokenizer, final boolean bagSemantics, final int numHashFunctions, final boolean onePermutation) {
+        if (numHashFunctions < 1)
+            throw new IllegalArgumentException("LSH signatures need at least one hash function, but " + numHashFunctions + " were requested.");
 
         this.tokenizer = tokenizer;
         this.bagSemantics = bagSemantics;
-        this.minHashFunctions = new ArrayList<>(numHashFunctions);
-        for (int i = 0; i < numHashFunctions; i++)
-            this.minHashFunctions.add(new MinHash(i));
+        this.numHashFunctions = numHashFunctions;
+        this.onePermutation = onePermutation;
+        this.multipliers = new long[numHashFunctions];
+        this.increments = new long[numHashFunctions];
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < numHashFunctions; i++) {
+            this.multipliers[i] = random.nextLong() | 1;
+            this.increments[i] = random.nextLong();
+        }
     }
 
     /**
@@ -37,9 +78,7 @@ public class LocalitySensitiveHashing implements SimilarityMeasure {
      */
     @Override
     public double calculate(final String string1, final String string2) {
-        String[] strings1 = this.tokenizer.tokenize(string1);
-        String[] strings2 = this.tokenizer.tokenize(string2);
-        return this.calculate(strings1, strings2);
+        return this.compareProfiles(this.prepare(string1), this.prepare(string2), 0);
     }
 
     /**
@@ -53,61 +92,141 @@ public class LocalitySensitiveHashing implements SimilarityMeasure {
      */
     @Override
     public double calculate(final String[] strings1, final String[] strings2) {
-        double lshJaccard = 0;
+        long[] minHash1 = this.computeMinHashSignature(hash(strings1), strings1.length);
+        long[] minHash2 = this.computeMinHashSignature(hash(strings2), strings2.length);
+        return this.calculateJaccardSimilarity(minHash1, minHash2);
+    }
 
-//        System.out.println(strings1.length);
+    /**
+     * Prepares the input string for repeated comparisons; its profile is its MinHash signature.
+     * @param string The string argument that should be prepared.
+     * @return The MinHash signature of the argument.
+     */
+    @Override
+    public Object prepare(final String string) {
+        return this.computeSignature(string);
+    }
 
-        Set<String> tokens1 = tokenize(strings1);
-        Set<String> tokens2 = tokenize(strings2);
+    /**
+     * Calculates the MinHash signature of the input string; two signatures agree in every value with the probability
+     * of the Jaccard similarity of the two token sets.
+     * @param string The string argument whose signature should be calculated.
+     * @return The MinHash signature of the argument with numHashFunctions values.
+     */
+    public long[] computeSignature(final String string) {
+        String s = (string == null) ? "" : string;
+        long[] tokens = new long[this.tokenizer.numTokens(s)];
+        int numTokens = this.tokenizer.tokenize(s, tokens);
+        return this.computeMinHashSignature(tokens, numTokens);
+    }
 
-//        System.out.println(tokens1.size());
+    public int getNumHashFunctions() {
+        return this.numHashFunctions;
+    }
 
-        int[] minHash1 = computeMinHashSignature(tokens1);
-        int[] minHash2 = computeMinHashSignature(tokens2);
+    public boolean isBagSemantics() {
+        return this.bagSemantics;
+    }
 
-        lshJaccard = calculateJaccardSimilarity(minHash1, minHash2);
-        return lshJaccard;
+    /**
+     * Calculates the LSH similarity of two values from their MinHash signatures; the result is always exact.
+     * @param profile1 The profile of the first value.
+     * @param profile2 The profile of the second value.
+     * @param minSimilarity The smallest similarity that the caller is interested in.
+     * @return The LSH similarity of the two values.
+     */
+    @Override
+    public double compareProfiles(final Object profile1, final Object profile2, final double minSimilarity) {
+        return this.calculateJaccardSimilarity((long[]) profile1, (long[]) profile2);
     }
 
-    private Set<String> tokenize(String[] array) {
-        Set<String> tokens = new HashSet<>();
-        for (String str : array) {
-            String[] splitTokens = str.split("\\s+"); // Simple whitespace tokenization
-            tokens.addAll(Arrays.asList(splitTokens));
-        }
+    private static long[] hash(String[] strings) {
+        long[] tokens = new long[strings.length];
+        for (int i = 0; i < strings.length; i++)
+            tokens[i] = Hashing.murmur3(strings[i]);
         return tokens;
     }
 
-    private int[] computeMinHashSignature(Set<String> tokens) {
-        int[] minHashSignature = new int[this.minHashFunctions.size()];
-        Arrays.fill(minHashSignature, Integer.MAX_VALUE);
+    /**
+     * Calculates the MinHash signature of the provided token hashes; the token buffer may be reordered and overwritten.
+     * @param tokens The buffer of token hashes.
+     * @param numTokens The number of tokens in the buffer.
+     * @return The MinHash signature of the tokens.
+     */
+    private long[] computeMinHashSignature(long[] tokens, int numTokens) {
+        if (this.bagSemantics) {
+            // Numbering the occurrences of every token turns a multiset into a set, whose Jaccard similarity
+            // |A ∩ B| / |A ∪ B| counts every token with its minimum and maximum number of occurrences
+            Arrays.sort(tokens, 0, numTokens);
+            long previous = 0;
+            int occurrence = 0;
+            for (int i = 0; i < numTokens; i++) {
+                occurrence = (i > 0 && tokens[i] == previous) ? occurrence + 1 : 0;
+                previous = tokens[i];
+                tokens[i] = Hashing.mix64(tokens[i] + occurrence * 0x9e3779b97f4a7c15L);
+            }
+        }
 
-        for (String token : tokens) {
-            for (int i = 0; i < this.minHashFunctions.size(); i++) {
-                int hashValue = hash(i, token);
-                if (hashValue < minHashSignature[i]) {
-                    minHashSignature[i] = hashValue;
+        long[] signature = new long[this.numHashFunctions];
+        Arrays.fill(signature, EMPTY);
+        if (this.onePermutation) {
+            for (int t = 0; t < numTokens; t++) {
+                long value = Hashing.mix64(this.multipliers[0] * tokens[t] + this.increments[0]);
+                int bin = this.binOf(value);
+                if (Long.compareUnsigned(value, signature[bin]) < 0)
+                    signature[bin] = value;
+            }
+            this.densify(signature);
+        } else {
+            for (int t = 0; t < numTokens; t++) {
+                for (int i = 0; i < this.numHashFunctions; i++) {
+                    long value = this.multipliers[i] * tokens[t] + this.increments[i];
+                    if (Long.compareUnsigned(value, signature[i]) < 0)
+                        signature[i] = value;
                 }
             }
         }
-        return minHashSignature;
+        return signature;
     }
 
-    private int hash(int i, String token) {
-        Random random = new Random(i);
-        int a = random.nextInt();
-        int b = random.nextInt();
-        int prime = 2147483647; // A large prime number
-        return Math.abs((a * token.hashCode() + b) % prime);
+    // Maps the upper 32 bits of a hash uniformly onto the bins
+    private int binOf(long hash) {
+        return (int) (((hash >>> 32) * this.numHashFunctions) >>> 32);
     }
 
-    private double calculateJaccardSimilarity(int[] minHash1, int[] minHash2) {
-        int identicalMinHashes = 0;
-        for (int i = 0; i < this.minHashFunctions.size(); i++) {
-            if (minHash1[i] == minHash2[i]) {
-                identicalMinHashes++;
+    /**
+     * Fills the empty bins of a one-permutation signature: an empty bin probes the bins of its own fixed random
+     * sequence until it finds a bin that received a token and takes over its value. Two token sets use the same
+     * sequences, so an empty bin agrees in both signatures with the probability of their Jaccard similarity.
+     * @param signature The signature whose empty bins are filled.
+     */
+    private void densify(long[] signature) {
+        int numEmptyBins = 0;
+        for (long value : signature)
+            if (value == EMPTY)
+                numEmptyBins++;
+        if (numEmptyBins == 0 || numEmptyBins == signature.length)
+            return;
+
+        long[] filled = signature.clone();
+        for (int bin = 0; bin < signature.length; bin++) {
+            if (signature[bin] != EMPTY)
+                continue;
+            for (long attempt = 1; ; attempt++) {
+                int probe = this.binOf(Hashing.mix64(SEED ^ ((long) bin << 32) ^ attempt));
+                if (signature[probe] != EMPTY) {
+                    filled[bin] = signature[probe];
+                    break;
+                }
             }
         }
-        return (double) identicalMinHashes / this.minHashFunctions.size();
+        System.arraycopy(filled, 0, signature, 0, signature.length);
+    }
+
+    private double calculateJaccardSimilarity(long[] minHash1, long[] minHash2) {
+        int identicalMinHashes = Kernels.countEqual(minHash1, minHash2, this.numHashFunctions);
+        double jaccardSimilarity = (double) identicalMinHashes / this.numHashFunctions;
+        // The multiset Jaccard similarity |A ∩ B| / (|A| + |B|) equals J / (1 + J) for J = |A ∩ B| / |A ∪ B|
+        return this.bagSemantics ? jaccardSimilarity / (1 + jaccardSimilarity) : jaccardSimilarity;
     }
 }
@@ -0,0 +1,223 @@
+package de.di.similarity_measures;
+
+import de.di.similarity_measures.helper.Hashing;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntMaps;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+import java.util.Arrays;
+
+/**
+ * An LshIndex finds the values whose MinHash signatures are similar to a given signature without comparing all of
+ * them: every signature is cut into numBands bands of numRows values each, and two values become candidates if they
+ * agree in all values of at least one band. Two values with Jaccard similarity s are candidates with probability
+ * 1 - (1 - s^numRows)^numBands, which is an S-curve that rises steeply around (1 / numBands)^(1 / numRows).
+ * Every band maps the hash of its values to the most recently inserted value of its bucket, and every value links to
+ * its predecessor in the bucket, so the index stores only a few primitive numbers per value and band. The numbers of
+ * every band are kept in arrays of their own that are indexed by the ids, so the index holds up to 2^31 - 1 values
+ * regardless of the number of bands. The ids of the values are their insertion positions. The index is not
+ * thread-safe.
+ */
+public class LshIndex {
+
+    // The resolution of the numeric integration of the false positive and false negative probabilities
+    private static final int INTEGRATION_STEPS = 100;
+
+    /**
+     * A PairConsumer receives the candidate pairs of a self-join.
+     */
+    @FunctionalInterface
+    public interface PairConsumer {
+        void accept(int id1, int id2);
+    }
+
+    private final LocalitySensitiveHashing localitySensitiveHashing;
+    private final int numBands;
+    private final int numRows;
+
+    // For every band, the id of the most recently inserted value of every bucket hash
+    private final Long2IntOpenHashMap[] heads;
+
+    // For every band, the bucket hash of every value at position id
+    private final LongArrayList[] bucketHashes;
+
+    // For every band, the id of the previously inserted value of the same bucket or -1 at position id
+    private final IntArrayList[] predecessors;
+
+    private int numValues = 0;
+
+    public LshIndex(LocalitySensitiveHashing localitySensitiveHashing, int numBands, int numRows) {
+        if (numBands < 1 || numRows < 1 || (long) numBands * numRows > localitySensitiveHashing.getNumHashFunctions())
+            throw new IllegalArgumentException(numBands + " bands of " + numRows + " rows do not fit into signatures of " +
+                    localitySensitiveHashing.getNumHashFunctions() + " values.");
+
+        this.localitySensitiveHashing = localitySensitiveHashing;
+        this.numBands = numBands;
+        this.numRows = numRows;
+        this.heads = new Long2IntOpenHashMap[numBands];
+        this.bucketHashes = new LongArrayList[numBands];
+        this.predecessors = new IntArrayList[numBands];
+        for (int band = 0; band < numBands; band++) {
+            this.heads[band] = new Long2IntOpenHashMap();
+            this.heads[band].defaultReturnValue(-1);
+            this.bucketHashes[band] = new LongArrayList();
+            this.predecessors[band] = new IntArrayList();
+        }
+    }
+
+    /**
+     * Creates an index whose bands fit the provided similarity threshold, see optimalBands().
+     * @param localitySensitiveHashing The measure that calculates the signatures.
+     * @param threshold The similarity of the measure above which values should be candidates.
+     * @return An empty index.
+     */
+    public static LshIndex forThreshold(LocalitySensitiveHashing localitySensitiveHashing, double threshold) {
+        // The bag semantics report J / (1 + J) for the Jaccard similarity J of the signatures
+        double jaccardThreshold = localitySensitiveHashing.isBagSemantics() ? threshold / (1 - Math.min(threshold, 0.5)) : threshold;
+        int[] bands = optimalBands(Math.min(jaccardThreshold, 1), localitySensitiveHashing.getNumHashFunctions());
+        return new LshIndex(localitySensitiveHashing, bands[0], bands[1]);
+    }
+
+    /**
+     * Chooses the number of bands and rows for signatures of numHashFunctions values such that the probability of
+     * becoming candidates best separates the similarities around the threshold: the sum of the false positive area
+     * below the threshold and the false negative area above the threshold is minimal.
+     * @param threshold The Jaccard similarity above which values should be candidates.
+     * @param numHashFunctions The length of the signatures.
+     * @return The number of bands and the number of rows per band.
+     */
+    public static int[] optimalBands(double threshold, int numHashFunctions) {
+        int[] best = new int[]{1, 1};
+        double bestError = Double.MAX_VALUE;
+        for (int numBands = 1; numBands <= numHashFunctions; numBands++) {
+            for (int numRows = 1; numBands * numRows <= numHashFunctions; numRows++) {
+                double error = 0;
+                for (int step = 0; step < INTEGRATION_STEPS; step++) {
+                    double similarity = (step + 0.5) / INTEGRATION_STEPS;
+                    double probability = 1 - Math.pow(1 - Math.pow(similarity, numRows), numBands);
+                    error += (similarity < threshold) ? probability : 1 - probability;
+                }
+                if (error < bestError) {
+                    bestError = error;
+                    best = new int[]{numBands, numRows};
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Inserts the provided value into the index.
+     * @param value The value that should be inserted.
+     * @return The id of the value.
+     */
+    public int insert(String value) {
+        return this.insert(this.localitySensitiveHashing.computeSignature(value));
+    }
+
+    /**
+     * Inserts a value into the index by its signature.
+     * @param signature The MinHash signature of the value.
+     * @return The id of the value.
+     */
+    public int insert(long[] signature) {
+        if (this.numValues == Integer.MAX_VALUE)
+            throw new IllegalStateException("The index already holds " + this.numValues + " values, which is the maximum.");
+
+        int id = this.numValues++;
+        for (int band = 0; band < this.numBands; band++) {
+            long bucketHash = this.bucketHash(signature, band);
+            this.bucketHashes[band].add(bucketHash);
+            this.predecessors[band].add(this.heads[band].put(bucketHash, id));
+        }
+        return id;
+    }
+
+    /**
+     * Inserts all provided values into the index; their ids are consecutive.
+     * @param values The values that should be inserted.
+     * @return The id of the first value.
+     */
+    public int insertAll(String... values) {
+        long capacity = (long) this.numValues + values.length;
+        if (capacity > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The index holds " + this.numValues + " values and can not take " + values.length + " more.");
+        for (int band = 0; band < this.numBands; band++) {
+            this.bucketHashes[band].ensureCapacity((int) capacity);
+            this.predecessors[band].ensureCapacity((int) capacity);
+        }
+        int firstId = this.numValues;
+        for (String value : values)
+            this.insert(value);
+        return firstId;
+    }
+
+    public int size() {
+        return this.numValues;
+    }
+
+    /**
+     * Returns the ids of all values that share at least one band with the provided value.
+     * @param value The value whose candidates should be found.
+     * @return The ids of the candidates in ascending order.
+     */
+    public int[] query(String value) {
+        return this.query(this.localitySensitiveHashing.computeSignature(value));
+    }
+
+    /**
+     * Returns the ids of all values that share at least one band with the provided signature.
+     * @param signature The MinHash signature whose candidates should be found.
+     * @return The ids of the candidates in ascending order.
+     */
+    public int[] query(long[] signature) {
+        IntOpenHashSet candidates = new IntOpenHashSet();
+        for (int band = 0; band < this.numBands; band++) {
+            long bucketHash = this.bucketHash(signature, band);
+            IntArrayList predecessors = this.predecessors[band];
+            for (int id = this.heads[band].get(bucketHash); id >= 0; id = predecessors.getInt(id))
+                candidates.add(id);
+        }
+        int[] ids = candidates.toIntArray();
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Enumerates every pair of indexed values that share at least one band exactly once; a pair is reported by the
+     * first band that it shares, so no set of reported pairs is needed. The first id of a pair is the larger one.
+     * @param consumer The consumer of the candidate pairs.
+     */
+    public void forEachCandidatePair(PairConsumer consumer) {
+        IntArrayList bucket = new IntArrayList();
+        for (int band = 0; band < this.numBands; band++) {
+            IntArrayList predecessors = this.predecessors[band];
+            for (Long2IntMap.Entry head : Long2IntMaps.fastIterable(this.heads[band])) {
+                bucket.clear();
+                for (int id = head.getIntValue(); id >= 0; id = predecessors.getInt(id))
+                    bucket.add(id);
+                for (int i = 0; i < bucket.size(); i++)
+                    for (int j = i + 1; j < bucket.size(); j++)
+                        if (this.firstSharedBand(bucket.getInt(i), bucket.getInt(j)) == band)
+                            consumer.accept(bucket.getInt(i), bucket.getInt(j));
+            }
+        }
+    }
+
+    private int firstSharedBand(int id1, int id2) {
+        for (int band = 0; band < this.numBands; band++)
+            if (this.bucketHashes[band].getLong(id1) == this.bucketHashes[band].getLong(id2))
+                return band;
+        return -1;
+    }
+
+    private long bucketHash(long[] signature, int band) {
+        long hash = band;
+        for (int row = band * this.numRows; row < (band + 1) * this.numRows; row++)
+            hash = Hashing.mix64(hash ^ signature[row]) + row;
+        return hash;
+    }
+}
@@ -0,0 +1,278 @@
+package de.di.similarity_measures;
+
+import de.di.similarity_measures.helper.Tokenizer;
+import de.di.similarity_measures.structures.SimilarPair;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A SetSimilarityJoin finds all pairs of values whose q-gram sets have a Jaccard similarity (with set semantics) of at
+ * least the threshold, i.e., exactly the pairs that Jaccard#calculate() accepts, without comparing all pairs. It
+ * follows the PPJoin algorithm of Xiao et al.:
+ * - the tokens of every set are ordered by their global frequency, so that the rare tokens come first;
+ * - the sets are processed by increasing size, and only a set whose size is at least threshold * |x| can be similar
+ *   to a set x (length filter);
+ * - two similar sets must share a token in their first |x| - ceil(threshold * |x|) + 1 tokens (prefix filter), so
+ *   only these prefixes are probed in and added to inverted lists;
+ * - a shared prefix token at positions i and j bounds the overlap by the tokens after i and j (positional filter);
+ * - the remaining candidates are verified with a merge that stops once the required overlap is out of reach.
+ * Sets without tokens are never similar to anything, as their Jaccard similarity is undefined.
+ */
+public class SetSimilarityJoin {
+
+    // The tolerance keeps rounding errors from rejecting a pair whose similarity is exactly the threshold
+    private static final double EPSILON = 1e-9;
+
+    // The tokenizer that is used to transform string inputs into token sets.
+    private final Tokenizer tokenizer;
+
+    // The smallest Jaccard similarity of a reported pair.
+    private final double threshold;
+
+    public SetSimilarityJoin(Tokenizer tokenizer, double threshold) {
+        if (threshold <= 0 || threshold > 1)
+            throw new IllegalArgumentException("The join threshold must be in (0, 1], but it is " + threshold + ".");
+
+        this.tokenizer = tokenizer;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Finds all pairs of the provided values whose Jaccard similarity is at least the threshold.
+     * @param values The values that should be joined with themselves.
+     * @return The similar pairs with index1 < index2, ordered by index1 and then index2.
+     */
+    public List<SimilarPair> selfJoin(String[] values) {
+        long[][] tokenSets = this.tokenizeAll(values);
+        Long2IntOpenHashMap ranks = rankTokens(tokenSets);
+        return this.join(new SetRecord[][]{toRecords(tokenSets, ranks, 0)}, true);
+    }
+
+    /**
+     * Finds all pairs of a value from the first and a value from the second input whose Jaccard similarity is at
+     * least the threshold.
+     * @param values1 The first values.
+     * @param values2 The second values.
+     * @return The similar pairs with index1 in values1 and index2 in values2, ordered by index1 and then index2.
+     */
+    public List<SimilarPair> join(String[] values1, String[] values2) {
+        long[][] tokenSets1 = this.tokenizeAll(values1);
+        long[][] tokenSets2 = this.tokenizeAll(values2);
+        Long2IntOpenHashMap ranks = rankTokens(tokenSets1, tokenSets2);
+        return this.join(new SetRecord[][]{toRecords(tokenSets1, ranks, 0), toRecords(tokenSets2, ranks, 1)}, false);
+    }
+
+    /**
+     * Joins the records of one (self-join) or two inputs. All records are processed by increasing size; every record
+     * first probes the inverted lists of the other input and is then added to the inverted lists of its own input.
+     * Because every indexed record is at most as large as the probing one, the indexed prefix can be shortened to
+     * |x| - ceil(2 * threshold / (1 + threshold) * |x|) + 1 tokens.
+     */
+    private List<SimilarPair> join(SetRecord[][] inputs, boolean selfJoin) {
+        List<SetRecord> order = new ArrayList<>();
+        for (SetRecord[] input : inputs)
+            for (SetRecord record : input)
+                if (record.tokens.length > 0)
+                    order.add(record);
+        order.sort(Comparator.comparingInt((SetRecord record) -> record.tokens.length).thenComparingInt(record -> record.input).thenComparingInt(record -> record.index));
+        for (int position = 0; position < order.size(); position++)
+            order.get(position).position = position;
+
+        int numTokens = 0;
+        for (SetRecord record : order)
+            numTokens = Math.max(numTokens, record.tokens[record.tokens.length - 1] + 1);
+        InvertedIndex[] indexes = new InvertedIndex[inputs.length];
+        for (int i = 0; i < inputs.length; i++)
+            indexes[i] = new InvertedIndex(numTokens);
+
+        List<SimilarPair> pairs = new ArrayList<>();
+        int[] overlaps = new int[order.size()];
+        IntArrayList candidates = new IntArrayList();
+        for (SetRecord x : order) {
+            InvertedIndex probed = indexes[selfJoin ? 0 : 1 - x.input];
+            int size = x.tokens.length;
+            int minSize = minOverlap(this.threshold * size);
+            int probePrefix = size - minSize + 1;
+
+            candidates.clear();
+            for (int i = 0; i < probePrefix; i++) {
+                int token = x.tokens[i];
+                IntArrayList records = probed.records[token];
+                if (records == null)
+                    continue;
+                IntArrayList positions = probed.positions[token];
+                // The lists are sorted by size, so records below the length bound of x are too small for all later x
+                while (probed.starts[token] < records.size() && order.get(records.getInt(probed.starts[token])).tokens.length < minSize)
+                    probed.starts[token]++;
+                for (int k = probed.starts[token]; k < records.size(); k++) {
+                    int y = records.getInt(k);
+                    if (overlaps[y] < 0)
+                        continue;
+                    int sizeY = order.get(y).tokens.length;
+                    int requiredOverlap = minOverlap(this.threshold / (1 + this.threshold) * (size + sizeY));
+                    int upperBound = 1 + Math.min(size - i - 1, sizeY - positions.getInt(k) - 1);
+                    if (overlaps[y] == 0)
+                        candidates.add(y);
+                    overlaps[y] = (overlaps[y] + upperBound >= requiredOverlap) ? overlaps[y] + 1 : -1;
+                }
+            }
+
+            for (int c = 0; c < candidates.size(); c++) {
+                int y = candidates.getInt(c);
+                if (overlaps[y] > 0) {
+                    SetRecord other = order.get(y);
+                    double similarity = this.verify(x.tokens, other.tokens);
+                    if (similarity >= this.threshold)
+                        pairs.add(toPair(x, other, similarity, selfJoin));
+                }
+                overlaps[y] = 0;
+            }
+
+            int indexPrefix = size - minOverlap(2 * this.threshold / (1 + this.threshold) * size) + 1;
+            InvertedIndex own = indexes[selfJoin ? 0 : x.input];
+            for (int i = 0; i < indexPrefix; i++)
+                own.add(x.tokens[i], x.position, i);
+        }
+
+        pairs.sort(Comparator.comparingInt(SimilarPair::getIndex1).thenComparingInt(SimilarPair::getIndex2));
+        return pairs;
+    }
+
+    /**
+     * Calculates the Jaccard similarity of two rank-sorted token sets with a merge that stops as soon as the
+     * remaining tokens can no longer reach the overlap that the threshold requires.
+     * @return The Jaccard similarity of the two sets or -1, if it is below the threshold.
+     */
+    private double verify(int[] tokens1, int[] tokens2) {
+        int requiredOverlap = minOverlap(this.threshold / (1 + this.threshold) * (tokens1.length + tokens2.length));
+        int overlap = 0;
+        int i = 0;
+        int j = 0;
+        while (i < tokens1.length && j < tokens2.length) {
+            if (overlap + Math.min(tokens1.length - i, tokens2.length - j) < requiredOverlap)
+                return -1;
+            if (tokens1[i] < tokens2[j]) {
+                i++;
+            } else if (tokens1[i] > tokens2[j]) {
+                j++;
+            } else {
+                overlap++;
+                i++;
+                j++;
+            }
+        }
+        return (double) overlap / (tokens1.length + tokens2.length - overlap);
+    }
+
+    private static SimilarPair toPair(SetRecord x, SetRecord y, double similarity, boolean selfJoin) {
+        if (selfJoin)
+            return new SimilarPair(Math.min(x.index, y.index), Math.max(x.index, y.index), similarity);
+        return (x.input == 0) ? new SimilarPair(x.index, y.index, similarity) : new SimilarPair(y.index, x.index, similarity);
+    }
+
+    // The smallest integer that is at least the provided bound, tolerating rounding errors of the bound
+    private static int minOverlap(double bound) {
+        return (int) Math.ceil(bound - EPSILON);
+    }
+
+    // Tokenizes every value into its sorted set of distinct token hashes
+    private long[][] tokenizeAll(String[] values) {
+        long[][] tokenSets = new long[values.length][];
+        for (int v = 0; v < values.length; v++) {
+            String value = (values[v] == null) ? "" : values[v];
+            long[] tokens = new long[this.tokenizer.numTokens(value)];
+            this.tokenizer.tokenize(value, tokens);
+            Arrays.sort(tokens);
+            int numDistinct = 0;
+            for (int t = 0; t < tokens.length; t++)
+                if (t == 0 || tokens[t] != tokens[t - 1])
+                    tokens[numDistinct++] = tokens[t];
+            tokenSets[v] = Arrays.copyOf(tokens, numDistinct);
+        }
+        return tokenSets;
+    }
+
+    // Numbers all tokens by increasing frequency, so that the prefixes consist of the rarest tokens
+    private static Long2IntOpenHashMap rankTokens(long[][]... inputs) {
+        Long2IntOpenHashMap frequencies = new Long2IntOpenHashMap();
+        for (long[][] tokenSets : inputs)
+            for (long[] tokens : tokenSets)
+                for (long token : tokens)
+                    frequencies.addTo(token, 1);
+
+        long[] tokens = frequencies.keySet().toLongArray();
+        Long[] sortedTokens = new Long[tokens.length];
+        for (int t = 0; t < tokens.length; t++)
+            sortedTokens[t] = tokens[t];
+        Arrays.sort(sortedTokens, Comparator.comparingInt((Long token) -> frequencies.get(token.longValue())).thenComparing(Long::compare));
+
+        Long2IntOpenHashMap ranks = new Long2IntOpenHashMap(tokens.length);
+        for (int rank = 0; rank < sortedTokens.length; rank++)
+            ranks.put(sortedTokens[rank].longValue(), rank);
+        return ranks;
+    }
+
+    private static SetRecord[] toRecords(long[][] tokenSets, Long2IntOpenHashMap ranks, int input) {
+        SetRecord[] records = new SetRecord[tokenSets.length];
+        for (int v = 0; v < tokenSets.length; v++) {
+            int[] tokens = new int[tokenSets[v].length];
+            for (int t = 0; t < tokens.length; t++)
+                tokens[t] = ranks.get(tokenSets[v][t]);
+            Arrays.sort(tokens);
+            records[v] = new SetRecord(input, v, tokens);
+        }
+        return records;
+    }
+
+    /**
+     * A SetRecord is a value of one input as the sorted ranks of its distinct tokens.
+     */
+    private static final class SetRecord {
+
+        private final int input;
+        private final int index;
+        private final int[] tokens;
+
+        // The position of the record in the processing order
+        private int position;
+
+        private SetRecord(int input, int index, int[] tokens) {
+            this.input = input;
+            this.index = index;
+            this.tokens = tokens;
+        }
+    }
+
+    /**
+     * The InvertedIndex maps every token rank to the records whose prefix contains it and to the token's position in
+     * each of these records.
+     */
+    private static final class InvertedIndex {
+
+        private final IntArrayList[] records;
+        private final IntArrayList[] positions;
+
+        // The first entry of every list that can still satisfy the length filter
+        private final int[] starts;
+
+        private InvertedIndex(int numTokens) {
+            this.records = new IntArrayList[numTokens];
+            this.positions = new IntArrayList[numTokens];
+            this.starts = new int[numTokens];
+        }
+
+        private void add(int token, int record, int position) {
+            if (this.records[token] == null) {
+                this.records[token] = new IntArrayList();
+                this.positions[token] = new IntArrayList();
+            }
+            this.records[token].add(record);
+            this.positions[token].add(position);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package de.di.similarity_measures;
+
+import de.di.similarity_measures.structures.SimilarPair;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * SimilarityBatches executes the batch calculations of the SimilarityMeasure interface. All values are prepared once
+ * and then compared tile by tile: a tile pairs TILE_SIZE values of the first input with TILE_SIZE values of the
+ * second input, so that the profiles of a tile stay in the CPU caches while every row of the tile is compared with
+ * them, and the tiles are the tasks that the threads of the pool share.
+ */
+final class SimilarityBatches {
+
+    // The number of values per tile side
+    private static final int TILE_SIZE = 64;
+
+    /**
+     * Compares two profiles, which are either prepared values or token lists.
+     */
+    @FunctionalInterface
+    interface ProfileComparator {
+        double compare(Object profile1, Object profile2, double minSimilarity);
+    }
+
+    private SimilarityBatches() {
+    }
+
+    /**
+     * Returns the pool that batch calculations use by default: the pool of the calling task or the common pool.
+     * @return The default pool.
+     */
+    static ForkJoinPool defaultPool() {
+        return ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool() : ForkJoinPool.commonPool();
+    }
+
+    static Object[] prepareAll(SimilarityMeasure measure, String[] strings, ForkJoinPool pool) {
+        Object[] profiles = new Object[strings.length];
+        run(pool, () -> IntStream.range(0, strings.length).parallel().forEach(i -> profiles[i] = measure.prepare(strings[i])));
+        return profiles;
+    }
+
+    static void compareOneToMany(Object profile, Object[] profiles, double[] results, ProfileComparator comparator, ForkJoinPool pool) {
+        if (results.length < profiles.length)
+            throw new IllegalArgumentException("The result array holds " + results.length + " values, but " + profiles.length + " are needed.");
+
+        int numTiles = numTiles(profiles.length);
+        run(pool, () -> IntStream.range(0, numTiles).parallel().forEach(tile -> {
+            for (int j = tile * TILE_SIZE; j < Math.min(profiles.length, (tile + 1) * TILE_SIZE); j++)
+                results[j] = comparator.compare(profile, profiles[j], 0);
+        }));
+    }
+
+    static double[][] compareMatrix(Object[] profiles1, Object[] profiles2, ProfileComparator comparator, ForkJoinPool pool) {
+        double[][] matrix = new double[profiles1.length][profiles2.length];
+        int numColumnTiles = numTiles(profiles2.length);
+        int numTiles = numTiles(profiles1.length) * numColumnTiles;
+        run(pool, () -> IntStream.range(0, numTiles).parallel().forEach(tile -> {
+            int rowStart = tile / numColumnTiles * TILE_SIZE;
+            int columnStart = tile % numColumnTiles * TILE_SIZE;
+            for (int i = rowStart; i < Math.min(profiles1.length, rowStart + TILE_SIZE); i++)
+                for (int j = columnStart; j < Math.min(profiles2.length, columnStart + TILE_SIZE); j++)
+                    matrix[i][j] = comparator.compare(profiles1[i], profiles2[j], 0);
+        }));
+        return matrix;
+    }
+
+    static List<SimilarPair> comparePairs(Object[] profiles1, Object[] profiles2, double minSimilarity, ProfileComparator comparator, ForkJoinPool pool) {
+        int numColumnTiles = numTiles(profiles2.length);
+        int numTiles = numTiles(profiles1.length) * numColumnTiles;
+        // Every tile collects its own pairs, so the threads never share a list
+        List<List<SimilarPair>> tiles = call(pool, () -> IntStream.range(0, numTiles).parallel().mapToObj(tile -> {
+            List<SimilarPair> pairs = new ArrayList<>();
+            int rowStart = tile / numColumnTiles * TILE_SIZE;
+            int columnStart = tile % numColumnTiles * TILE_SIZE;
+            for (int i = rowStart; i < Math.min(profiles1.length, rowStart + TILE_SIZE); i++) {
+                for (int j = columnStart; j < Math.min(profiles2.length, columnStart + TILE_SIZE); j++) {
+                    double similarity = comparator.compare(profiles1[i], profiles2[j], minSimilarity);
+                    if (similarity >= minSimilarity)
+                        pairs.add(new SimilarPair(i, j, similarity));
+                }
+            }
+            return pairs;
+        }).collect(Collectors.toList()));
+
+        List<SimilarPair> pairs = new ArrayList<>();
+        for (List<SimilarPair> tile : tiles)
+            pairs.addAll(tile);
+        pairs.sort(Comparator.comparingInt(SimilarPair::getIndex1).thenComparingInt(SimilarPair::getIndex2));
+        return pairs;
+    }
+
+    private static int numTiles(int numValues) {
+        return (numValues + TILE_SIZE - 1) / TILE_SIZE;
+    }
+
+    // A parallel stream that is started inside a ForkJoinPool runs on the threads of that pool
+    private static void run(ForkJoinPool pool, Runnable task) {
+        call(pool, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    private static <T> T call(ForkJoinPool pool, Callable<T> task) {
+        try {
+            // A task of the pool itself must not block one of its threads on a nested submission
+            if (ForkJoinTask.inForkJoinPool() && ForkJoinTask.getPool() == pool)
+                return task.call();
+            return pool.submit(task).get();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -1,8 +1,122 @@
 package de.di.similarity_measures;
 
+import de.di.similarity_measures.structures.SimilarPair;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
 public interface SimilarityMeasure {
 
     double calculate(final String string1, final String string2);
 
+    /**
+     * Calculates the similarity of the two input strings for a caller that is only interested in similarities of at
+     * least minSimilarity. Measures can use the bound to stop early: the result is the exact similarity if it is at
+     * least minSimilarity and otherwise any value smaller than minSimilarity. By default, the exact similarity is
+     * calculated.
+     * @param string1 The first string argument for the similarity calculation.
+     * @param string2 The second string argument for the similarity calculation.
+     * @param minSimilarity The smallest similarity that the caller is interested in.
+     * @return The similarity of the two arguments or a value smaller than minSimilarity.
+     */
+    default double calculate(final String string1, final String string2, final double minSimilarity) {
+        return this.calculate(string1, string2);
+    }
+
+    /**
+     * Prepares the input string for repeated comparisons: the profile holds everything that the measure derives from
+     * a single value, e.g., its tokens, so that a value that is compared with many others is processed only once.
+     * Profiles are never null. By default, the profile is the string itself.
+     * @param string The string argument that should be prepared.
+     * @return The profile of the argument.
+     */
+    default Object prepare(final String string) {
+        return string;
+    }
+
+    /**
+     * Calculates the similarity of two values from their profiles, which prepare() created. The result is the same as
+     * the result of calculate(string1, string2, minSimilarity) for the two values.
+     * @param profile1 The profile of the first value.
+     * @param profile2 The profile of the second value.
+     * @param minSimilarity The smallest similarity that the caller is interested in.
+     * @return The similarity of the two values or a value smaller than minSimilarity.
+     */
+    default double compareProfiles(final Object profile1, final Object profile2, final double minSimilarity) {
+        return this.calculate((String) profile1, (String) profile2, minSimilarity);
+    }
+
     double calculate(final String[] strings1, final String[] strings2);
+
+    default void calculate(final String string, final String[] strings, final double[] results) {
+        this.calculate(string, strings, results, SimilarityBatches.defaultPool());
+    }
+
+    /**
+     * Calculates the similarities of one string to many strings on the threads of the provided pool. By default, every
+     * string is prepared once and the profiles are compared with compareProfiles(), which falls back to calculate().
+     * @param string The string that is compared to all other strings.
+     * @param strings The other strings.
+     * @param results The array that receives the similarity of string and strings[i] at position i.
+     * @param pool The pool that executes the calculation.
+     */
+    default void calculate(final String string, final String[] strings, final double[] results, final ForkJoinPool pool) {
+        Object profile = this.prepare(string);
+        Object[] profiles = SimilarityBatches.prepareAll(this, strings, pool);
+        SimilarityBatches.compareOneToMany(profile, profiles, results, this::compareProfiles, pool);
+    }
+
+    default double[][] calculateMatrix(final String[] strings1, final String[] strings2) {
+        return this.calculateMatrix(strings1, strings2, SimilarityBatches.defaultPool());
+    }
+
+    /**
+     * Calculates the similarities of all pairs of strings from the two inputs on the threads of the provided pool; the
+     * pairs are compared in tiles, so that the profiles of a tile are reused while they are cached.
+     * @param strings1 The strings that determine the rows of the matrix.
+     * @param strings2 The strings that determine the columns of the matrix.
+     * @param pool The pool that executes the calculation.
+     * @return The matrix whose cell [i][j] is the similarity of strings1[i] and strings2[j].
+     */
+    default double[][] calculateMatrix(final String[] strings1, final String[] strings2, final ForkJoinPool pool) {
+        Object[] profiles1 = SimilarityBatches.prepareAll(this, strings1, pool);
+        Object[] profiles2 = SimilarityBatches.prepareAll(this, strings2, pool);
+        return SimilarityBatches.compareMatrix(profiles1, profiles2, this::compareProfiles, pool);
+    }
+
+    default double[][] calculateMatrix(final String[][] stringLists1, final String[][] stringLists2) {
+        return this.calculateMatrix(stringLists1, stringLists2, SimilarityBatches.defaultPool());
+    }
+
+    /**
+     * Calculates the similarities of all pairs of string lists from the two inputs with calculate(String[], String[])
+     * on the threads of the provided pool, e.g., the similarities of all pairs of columns of two relations.
+     * @param stringLists1 The string lists that determine the rows of the matrix.
+     * @param stringLists2 The string lists that determine the columns of the matrix.
+     * @param pool The pool that executes the calculation.
+     * @return The matrix whose cell [i][j] is the similarity of stringLists1[i] and stringLists2[j].
+     */
+    default double[][] calculateMatrix(final String[][] stringLists1, final String[][] stringLists2, final ForkJoinPool pool) {
+        return SimilarityBatches.compareMatrix(stringLists1, stringLists2,
+                (list1, list2, minSimilarity) -> this.calculate((String[]) list1, (String[]) list2), pool);
+    }
+
+    default List<SimilarPair> calculatePairs(final String[] strings1, final String[] strings2, final double minSimilarity) {
+        return this.calculatePairs(strings1, strings2, minSimilarity, SimilarityBatches.defaultPool());
+    }
+
+    /**
+     * Finds all pairs of strings from the two inputs whose similarity is at least minSimilarity on the threads of the
+     * provided pool. The bound is passed on to compareProfiles(), so measures can stop early for dissimilar pairs.
+     * @param strings1 The first strings.
+     * @param strings2 The second strings.
+     * @param minSimilarity The smallest similarity of a reported pair.
+     * @param pool The pool that executes the calculation.
+     * @return The similar pairs ordered by the index of their first and then of their second string.
+     */
+    default List<SimilarPair> calculatePairs(final String[] strings1, final String[] strings2, final double minSimilarity, final ForkJoinPool pool) {
+        Object[] profiles1 = SimilarityBatches.prepareAll(this, strings1, pool);
+        Object[] profiles2 = SimilarityBatches.prepareAll(this, strings2, pool);
+        return SimilarityBatches.comparePairs(profiles1, profiles2, minSimilarity, this::compareProfiles, pool);
+    }
 }
@@ -0,0 +1,65 @@
+package de.di.similarity_measures.helper;
+
+/**
+ * Hashing bundles the hash functions of the token-based similarity measures. The mix functions are the finalizers of
+ * MurmurHash3: they are bijective, i.e., two different inputs never collide, and they spread every input bit over all
+ * output bits, which turns structured codes such as packed characters into uniformly distributed hashes.
+ */
+public final class Hashing {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private Hashing() {
+    }
+
+    public static long mix64(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    public static int mix32(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    /**
+     * Hashes the characters of the input into 64 bits with the block and finalization steps of MurmurHash3 (x64): the
+     * UTF-16 units are processed in blocks of four, i.e., 64 bits, and the length is mixed in at the end.
+     * @param chars The characters that should be hashed.
+     * @return The 64-bit hash of the characters.
+     */
+    public static long murmur3(CharSequence chars) {
+        int length = chars.length();
+        long hash = 0;
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            long block = chars.charAt(i) | (long) chars.charAt(i + 1) << 16 | (long) chars.charAt(i + 2) << 32 | (long) chars.charAt(i + 3) << 48;
+            hash ^= mixBlock(block);
+            hash = Long.rotateLeft(hash, 27) * 5 + 0x52dce729;
+        }
+        if (i < length) {
+            long tail = 0;
+            for (int shift = 0; i < length; i++, shift += 16)
+                tail |= (long) chars.charAt(i) << shift;
+            hash ^= mixBlock(tail);
+        }
+        hash ^= 2L * length;
+        return mix64(hash);
+    }
+
+    private static long mixBlock(long block) {
+        block *= C1;
+        block = Long.rotateLeft(block, 31);
+        block *= C2;
+        return block;
+    }
+}
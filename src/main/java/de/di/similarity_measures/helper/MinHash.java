@@ -8,8 +8,12 @@ public class MinHash {
     // The comparator for the MinHashing; the comparator defines the sortation for this token-based minhash function
     private final Comparator<String> comparator;
 
+    // The seed of the permutation that orders hashed tokens; every sortByPosition yields a different permutation
+    private final long seed;
+
     public MinHash(int sortByPosition) {
         this.comparator = this.createComparatorFor(sortByPosition);
+        this.seed = Hashing.mix64(0x9e3779b97f4a7c15L * (sortByPosition + 1));
     }
 
     public String hash(final String[] strings) {
@@ -21,6 +25,47 @@ public class MinHash {
                 .orElseThrow();
     }
 
+    /**
+     * Returns the minimum of the hashed tokens, e.g., of Tokenizer#tokenize(String, long[]), w.r.t. the random
+     * permutation of this MinHash function. Unlike the String comparator, the permutation does not prefer tokens with
+     * a common prefix, so the minimum of two token lists agrees with the probability of their Jaccard similarity.
+     * @param tokens The buffer of hashed tokens.
+     * @param numTokens The number of tokens in the buffer.
+     * @return The token with the smallest permuted value or 0, if there are no tokens.
+     */
+    public long hash(final long[] tokens, final int numTokens) {
+        long minToken = 0;
+        long minValue = 0;
+        for (int i = 0; i < numTokens; i++) {
+            long value = Hashing.mix64(tokens[i] ^ this.seed);
+            if (i == 0 || Long.compareUnsigned(value, minValue) < 0) {
+                minToken = tokens[i];
+                minValue = value;
+            }
+        }
+        return minToken;
+    }
+
+    /**
+     * Returns the minimum of the hashed tokens, e.g., of Tokenizer#tokenize(String, int[]), w.r.t. the random
+     * permutation of this MinHash function; see hash(long[], int).
+     * @param tokens The buffer of hashed tokens.
+     * @param numTokens The number of tokens in the buffer.
+     * @return The token with the smallest permuted value or 0, if there are no tokens.
+     */
+    public int hash(final int[] tokens, final int numTokens) {
+        int minToken = 0;
+        int minValue = 0;
+        for (int i = 0; i < numTokens; i++) {
+            int value = Hashing.mix32(tokens[i] ^ (int) this.seed);
+            if (i == 0 || Integer.compareUnsigned(value, minValue) < 0) {
+                minToken = tokens[i];
+                minValue = value;
+            }
+        }
+        return minToken;
+    }
+
     private Comparator<String> createComparatorFor(int sortByPosition) {
         return (o1, o2) -> {
             int i = sortByPosition;
@@ -1,5 +1,6 @@
 package de.di.similarity_measures.helper;
 
+import de.di.helper.Kernels;
 import lombok.Getter;
 
 @Getter
@@ -8,6 +9,14 @@ public class Tokenizer {
     // The symbol that should be used for padding, if "usePadding == true"
     public static String paddingSymbol = "$";
 
+    // The odd multipliers of the polynomial rolling hashes of q-grams that do not fit into a hash without loss
+    private static final long LONG_MULTIPLIER = 0x9e3779b97f4a7c15L;
+    private static final int INT_MULTIPLIER = 0x9e3779b9;
+
+    // The widened characters of the padded string that the packed 64-bit tokenization hands to its kernel; every
+    // thread's buffer grows to the longest padded string that it has tokenized so far
+    private static final ThreadLocal<long[]> CHARS = ThreadLocal.withInitial(() -> new long[64]);
+
     // The size of the tokens that the tokenizer should use
     private final int tokenSize;
 
@@ -41,4 +50,115 @@ public class Tokenizer {
             tokens[i] = s.substring(i, i + this.tokenSize);
         return tokens;
     }
+
+    /**
+     * Returns the number of tokens that the tokenization of the input string yields, i.e., the capacity that a hash
+     * buffer for this string needs.
+     * @param string The string argument that should be tokenized.
+     * @return The number of tokens of the argument.
+     */
+    public int numTokens(final String string) {
+        int length = string.length() + 2 * this.paddingLength();
+        return (length < this.tokenSize) ? 0 : length - (this.tokenSize - 1);
+    }
+
+    /**
+     * Tokenizes the input string into 64-bit hash codes of its tokens, which are written into the provided buffer in
+     * token order. The padding is applied virtually, so the tokenization creates neither a padded string nor token
+     * strings. Tokens of up to four characters are packed into the code without loss and therefore never collide;
+     * longer tokens are hashed with a rolling polynomial hash, which updates the code with every character in constant
+     * time. Equal tokens always get equal codes, no matter which string they come from.
+     * @param string The string argument that should be tokenized.
+     * @param hashes The buffer for the hash codes; it must hold at least numTokens(string) codes.
+     * @return The number of tokens, i.e., hash codes written into the buffer.
+     */
+    public int tokenize(final String string, final long[] hashes) {
+        int numTokens = this.checkCapacity(string, hashes.length);
+        int paddingLength = this.paddingLength();
+        int length = string.length() + 2 * paddingLength;
+        int q = this.tokenSize;
+
+        if (q <= 4) {
+            long[] chars = CHARS.get();
+            if (chars.length < length) {
+                chars = new long[Math.max(length, 2 * chars.length)];
+                CHARS.set(chars);
+            }
+            for (int position = 0; position < length; position++)
+                chars[position] = charAt(string, paddingLength, position);
+            Kernels.hashPackedQGrams(chars, numTokens, q, hashes);
+            return numTokens;
+        }
+
+        long outFactor = 1;
+        for (int i = 0; i < q; i++)
+            outFactor *= LONG_MULTIPLIER;
+
+        long hash = 0;
+        for (int position = 0; position < length; position++) {
+            hash = hash * LONG_MULTIPLIER + charAt(string, paddingLength, position);
+            if (position >= q)
+                hash -= charAt(string, paddingLength, position - q) * outFactor;
+            if (position >= q - 1)
+                hashes[position - q + 1] = Hashing.mix64(hash);
+        }
+        return numTokens;
+    }
+
+    /**
+     * Tokenizes the input string into 32-bit hash codes of its tokens; see tokenize(String, long[]). Tokens of up to
+     * two characters are packed into the code without loss.
+     * @param string The string argument that should be tokenized.
+     * @param hashes The buffer for the hash codes; it must hold at least numTokens(string) codes.
+     * @return The number of tokens, i.e., hash codes written into the buffer.
+     */
+    public int tokenize(final String string, final int[] hashes) {
+        int numTokens = this.checkCapacity(string, hashes.length);
+        int paddingLength = this.paddingLength();
+        int length = string.length() + 2 * paddingLength;
+        int q = this.tokenSize;
+
+        boolean packed = q <= 2;
+        int mask = (q < 2) ? 0xffff : -1;
+        int outFactor = 1;
+        for (int i = 0; i < q; i++)
+            outFactor *= INT_MULTIPLIER;
+
+        int hash = 0;
+        for (int position = 0; position < length; position++) {
+            char c = charAt(string, paddingLength, position);
+            if (packed) {
+                hash = ((hash << 16) | c) & mask;
+            } else {
+                hash = hash * INT_MULTIPLIER + c;
+                if (position >= q)
+                    hash -= charAt(string, paddingLength, position - q) * outFactor;
+            }
+            if (position >= q - 1)
+                hashes[position - q + 1] = Hashing.mix32(hash);
+        }
+        return numTokens;
+    }
+
+    private int checkCapacity(String string, int capacity) {
+        if (this.tokenSize < 1)
+            throw new IllegalArgumentException("Hashed tokens need a token size of at least 1, but the token size is " + this.tokenSize + ".");
+        int numTokens = this.numTokens(string);
+        if (capacity < numTokens)
+            throw new IllegalArgumentException("The buffer holds " + capacity + " hashes, but the string has " + numTokens + " tokens.");
+        return numTokens;
+    }
+
+    private int paddingLength() {
+        return this.usePadding ? paddingSymbol.length() * Math.max(0, this.tokenSize - 1) : 0;
+    }
+
+    // Returns the character at the provided position of the padded string without creating the padded string
+    private static char charAt(String string, int paddingLength, int position) {
+        int index = position - paddingLength;
+        if (index >= 0 && index < string.length())
+            return string.charAt(index);
+        int offset = (index < 0) ? position : index - string.length();
+        return paddingSymbol.charAt(offset % paddingSymbol.length());
+    }
 }
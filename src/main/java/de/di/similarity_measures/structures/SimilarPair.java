@@ -0,0 +1,23 @@
+package de.di.similarity_measures.structures;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SimilarPair {
+
+    // The position of the first value in the first input array.
+    private final int index1;
+
+    // The position of the second value in the second input array.
+    private final int index2;
+
+    // The similarity of the two values.
+    private final double similarity;
+
+    @Override
+    public String toString() {
+        return "SimilarPair(" + String.format("%1.6f", this.similarity) + ": " + this.index1 + ", " + this.index2 + ')';
+    }
+}
@@ -0,0 +1,155 @@
+package de.di.structures;
+
+import lombok.Getter;
+
+import java.util.regex.Pattern;
+
+/**
+ * ColumnStatistics summarize the values of one column: the number of (empty) values, the number of distinct values as
+ * a HyperLogLog sketch and, if known, as an exact count, the smallest and largest value w.r.t. String#compareTo, the
+ * average and maximum value length, and the most specific type that all non-empty values conform to.
+ */
+@Getter
+public class ColumnStatistics {
+
+    /**
+     * The types are ordered from specific to general: every INTEGER value is also a DECIMAL value and every value is a
+     * STRING value; EMPTY means that a column holds no non-empty values.
+     */
+    public enum Type {
+        EMPTY, INTEGER, DECIMAL, STRING;
+
+        private static final Pattern INTEGER_PATTERN = Pattern.compile("[+-]?\\d+");
+        private static final Pattern DECIMAL_PATTERN = Pattern.compile("[+-]?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?");
+
+        public static Type of(String value) {
+            if (value.isEmpty())
+                return EMPTY;
+            if (INTEGER_PATTERN.matcher(value).matches())
+                return INTEGER;
+            if (DECIMAL_PATTERN.matcher(value).matches())
+                return DECIMAL;
+            return STRING;
+        }
+
+        public Type generalize(Type other) {
+            return (this.compareTo(other) >= 0) ? this : other;
+        }
+    }
+
+    private final long numValues;
+    private final long numEmptyValues;
+
+    // The exact number of distinct values or -1 if only the sketch is known
+    private final long numDistinctValues;
+    private final HyperLogLog distinctValues;
+
+    // The smallest and largest value, including the empty value; null if the column has no values
+    private final String minValue;
+    private final String maxValue;
+
+    private final double averageLength;
+    private final int maxLength;
+    private final Type type;
+
+    private ColumnStatistics(long numValues, long numEmptyValues, long numDistinctValues, HyperLogLog distinctValues,
+                             String minValue, String maxValue, double averageLength, int maxLength, Type type) {
+        this.numValues = numValues;
+        this.numEmptyValues = numEmptyValues;
+        this.numDistinctValues = numDistinctValues;
+        this.distinctValues = distinctValues;
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+        this.averageLength = averageLength;
+        this.maxLength = maxLength;
+        this.type = type;
+    }
+
+    /**
+     * Calculates the statistics of a dictionary-encoded column. Every distinct value is looked up and inspected only
+     * once and weighted with its number of occurrences; the dictionary order yields the minimum and maximum directly
+     * and its size the exact number of distinct values. The dictionary is never copied, so the statistics of an
+     * off-heap column hold only one decoded value on the heap at a time.
+     * @param column The dictionary-encoded column.
+     * @return The statistics of the column.
+     */
+    public static ColumnStatistics of(EncodedColumn column) {
+        int cardinality = column.cardinality();
+        int[] counts = column.countCodes();
+
+        HyperLogLog distinctValues = new HyperLogLog();
+        long numEmptyValues = 0;
+        long totalLength = 0;
+        int maxLength = 0;
+        Type type = Type.EMPTY;
+        for (int code = 0; code < cardinality; code++) {
+            String value = column.lookup(code);
+            distinctValues.add(value);
+            if (value.isEmpty())
+                numEmptyValues = counts[code];
+            totalLength += (long) value.length() * counts[code];
+            maxLength = Math.max(maxLength, value.length());
+            type = type.generalize(Type.of(value));
+        }
+
+        int numValues = column.size();
+        return new ColumnStatistics(numValues, numEmptyValues, cardinality, distinctValues,
+                (cardinality > 0) ? column.lookup(0) : null, (cardinality > 0) ? column.lookup(cardinality - 1) : null,
+                (numValues > 0) ? (double) totalLength / numValues : 0, maxLength, type);
+    }
+
+    /**
+     * Returns the number of distinct values: the exact count if it is known and the HyperLogLog estimate otherwise.
+     * @return The (estimated) number of distinct values.
+     */
+    public long getDistinctEstimate() {
+        return (this.numDistinctValues >= 0) ? this.numDistinctValues : this.distinctValues.estimate();
+    }
+
+    public boolean isDistinctCountExact() {
+        return this.numDistinctValues >= 0;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnStatistics(" + this.numValues + " values, " + this.numEmptyValues + " empty, ~" + this.getDistinctEstimate() +
+                " distinct, [" + this.minValue + ", " + this.maxValue + "], avg length " + String.format("%.2f", this.averageLength) +
+                ", max length " + this.maxLength + ", " + this.type + ")";
+    }
+
+    /**
+     * The Builder collects the statistics of a column whose values are seen one by one, e.g., while a file is
+     * streamed. It holds only the sketch and a few counters, so the number of distinct values is an estimate.
+     */
+    public static class Builder {
+
+        private final HyperLogLog distinctValues = new HyperLogLog();
+        private long numValues = 0;
+        private long numEmptyValues = 0;
+        private String minValue = null;
+        private String maxValue = null;
+        private long totalLength = 0;
+        private int maxLength = 0;
+        private Type type = Type.EMPTY;
+
+        public void add(String value) {
+            this.numValues++;
+            if (value.isEmpty())
+                this.numEmptyValues++;
+            this.distinctValues.add(value);
+            if (this.minValue == null || value.compareTo(this.minValue) < 0)
+                this.minValue = value;
+            if (this.maxValue == null || value.compareTo(this.maxValue) > 0)
+                this.maxValue = value;
+            this.totalLength += value.length();
+            this.maxLength = Math.max(this.maxLength, value.length());
+            if (this.type != Type.STRING)
+                this.type = this.type.generalize(Type.of(value));
+        }
+
+        public ColumnStatistics build() {
+            return new ColumnStatistics(this.numValues, this.numEmptyValues, -1, this.distinctValues, this.minValue, this.maxValue,
+                    (this.numValues > 0) ? (double) this.totalLength / this.numValues : 0, this.maxLength, this.type);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package de.di.structures;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+/**
+ * A DictionaryColumn is the dictionary-encoded representation of one attribute of a relation. Every distinct value is
+ * stored exactly once in the dictionary and every record stores only the int code of its value. The dictionary is
+ * order-preserving, i.e., it is sorted ascending w.r.t. String#compareTo, so that comparing two codes yields the same
+ * result as comparing the two values they stand for.
+ */
+@Getter
+public class DictionaryColumn implements EncodedColumn {
+
+    // The distinct values of this column in ascending order; a code is the index of its value in this array.
+    private final String[] dictionary;
+
+    // The dictionary code of every value of this column in record order.
+    private final int[] codes;
+
+    public DictionaryColumn(final String[] dictionary, final int[] codes) {
+        this.dictionary = dictionary;
+        this.codes = codes;
+    }
+
+    /**
+     * Dictionary-encodes the provided column values.
+     * @param values The values of the column in record order.
+     * @return The dictionary-encoded column.
+     */
+    public static DictionaryColumn encode(final String[] values) {
+        Builder builder = new Builder(values.length);
+        for (String value : values)
+            builder.add(value);
+        return builder.build();
+    }
+
+    /**
+     * Creates a column from preliminary, unordered codes by sorting their dictionary and translating the codes into
+     * the final, order-preserving codes. Equal values in the preliminary dictionary are merged into one code.
+     * @param dictionary The preliminary dictionary; a preliminary code is an index into this array.
+     * @param codes The preliminary codes of the column; the array is translated in place.
+     * @return The dictionary-encoded column.
+     */
+    public static DictionaryColumn sort(final String[] dictionary, final int[] codes) {
+        String[] sortedDictionary = dictionary.clone();
+        Arrays.sort(sortedDictionary);
+
+        int numDistinct = 0;
+        for (int i = 0; i < sortedDictionary.length; i++)
+            if (i == 0 || !sortedDictionary[i].equals(sortedDictionary[numDistinct - 1]))
+                sortedDictionary[numDistinct++] = sortedDictionary[i];
+        if (numDistinct < sortedDictionary.length)
+            sortedDictionary = Arrays.copyOf(sortedDictionary, numDistinct);
+
+        int[] rank = new int[dictionary.length];
+        for (int code = 0; code < dictionary.length; code++)
+            rank[code] = Arrays.binarySearch(sortedDictionary, dictionary[code]);
+
+        for (int record = 0; record < codes.length; record++)
+            codes[record] = rank[codes[record]];
+        return new DictionaryColumn(sortedDictionary, codes);
+    }
+
+    /**
+     * Returns the number of values, i.e., records in this column.
+     * @return The number of values in this column.
+     */
+    public int size() {
+        return this.codes.length;
+    }
+
+    /**
+     * Returns the number of distinct values in this column.
+     * @return The number of distinct values in this column.
+     */
+    public int cardinality() {
+        return this.dictionary.length;
+    }
+
+    public int getCode(final int record) {
+        return this.codes[record];
+    }
+
+    @Override
+    public String lookup(final int code) {
+        return this.dictionary[code];
+    }
+
+    public String getValue(final int record) {
+        return this.dictionary[this.codes[record]];
+    }
+
+    /**
+     * Checks whether every value in this column occurs only once.
+     * @return true if this column contains no duplicate values.
+     */
+    public boolean isUnique() {
+        return this.dictionary.length == this.codes.length;
+    }
+
+    /**
+     * Counts the occurrences of every dictionary value in this column.
+     * @return An array that stores for every code the number of records with that code.
+     */
+    public int[] countCodes() {
+        int[] counts = new int[this.dictionary.length];
+        for (int code : this.codes)
+            counts[code]++;
+        return counts;
+    }
+
+    /**
+     * Estimates the heap that this column saves by storing every distinct value only once: compared to a String
+     * object per value, every repetition of a value costs nothing but its code.
+     * @return The estimated number of saved bytes.
+     */
+    public long estimateSavedBytes() {
+        int[] counts = this.countCodes();
+        long savedBytes = 0;
+        for (int code = 0; code < counts.length; code++)
+            if (counts[code] > 1)
+                savedBytes += (counts[code] - 1) * estimateSize(this.dictionary[code]);
+        return savedBytes;
+    }
+
+    /**
+     * Estimates the heap size of a String on a 64 bit JVM with compressed references and compact strings: 24 bytes for
+     * the String object plus a byte array with a 16 byte header and one byte per character for Latin-1 strings or two
+     * bytes per character otherwise, aligned to 8 bytes.
+     * @param value The String to measure.
+     * @return The estimated size of the String in bytes.
+     */
+    public static long estimateSize(String value) {
+        boolean latin1 = true;
+        for (int i = 0; i < value.length() && latin1; i++)
+            latin1 = value.charAt(i) < 256;
+        long arraySize = 16 + (latin1 ? value.length() : 2L * value.length());
+        return 24 + ((arraySize + 7) & ~7L);
+    }
+
+    /**
+     * Decodes this column back into its plain values. Equal values share the same String instance.
+     * @return The values of this column in record order.
+     */
+    public String[] decode() {
+        String[] values = new String[this.codes.length];
+        for (int record = 0; record < this.codes.length; record++)
+            values[record] = this.dictionary[this.codes[record]];
+        return values;
+    }
+
+    /**
+     * Creates a new column whose values are the normalized values of this column. The normalizer is applied only
+     * once per distinct value and the codes are re-mapped without touching the values again, which makes, for
+     * instance, trimming a column much cheaper than trimming all of its values.
+     * @param normalizer The function that normalizes a single value.
+     * @return The dictionary-encoded column of the normalized values.
+     */
+    public DictionaryColumn map(final UnaryOperator<String> normalizer) {
+        String[] normalized = new String[this.dictionary.length];
+        for (int code = 0; code < this.dictionary.length; code++)
+            normalized[code] = normalizer.apply(this.dictionary[code]);
+
+        DictionaryColumn normalizedDictionary = encode(normalized);
+        int[] remapping = normalizedDictionary.getCodes();
+
+        int[] mappedCodes = new int[this.codes.length];
+        for (int record = 0; record < this.codes.length; record++)
+            mappedCodes[record] = remapping[this.codes[record]];
+        return new DictionaryColumn(normalizedDictionary.getDictionary(), mappedCodes);
+    }
+
+    @Override
+    public String toString() {
+        return "DictionaryColumn(" + this.codes.length + " values, " + this.dictionary.length + " distinct)";
+    }
+
+    /**
+     * The Builder encodes the values of a column one by one while they are read. Values receive preliminary codes in
+     * the order of their first occurrence; build() sorts the dictionary and translates these codes into the final,
+     * order-preserving codes.
+     */
+    public static class Builder {
+
+        private final Object2IntOpenHashMap<String> codeOf;
+        private final IntArrayList codes;
+
+        public Builder() {
+            this(16);
+        }
+
+        public Builder(final int expectedSize) {
+            this.codeOf = new Object2IntOpenHashMap<>();
+            this.codeOf.defaultReturnValue(-1);
+            this.codes = new IntArrayList(expectedSize);
+        }
+
+        public int size() {
+            return this.codes.size();
+        }
+
+        public void add(final String value) {
+            int code = this.codeOf.getInt(value);
+            if (code < 0) {
+                code = this.codeOf.size();
+                this.codeOf.put(value, code);
+            }
+            this.codes.add(code);
+        }
+
+        public DictionaryColumn build() {
+            String[] dictionary = new String[this.codeOf.size()];
+            for (Object2IntOpenHashMap.Entry<String> entry : this.codeOf.object2IntEntrySet())
+                dictionary[entry.getIntValue()] = entry.getKey();
+            return sort(dictionary, this.codes.toIntArray());
+        }
+    }
+}
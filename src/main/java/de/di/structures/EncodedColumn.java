@@ -0,0 +1,102 @@
+package de.di.structures;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * An EncodedColumn is the read interface of a dictionary-encoded attribute: every record stores the int code of its
+ * value and the order-preserving dictionary translates codes back into values, i.e., comparing two codes yields the
+ * same result as comparing the two values they stand for. A DictionaryColumn keeps dictionary and codes in Java arrays,
+ * an OffHeapColumn keeps them outside of the Java heap.
+ */
+public interface EncodedColumn {
+
+    /**
+     * Returns the number of values, i.e., records in this column.
+     * @return The number of values in this column.
+     */
+    int size();
+
+    /**
+     * Returns the number of distinct values in this column.
+     * @return The number of distinct values in this column.
+     */
+    int cardinality();
+
+    int getCode(int record);
+
+    /**
+     * Returns the dictionary value that the provided code stands for.
+     * @param code A code of this column.
+     * @return The value of the code.
+     */
+    String lookup(int code);
+
+    default String getValue(int record) {
+        return this.lookup(this.getCode(record));
+    }
+
+    /**
+     * Returns the codes of all records as an array; implementations that do not keep the codes on the heap return a copy.
+     * @return The dictionary code of every value in record order.
+     */
+    int[] getCodes();
+
+    /**
+     * Returns the distinct values in ascending order as an array; implementations that do not keep the dictionary on
+     * the heap return a copy.
+     * @return The dictionary of this column.
+     */
+    String[] getDictionary();
+
+    /**
+     * Checks whether every value in this column occurs only once.
+     * @return true if this column contains no duplicate values.
+     */
+    default boolean isUnique() {
+        return this.cardinality() == this.size();
+    }
+
+    /**
+     * Counts the occurrences of every dictionary value in this column.
+     * @return An array that stores for every code the number of records with that code.
+     */
+    default int[] countCodes() {
+        int[] counts = new int[this.cardinality()];
+        for (int record = 0; record < this.size(); record++)
+            counts[this.getCode(record)]++;
+        return counts;
+    }
+
+    /**
+     * Estimates the heap that this column saves by storing every distinct value only once: compared to a String
+     * object per value, every repetition of a value costs nothing but its code.
+     * @return The estimated number of saved bytes.
+     */
+    default long estimateSavedBytes() {
+        int[] counts = this.countCodes();
+        long savedBytes = 0;
+        for (int code = 0; code < counts.length; code++)
+            if (counts[code] > 1)
+                savedBytes += (counts[code] - 1) * DictionaryColumn.estimateSize(this.lookup(code));
+        return savedBytes;
+    }
+
+    /**
+     * Decodes this column back into its plain values.
+     * @return The values of this column in record order.
+     */
+    default String[] decode() {
+        String[] values = new String[this.size()];
+        for (int record = 0; record < values.length; record++)
+            values[record] = this.getValue(record);
+        return values;
+    }
+
+    /**
+     * Creates a new column whose values are the normalized values of this column. The normalizer is applied only
+     * once per distinct value and the codes are re-mapped without touching the values again.
+     * @param normalizer The function that normalizes a single value.
+     * @return The encoded column of the normalized values.
+     */
+    EncodedColumn map(UnaryOperator<String> normalizer);
+}
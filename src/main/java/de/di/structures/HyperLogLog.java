@@ -0,0 +1,92 @@
+package de.di.structures;
+
+/**
+ * A HyperLogLog sketch estimates the number of distinct values in a multiset in constant memory. Every value is hashed
+ * to 64 bits; the first bits select one of 2^precision registers and the register remembers the longest run of
+ * leading zeros among the remaining bits of its values. The standard error of the estimate is 1.04 / sqrt(2^precision).
+ */
+public class HyperLogLog {
+
+    public static final int DEFAULT_PRECISION = 12;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18)
+            throw new IllegalArgumentException("The precision of a HyperLogLog sketch must be in [4,18], but is " + precision + ".");
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public void add(String value) {
+        this.addHash(hash(value));
+    }
+
+    public void addHash(long hash) {
+        int register = (int) (hash >>> (64 - this.precision));
+        // The sentinel bit bounds the run of zeros if all remaining bits are zero
+        long remainder = (hash << this.precision) | (1L << (this.precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remainder) + 1);
+        if (rank > this.registers[register])
+            this.registers[register] = rank;
+    }
+
+    /**
+     * Adds all values of the other sketch to this sketch; afterwards, this sketch estimates the size of the union.
+     * @param other A sketch with the same precision.
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != this.precision)
+            throw new IllegalArgumentException("Only HyperLogLog sketches with the same precision can be merged.");
+        for (int i = 0; i < this.registers.length; i++)
+            if (other.registers[i] > this.registers[i])
+                this.registers[i] = other.registers[i];
+    }
+
+    /**
+     * Estimates the number of distinct values added to this sketch; small cardinalities are estimated with linear
+     * counting over the empty registers.
+     * @return The estimated number of distinct values.
+     */
+    public long estimate() {
+        int m = this.registers.length;
+        double sum = 0;
+        int emptyRegisters = 0;
+        for (byte register : this.registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0)
+                emptyRegisters++;
+        }
+
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && emptyRegisters > 0)
+            estimate = m * Math.log((double) m / emptyRegisters);
+        return Math.round(estimate);
+    }
+
+    /**
+     * Hashes a String to 64 bits with FNV-1a over its characters followed by the MurmurHash3 finalizer, which spreads
+     * the entropy of similar values over all bits.
+     * @param value The value to hash.
+     * @return The 64 bit hash of the value.
+     */
+    public static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
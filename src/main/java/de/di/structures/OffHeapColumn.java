@@ -0,0 +1,393 @@
+package de.di.structures;
+
+import it.unimi.dsi.fastutil.HashCommon;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+import java.util.function.UnaryOperator;
+
+/**
+ * An OffHeapColumn stores a dictionary-encoded column outside of the Java heap: the codes, the end offsets of the
+ * dictionary values and the UTF-8 bytes of these values are held in three buffers, which are either direct buffers or
+ * memory-mapped regions of a temporary file. A column of millions of values thus costs the garbage collector only a
+ * handful of objects; values are decoded into Strings only when they are read. Memory-mapped columns are not bounded
+ * by -Xmx or -XX:MaxDirectMemorySize, because the operating system pages their data in and out as needed. A Builder
+ * encodes a column whose values are seen one by one directly into such buffers, without an on-heap copy.
+ */
+public class OffHeapColumn implements EncodedColumn {
+
+    private final int size;
+    private final int cardinality;
+
+    // The dictionary code of every value of this column in record order.
+    private final IntBuffer codes;
+
+    // The exclusive end offset of every dictionary value in the values buffer; a value starts where its predecessor ends.
+    private final IntBuffer ends;
+
+    // The UTF-8 bytes of all dictionary values in ascending order of the values.
+    private final ByteBuffer values;
+
+    // The directory of the temporary files that back this column or null, if the column uses direct buffers.
+    private final Path directory;
+
+    private OffHeapColumn(int size, int cardinality, IntBuffer codes, IntBuffer ends, ByteBuffer values, Path directory) {
+        this.size = size;
+        this.cardinality = cardinality;
+        this.codes = codes;
+        this.ends = ends;
+        this.values = values;
+        this.directory = directory;
+    }
+
+    /**
+     * Copies the provided column into direct buffers. Note that direct buffers are limited by
+     * -XX:MaxDirectMemorySize, which defaults to the maximum heap size.
+     * @param column The column to copy.
+     * @return The off-heap copy of the column.
+     */
+    public static OffHeapColumn of(EncodedColumn column) {
+        return of(column, null);
+    }
+
+    /**
+     * Copies the provided column into a memory-mapped temporary file in the provided directory. The file is deleted
+     * right away where the operating system allows it, and otherwise when the JVM exits; its mapping stays valid
+     * until the column is garbage collected.
+     * @param column The column to copy.
+     * @param directory The directory of the temporary file or null to use direct buffers instead.
+     * @return The off-heap copy of the column.
+     */
+    public static OffHeapColumn of(EncodedColumn column, Path directory) {
+        return create(column.getDictionary(), column.size(), column::getCode, directory);
+    }
+
+    private static OffHeapColumn create(String[] dictionary, int size, IntUnaryOperator codeOf, Path directory) {
+        byte[][] bytes = new byte[dictionary.length][];
+        long numBytes = 0;
+        for (int code = 0; code < dictionary.length; code++) {
+            bytes[code] = dictionary[code].getBytes(StandardCharsets.UTF_8);
+            numBytes += bytes[code].length;
+        }
+        if (4L * size > Integer.MAX_VALUE || numBytes > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("A column with " + size + " values and " + numBytes + " dictionary bytes exceeds the size of a buffer.");
+
+        ByteBuffer codeBuffer = allocate(4 * size, directory);
+        ByteBuffer endBuffer = allocate(4 * dictionary.length, directory);
+        ByteBuffer valueBuffer = allocate((int) numBytes, directory);
+
+        IntBuffer codes = codeBuffer.asIntBuffer();
+        for (int record = 0; record < size; record++)
+            codes.put(record, codeOf.applyAsInt(record));
+
+        IntBuffer ends = endBuffer.asIntBuffer();
+        for (int code = 0; code < dictionary.length; code++) {
+            valueBuffer.put(bytes[code]);
+            ends.put(code, valueBuffer.position());
+        }
+        valueBuffer.clear();
+
+        return new OffHeapColumn(size, dictionary.length, codes, ends, valueBuffer, directory);
+    }
+
+    private static ByteBuffer allocate(int capacity, Path directory) {
+        if (directory == null)
+            return ByteBuffer.allocateDirect(capacity);
+
+        try {
+            Files.createDirectories(directory);
+            Path file = Files.createTempFile(directory, "column", ".bin");
+            ByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            }
+            try {
+                Files.delete(file);
+            } catch (IOException e) {
+                // Some systems do not delete files that are still mapped
+                file.toFile().deleteOnExit();
+            }
+            return buffer;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public int cardinality() {
+        return this.cardinality;
+    }
+
+    @Override
+    public int getCode(int record) {
+        if (record < 0 || record >= this.size)
+            throw new IndexOutOfBoundsException("Record " + record + " is not in a column of " + this.size + " values.");
+        return this.codes.get(record);
+    }
+
+    @Override
+    public String lookup(int code) {
+        int start = (code == 0) ? 0 : this.ends.get(code - 1);
+        int end = this.ends.get(code);
+        // Absolute reads do not touch the buffer's position, so concurrent readers need no synchronization
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = this.values.get(start + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int[] getCodes() {
+        int[] codes = new int[this.size];
+        this.codes.duplicate().get(codes);
+        return codes;
+    }
+
+    @Override
+    public String[] getDictionary() {
+        String[] dictionary = new String[this.cardinality];
+        for (int code = 0; code < dictionary.length; code++)
+            dictionary[code] = this.lookup(code);
+        return dictionary;
+    }
+
+    /**
+     * Creates a new off-heap column whose values are the normalized values of this column; the new column uses the
+     * same kind of buffers as this column. The dictionary values are normalized one by one into a Builder and the
+     * codes are re-mapped one by one, so that neither the dictionary nor the codes are copied onto the heap.
+     * @param normalizer The function that normalizes a single value.
+     * @return The off-heap column of the normalized values.
+     */
+    @Override
+    public OffHeapColumn map(UnaryOperator<String> normalizer) {
+        Builder builder = new Builder(this.directory);
+        for (int code = 0; code < this.cardinality; code++)
+            builder.add(normalizer.apply(this.lookup(code)));
+        // The normalized dictionary as a column maps every code of this column to its code in the new column
+        OffHeapColumn remapping = builder.build();
+
+        IntBuffer codes = allocate(4 * this.size, this.directory).asIntBuffer();
+        for (int record = 0; record < this.size; record++)
+            codes.put(record, remapping.getCode(this.getCode(record)));
+        return new OffHeapColumn(this.size, remapping.cardinality, codes, remapping.ends, remapping.values, this.directory);
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapColumn(" + this.size + " values, " + this.cardinality + " distinct)";
+    }
+
+    /**
+     * The Builder encodes the values of a column that are seen one by one, e.g., while a file is streamed, directly
+     * into off-heap buffers: the codes in order of first occurrence, the UTF-8 bytes of every distinct value and an
+     * open-addressing hash table that finds the code of a value that has been seen before. All buffers double their
+     * capacity when they are full. build() sorts the dictionary and re-maps the codes in place, so that the heap holds
+     * only the value that is currently added, no matter how many values the column has.
+     */
+    public static class Builder {
+
+        private final Path directory;
+
+        private int size = 0;
+        private int cardinality = 0;
+        private int numBytes = 0;
+        private boolean built = false;
+
+        // The code of every value in order of first occurrence and the UTF-8 bytes and end offsets of the distinct values
+        private ByteBuffer codes;
+        private ByteBuffer values;
+        private ByteBuffer ends;
+
+        // The hash of every distinct value and the hash table, whose slots hold code + 1 or 0 if they are empty
+        private ByteBuffer hashes;
+        private ByteBuffer table;
+        private int numSlots = 64;
+
+        /**
+         * Creates a builder whose buffers are memory-mapped temporary files in the provided directory.
+         * @param directory The directory of the temporary files or null to use direct buffers instead.
+         */
+        public Builder(Path directory) {
+            this.directory = directory;
+            this.codes = allocate(4 * 64, directory);
+            this.values = allocate(256, directory);
+            this.ends = allocate(4 * 32, directory);
+            this.hashes = allocate(4 * 32, directory);
+            this.table = allocate(4 * this.numSlots, directory);
+        }
+
+        public int size() {
+            return this.size;
+        }
+
+        public void add(String value) {
+            if (this.built)
+                throw new IllegalStateException("The column has already been built.");
+
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            // The hash is taken of the bytes, so that Strings with equal encodings get the same code
+            int hash = HashCommon.mix(Arrays.hashCode(bytes));
+            int slot = hash & (this.numSlots - 1);
+            int code;
+            while ((code = this.table.getInt(4 * slot) - 1) >= 0 && !(this.hashes.getInt(4 * code) == hash && this.equals(code, bytes)))
+                slot = (slot + 1) & (this.numSlots - 1);
+
+            if (code < 0) {
+                code = this.cardinality++;
+                this.values = this.ensureCapacity(this.values, (long) this.numBytes + bytes.length);
+                this.ends = this.ensureCapacity(this.ends, 4L * this.cardinality);
+                this.hashes = this.ensureCapacity(this.hashes, 4L * this.cardinality);
+                for (int i = 0; i < bytes.length; i++)
+                    this.values.put(this.numBytes + i, bytes[i]);
+                this.numBytes += bytes.length;
+                this.ends.putInt(4 * code, this.numBytes);
+                this.hashes.putInt(4 * code, hash);
+                this.table.putInt(4 * slot, code + 1);
+                if (2L * this.cardinality > this.numSlots)
+                    this.rehash();
+            }
+
+            this.codes = this.ensureCapacity(this.codes, 4L * (this.size + 1));
+            this.codes.putInt(4 * this.size++, code);
+        }
+
+        /**
+         * Sorts the dictionary and re-maps the codes to the sorted dictionary. The builder can not be used anymore
+         * afterwards, because the returned column takes over its code buffer.
+         * @return The off-heap column of all added values.
+         */
+        public OffHeapColumn build() {
+            if (this.built)
+                throw new IllegalStateException("The column has already been built.");
+            this.built = true;
+
+            // The hash table is not needed anymore, so it serves as the scratch buffer of the sort
+            ByteBuffer order = this.sort(allocate(4 * this.cardinality, this.directory), this.table);
+
+            // The hashes are not needed anymore either, so they are overwritten with the sorted code of every code
+            ByteBuffer ranks = this.hashes;
+            ByteBuffer sortedValues = allocate(this.numBytes, this.directory);
+            ByteBuffer sortedEnds = allocate(4 * this.cardinality, this.directory);
+            for (int rank = 0; rank < this.cardinality; rank++) {
+                int code = order.getInt(4 * rank);
+                ranks.putInt(4 * code, rank);
+                ByteBuffer value = this.values.duplicate();
+                value.limit(this.end(code)).position(this.start(code));
+                sortedValues.put(value);
+                sortedEnds.putInt(4 * rank, sortedValues.position());
+            }
+            sortedValues.clear();
+
+            for (int record = 0; record < this.size; record++)
+                this.codes.putInt(4 * record, ranks.getInt(4 * this.codes.getInt(4 * record)));
+
+            return new OffHeapColumn(this.size, this.cardinality, this.codes.asIntBuffer(), sortedEnds.asIntBuffer(), sortedValues, this.directory);
+        }
+
+        private int start(int code) {
+            return (code == 0) ? 0 : this.ends.getInt(4 * (code - 1));
+        }
+
+        private int end(int code) {
+            return this.ends.getInt(4 * code);
+        }
+
+        private boolean equals(int code, byte[] bytes) {
+            int start = this.start(code);
+            if (this.end(code) - start != bytes.length)
+                return false;
+            for (int i = 0; i < bytes.length; i++)
+                if (this.values.get(start + i) != bytes[i])
+                    return false;
+            return true;
+        }
+
+        // Compares two dictionary values in the order of String#compareTo without decoding them. The UTF-8 byte order
+        // is the code point order, which differs from the char order only where a supplementary character, whose
+        // surrogate chars are smaller than U+E000, meets a character from U+E000 to U+FFFF
+        private int compare(int code1, int code2) {
+            int position1 = this.start(code1), end1 = this.end(code1);
+            int position2 = this.start(code2), end2 = this.end(code2);
+            for (; position1 < end1 && position2 < end2; position1++, position2++) {
+                int byte1 = this.values.get(position1) & 0xff;
+                int byte2 = this.values.get(position2) & 0xff;
+                if (byte1 == byte2)
+                    continue;
+                if (byte1 >= 0xf0 && (byte2 == 0xee || byte2 == 0xef))
+                    return -1;
+                if (byte2 >= 0xf0 && (byte1 == 0xee || byte1 == 0xef))
+                    return 1;
+                return byte1 - byte2;
+            }
+            return (end1 - position1) - (end2 - position2);
+        }
+
+        // Sorts all codes by their values with a bottom-up merge sort between the two buffers and returns the buffer
+        // that holds the sorted codes
+        private ByteBuffer sort(ByteBuffer order, ByteBuffer scratch) {
+            for (int code = 0; code < this.cardinality; code++)
+                order.putInt(4 * code, code);
+
+            ByteBuffer source = order;
+            ByteBuffer target = scratch;
+            for (long width = 1; width < this.cardinality; width *= 2) {
+                for (long left = 0; left < this.cardinality; left += 2 * width) {
+                    int middle = (int) Math.min(left + width, this.cardinality);
+                    int right = (int) Math.min(left + 2 * width, this.cardinality);
+                    int i = (int) left;
+                    int j = middle;
+                    for (int k = (int) left; k < right; k++) {
+                        if (i < middle && (j >= right || this.compare(source.getInt(4 * i), source.getInt(4 * j)) <= 0))
+                            target.putInt(4 * k, source.getInt(4 * i++));
+                        else
+                            target.putInt(4 * k, source.getInt(4 * j++));
+                    }
+                }
+                ByteBuffer swap = source;
+                source = target;
+                target = swap;
+            }
+            return source;
+        }
+
+        private void rehash() {
+            if (this.numSlots > Integer.MAX_VALUE / 8)
+                throw new IllegalArgumentException("A column with more than " + this.cardinality + " distinct values exceeds the size of a buffer.");
+            this.numSlots *= 2;
+            this.table = allocate(4 * this.numSlots, this.directory);
+            for (int code = 0; code < this.cardinality; code++) {
+                int slot = this.hashes.getInt(4 * code) & (this.numSlots - 1);
+                while (this.table.getInt(4 * slot) != 0)
+                    slot = (slot + 1) & (this.numSlots - 1);
+                this.table.putInt(4 * slot, code + 1);
+            }
+        }
+
+        private ByteBuffer ensureCapacity(ByteBuffer buffer, long capacity) {
+            if (capacity <= buffer.capacity())
+                return buffer;
+            if (capacity > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("A column with " + this.size + " values and " + this.numBytes + " dictionary bytes exceeds the size of a buffer.");
+
+            ByteBuffer grown = allocate((int) Math.min(Integer.MAX_VALUE, Math.max(capacity, 2L * buffer.capacity())), this.directory);
+            ByteBuffer content = buffer.duplicate();
+            content.clear();
+            grown.put(content);
+            grown.clear();
+            return grown;
+        }
+    }
+}
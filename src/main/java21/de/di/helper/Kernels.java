@@ -0,0 +1,82 @@
+package de.di.helper;
+
+import de.di.similarity_measures.helper.Hashing;
+
+/**
+ * Kernels bundles the innermost loops that the similarity measures and profiling structures share. This is the Java 21
+ * version of the multi-release jar: it delegates to the VectorKernels if the JVM resolved the jdk.incubator.vector
+ * module, i.e., was started with --add-modules jdk.incubator.vector, and otherwise runs the same scalar loops as the
+ * Java 11 version. The system property di.kernels.scalar=true forces the scalar loops. Both paths return identical
+ * results.
+ */
+public final class Kernels {
+
+    // Whether the Vector API is available; checked once, so that the JIT removes the branch
+    private static final boolean VECTORIZED = !Boolean.getBoolean("di.kernels.scalar")
+            && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private Kernels() {
+    }
+
+    /**
+     * Counts the positions at which the two arrays hold the same value, e.g., the agreeing values of two MinHash
+     * signatures.
+     * @param values1 The first array.
+     * @param values2 The second array.
+     * @param length The number of positions that are compared.
+     * @return The number of positions i < length with values1[i] == values2[i].
+     */
+    public static int countEqual(long[] values1, long[] values2, int length) {
+        if (VECTORIZED)
+            return VectorKernels.countEqual(values1, values2, length);
+        int equal = 0;
+        for (int i = 0; i < length; i++)
+            if (values1[i] == values2[i])
+                equal++;
+        return equal;
+    }
+
+    /**
+     * Hashes the q-grams of a character sequence whose q-grams fit into 64 bits, i.e., q <= 4: the q-gram at
+     * position i packs the characters chars[i], ..., chars[i + q - 1] into one code of 16 bits per character, which
+     * Hashing.mix64 then spreads over all bits.
+     * @param chars The characters, each widened to a long.
+     * @param numTokens The number of q-grams, i.e., the number of characters minus q - 1.
+     * @param q The number of characters per q-gram.
+     * @param hashes The buffer for the hashes of the q-grams.
+     */
+    public static void hashPackedQGrams(long[] chars, int numTokens, int q, long[] hashes) {
+        if (VECTORIZED) {
+            VectorKernels.hashPackedQGrams(chars, numTokens, q, hashes);
+            return;
+        }
+        long mask = (q < 4) ? (1L << (16 * q)) - 1 : -1L;
+        long code = 0;
+        for (int position = 0; position < numTokens + q - 1; position++) {
+            code = ((code << 16) | chars[position]) & mask;
+            if (position >= q - 1)
+                hashes[position - q + 1] = Hashing.mix64(code);
+        }
+    }
+
+    /**
+     * Looks up the values at the provided indexes, e.g., the cluster ids of the records of a position list index
+     * cluster in the inverted index of another one.
+     * @param values The array that is looked up.
+     * @param indexes The indexes into the values.
+     * @param length The number of indexes that are looked up.
+     * @param result The buffer for the values; result[i] = values[indexes[i]] for all i < length.
+     */
+    public static void gather(int[] values, int[] indexes, int length, int[] result) {
+        if (VECTORIZED) {
+            VectorKernels.gather(values, indexes, length, result);
+            return;
+        }
+        for (int i = 0; i < length; i++)
+            result[i] = values[indexes[i]];
+    }
+
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+}
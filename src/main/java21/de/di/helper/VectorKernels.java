@@ -0,0 +1,70 @@
+package de.di.helper;
+
+import de.di.similarity_measures.helper.Hashing;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * VectorKernels implements the Kernels with the Vector API: every loop processes as many values per instruction as
+ * the preferred vector species of the CPU holds, e.g., four longs with AVX2 or eight longs with AVX-512, and the
+ * remaining values with scalar code. This class is loaded only if the jdk.incubator.vector module is available.
+ */
+final class VectorKernels {
+
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    private VectorKernels() {
+    }
+
+    static int countEqual(long[] values1, long[] values2, int length) {
+        int equal = 0;
+        int i = 0;
+        for (int bound = LONGS.loopBound(length); i < bound; i += LONGS.length()) {
+            LongVector vector1 = LongVector.fromArray(LONGS, values1, i);
+            LongVector vector2 = LongVector.fromArray(LONGS, values2, i);
+            equal += vector1.eq(vector2).trueCount();
+        }
+        for (; i < length; i++)
+            if (values1[i] == values2[i])
+                equal++;
+        return equal;
+    }
+
+    // Every lane packs the q characters of one q-gram with shifts and ors; the oldest character ends up in the highest
+    // bits, exactly as in the rolling scalar loop
+    static void hashPackedQGrams(long[] chars, int numTokens, int q, long[] hashes) {
+        int i = 0;
+        for (int bound = LONGS.loopBound(numTokens); i < bound; i += LONGS.length()) {
+            LongVector code = LongVector.fromArray(LONGS, chars, i);
+            for (int j = 1; j < q; j++)
+                code = code.lanewise(VectorOperators.LSHL, 16).or(LongVector.fromArray(LONGS, chars, i + j));
+            mix64(code).intoArray(hashes, i);
+        }
+        for (; i < numTokens; i++) {
+            long code = 0;
+            for (int j = 0; j < q; j++)
+                code = (code << 16) | chars[i + j];
+            hashes[i] = Hashing.mix64(code);
+        }
+    }
+
+    // Hashing.mix64 on every lane
+    private static LongVector mix64(LongVector hash) {
+        hash = hash.lanewise(VectorOperators.XOR, hash.lanewise(VectorOperators.LSHR, 33));
+        hash = hash.mul(0xff51afd7ed558ccdL);
+        hash = hash.lanewise(VectorOperators.XOR, hash.lanewise(VectorOperators.LSHR, 33));
+        hash = hash.mul(0xc4ceb9fe1a85ec53L);
+        return hash.lanewise(VectorOperators.XOR, hash.lanewise(VectorOperators.LSHR, 33));
+    }
+
+    static void gather(int[] values, int[] indexes, int length, int[] result) {
+        int i = 0;
+        for (int bound = INTS.loopBound(length); i < bound; i += INTS.length())
+            IntVector.fromArray(INTS, values, 0, indexes, i).intoArray(result, i);
+        for (; i < length; i++)
+            result[i] = values[indexes[i]];
+    }
+}
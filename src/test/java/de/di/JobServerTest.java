@@ -0,0 +1,88 @@
+package de.di;
+
+import de.di.helper.RelationCache;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JobServerTest {
+
+    private static List<String> readJob(BufferedReader in) throws IOException {
+        List<String> lines = new ArrayList<>();
+        String line;
+        while (!(line = in.readLine()).equals(JobServer.END_OF_JOB))
+            if (!line.startsWith("Runtime:"))
+                lines.add(line);
+        return lines;
+    }
+
+    private static List<String> executeLocally(String[] args) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Main.execute(args, new PrintStream(bytes, true, StandardCharsets.UTF_8), null);
+        List<String> lines = new ArrayList<>();
+        for (String line : bytes.toString(StandardCharsets.UTF_8).split("\\R"))
+            if (!line.startsWith("Runtime:"))
+                lines.add(line);
+        return lines;
+    }
+
+    @Test
+    public void testJobs() throws IOException {
+        RelationCache cache = new RelationCache(8);
+        try (JobServer server = new JobServer(0, 2, cache)) {
+            Thread serverThread = new Thread(() -> {
+                try {
+                    server.serve();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            serverThread.setDaemon(true);
+            serverThread.start();
+
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+                 PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+
+                out.println("Jaccard --string1 \"Data Integration\" --string2 \"Datenintegration\" --tokenSize 2");
+                assertEquals(executeLocally(new String[]{"Jaccard", "--string1", "Data Integration", "--string2", "Datenintegration", "--tokenSize", "2"}), readJob(in));
+
+                // The relations stay cached across jobs
+                out.println("UCCProfiler --input data/data_profiling");
+                List<String> first = readJob(in);
+                int numCached = cache.size();
+                out.println("UCCProfiler --input data/data_profiling");
+                assertEquals(first, readJob(in));
+                assertEquals(executeLocally(new String[]{"UCCProfiler", "--input", "data/data_profiling"}), first);
+                assertTrue(numCached > 0);
+                assertEquals(numCached, cache.size());
+
+                // A broken job is reported and does not end the connection
+                out.println("NoSuchCommand");
+                assertTrue(readJob(in).get(0).startsWith("Could not parse args"));
+                out.println("Levenshtein --string1 kitten --string2 sitting");
+                assertEquals(executeLocally(new String[]{"Levenshtein", "--string1", "kitten", "--string2", "sitting"}), readJob(in));
+            }
+        }
+    }
+
+    @Test
+    public void testTokenize() {
+        assertArrayEquals(new String[]{"Jaccard", "--string1", "a b", "--string2", ""}, JobServer.tokenize("  Jaccard --string1 \"a b\"\t--string2 \"\" "));
+        assertArrayEquals(new String[0], JobServer.tokenize("   "));
+    }
+}
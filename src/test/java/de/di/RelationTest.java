@@ -0,0 +1,143 @@
+package de.di;
+
+import de.di.data_profiling.UCCProfiler;
+import de.di.structures.OffHeapColumn;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RelationTest {
+
+    @Test
+    public void testInternValues() {
+        String[][] records = new String[][]{
+                {new String("DE"), new String("Berlin")},
+                {new String("DE"), new String("Hamburg")},
+                {new String("FR"), null}
+        };
+        assertNotSame(records[0][0], records[1][0]);
+
+        Relation relation = new Relation("cities", new String[]{"country", "city"}, records, true);
+
+        assertSame(records[0][0], records[1][0]);
+        assertSame(relation.getColumn(0).getValue(0), records[0][0]);
+        assertArrayEquals(new String[]{"FR", null}, records[2]);
+        assertEquals(3, relation.getNumRecords());
+        assertTrue(relation.estimateSavedBytes() > 0);
+    }
+
+    @Test
+    public void testProjection() {
+        Path file = Paths.get("data", "data_profiling", "tpch_supplier.csv");
+        Relation full = new Relation(file, true, ';', StandardCharsets.UTF_8, false);
+
+        assertProjection(full, new Relation(file, true, ';', StandardCharsets.UTF_8, new int[]{1, 3}), 1, 3);
+        assertProjection(full, new Relation(file, ';', StandardCharsets.UTF_8, "S_NAME", "S_NATIONKEY"), 1, 3);
+    }
+
+    @Test
+    public void testProjectionWithOpenCsv() throws IOException {
+        // UTF-16 files can not be memory-mapped, so they are parsed with opencsv
+        Path file = Files.createTempFile("projection", ".csv");
+        try {
+            Files.write(file, "a;b;c\n\"1;x\";2;3\n4;\"5\";\"6\"\"\"\n7\n".getBytes(StandardCharsets.UTF_16));
+            Relation full = new Relation(file, true, ';', StandardCharsets.UTF_16, false);
+
+            assertProjection(full, new Relation(file, true, ';', StandardCharsets.UTF_16, new int[]{0, 2}), 0, 2);
+            Relation fullWithoutHeader = new Relation(file, false, ';', StandardCharsets.UTF_16, false);
+            assertProjection(fullWithoutHeader, new Relation(file, false, ';', StandardCharsets.UTF_16, new int[]{1}), 1);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void assertProjection(Relation full, Relation projected, int... attributes) {
+        assertArrayEquals(full.getAttributes(), projected.getAttributes());
+        assertEquals(full.getNumRecords(), projected.getNumRecords());
+        assertEquals(full.getEncodedColumns().length, projected.getEncodedColumns().length);
+        for (int i = 0; i < full.getEncodedColumns().length; i++) {
+            final int attribute = i;
+            if (Arrays.stream(attributes).anyMatch(a -> a == attribute)) {
+                assertArrayEquals(full.getColumn(i).decode(), projected.getColumn(i).decode());
+            } else {
+                for (String value : projected.getColumn(i).decode())
+                    assertEquals("", value);
+            }
+        }
+    }
+
+    @Test
+    public void testProjectionOfUnknownAttribute() {
+        try {
+            new Relation(Paths.get("data", "data_profiling", "tpch_region.csv"), ';', StandardCharsets.UTF_8, "NO_SUCH_ATTRIBUTE");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testMoveOffHeap() {
+        Path file = Paths.get("data", "data_profiling", "tpch_supplier.csv");
+        Relation heap = new Relation(file, true, ';', StandardCharsets.UTF_8, true);
+        Relation offHeap = new Relation(file, true, ';', StandardCharsets.UTF_8, true);
+        offHeap.moveOffHeap(null);
+
+        assertTrue(Arrays.stream(offHeap.getEncodedColumns()).allMatch(column -> column instanceof OffHeapColumn));
+        assertArrayEquals(heap.getRecords(), offHeap.getRecords());
+        assertEquals(new UCCProfiler().profile(heap).toString(), new UCCProfiler().profile(offHeap).toString());
+    }
+
+    @Test
+    public void testReadOffHeap() {
+        Path file = Paths.get("data", "data_profiling", "tpch_supplier.csv");
+        Relation heap = new Relation(file, true, ';', StandardCharsets.UTF_8, true);
+        Relation offHeap = new Relation(file, true, ';', StandardCharsets.UTF_8, (Path) null);
+
+        assertTrue(Arrays.stream(offHeap.getEncodedColumns()).allMatch(column -> column instanceof OffHeapColumn));
+        assertArrayEquals(heap.getAttributes(), offHeap.getAttributes());
+        assertArrayEquals(heap.getRecords(), offHeap.getRecords());
+        for (int attribute = 0; attribute < heap.getAttributes().length; attribute++)
+            assertEquals(heap.getStatistics(attribute).toString(), offHeap.getStatistics(attribute).toString());
+        assertEquals(new UCCProfiler().profile(heap).toString(), new UCCProfiler().profile(offHeap).toString());
+    }
+
+    @Test
+    public void testSchemaOnly() {
+        Relation relation = new Relation("streamed", new String[]{"a", "b"}, 3);
+        assertEquals(3, relation.getNumRecords());
+        assertArrayEquals(new String[]{"a", "b"}, relation.getAttributes());
+        assertEquals("streamed[a, b]", relation.toString());
+
+        try {
+            relation.getColumn(0);
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        try {
+            relation.getStatistics(1);
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        try {
+            relation.getRecords();
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+}
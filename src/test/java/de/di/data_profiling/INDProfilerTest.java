@@ -5,8 +5,12 @@ import de.di.data_profiling.structures.IND;
 import org.junit.Test;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 
@@ -25,4 +29,17 @@ public class INDProfilerTest {
         List<IND> inds = profiler.profile(relations, false);
         assertEquals(211, inds.size());
     }
+
+    @Test
+    public void testStreamingCorrectness() {
+        INDProfiler profiler = new INDProfiler();
+        List<Relation> relations = Relation.readAllRelationsIn("data" + File.separator + "data_profiling", true, ';', StandardCharsets.UTF_8);
+        List<Path> files = relations.stream()
+                .map(relation -> Paths.get("data", "data_profiling", relation.getName() + ".csv"))
+                .collect(Collectors.toList());
+
+        List<String> expected = profiler.profile(relations, false).stream().map(IND::toString).collect(Collectors.toList());
+        List<String> streamed = profiler.profile(files, true, ';', StandardCharsets.UTF_8).stream().map(IND::toString).collect(Collectors.toList());
+        assertEquals(expected, streamed);
+    }
 }
@@ -8,6 +8,7 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
 
@@ -85,4 +86,32 @@ public class RecordComparatorTest {
         double similarity = recordComparator.compare(this.tuple1, this.tuple2);
         assertEquals(0.6485968992248062, similarity, 0.0000000001);
     }
+
+    @Test
+    public void testCompareBounded() {
+        Random random = new Random(3);
+        String[] values = new String[]{"Data Integration", "Datenintegration", "Data Integraton", "Marburg", "Marbrug", "", "Potsdam", "University of Potsdam"};
+        for (int run = 0; run < 200; run++) {
+            List<AttrSimWeight> attrSimWeights = new ArrayList<>();
+            attrSimWeights.add(new AttrSimWeight(0, new Levenshtein(true), 0.1 + random.nextDouble()));
+            attrSimWeights.add(new AttrSimWeight(1, new Jaccard(new Tokenizer(2, true), false), 0.1 + random.nextDouble()));
+            attrSimWeights.add(new AttrSimWeight(2, new Levenshtein(false), 0.1 + random.nextDouble()));
+            attrSimWeights.add(new AttrSimWeight(5, new Levenshtein(true), 0.1 + random.nextDouble()));
+            RecordComparator recordComparator = new RecordComparator(attrSimWeights, random.nextDouble());
+
+            String[] tuple1 = new String[3];
+            String[] tuple2 = new String[3];
+            for (int i = 0; i < 3; i++) {
+                tuple1[i] = values[random.nextInt(values.length)];
+                tuple2[i] = values[random.nextInt(values.length)];
+            }
+
+            double similarity = recordComparator.compare(tuple1, tuple2);
+            double bounded = recordComparator.compareBounded(tuple1, tuple2);
+            assertEquals(bounded, recordComparator.compareProfiles(recordComparator.prepare(tuple1), recordComparator.prepare(tuple2)), 0);
+            assertEquals(recordComparator.isDuplicate(similarity), recordComparator.isDuplicate(bounded));
+            if (recordComparator.isDuplicate(similarity))
+                assertEquals(similarity, bounded, 0);
+        }
+    }
 }
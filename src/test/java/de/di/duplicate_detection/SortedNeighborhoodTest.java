@@ -3,6 +3,7 @@ package de.di.duplicate_detection;
 import de.di.Relation;
 import de.di.duplicate_detection.structures.AttrSimWeight;
 import de.di.duplicate_detection.structures.Duplicate;
+import de.di.helper.RecordStream;
 import de.di.similarity_measures.Jaccard;
 import de.di.similarity_measures.Levenshtein;
 import de.di.similarity_measures.helper.Tokenizer;
@@ -11,12 +12,18 @@ import it.unimi.dsi.fastutil.ints.IntList;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 public class SortedNeighborhoodTest {
 
@@ -46,6 +53,50 @@ public class SortedNeighborhoodTest {
         assertEquals(40, duplicatesDetected.size());
     }
 
+    @Test
+    public void testStreamingCorrectness() {
+        Path file = Paths.get("data", "schema_matching", "Musicians_joinable", "source", "musicians_joinable_source.csv");
+        Relation relation = new Relation(file, true, ',', StandardCharsets.UTF_8);
+
+        RecordComparator recordComparator = SortedNeighborhood.suggestRecordComparatorFor(relation);
+        RecordComparator streamedComparator;
+        try (RecordStream records = RecordStream.open(file, true, ',', StandardCharsets.UTF_8)) {
+            streamedComparator = SortedNeighborhood.suggestRecordComparatorFor(records);
+        }
+
+        SortedNeighborhood snm = new SortedNeighborhood();
+        Set<Duplicate> expected = snm.detectDuplicates(relation, new int[]{1, 2, 0}, 4, recordComparator);
+        Set<Duplicate> streamed = snm.detectDuplicates(file, true, ',', StandardCharsets.UTF_8, new int[]{1, 2, 0}, 4, streamedComparator);
+
+        assertFalse(expected.isEmpty());
+        assertEquals(toSortedStrings(expected), toSortedStrings(streamed));
+    }
+
+    @Test
+    public void testStreamingFallback() throws IOException {
+        Path file = Paths.get("data", "schema_matching", "Musicians_joinable", "source", "musicians_joinable_source.csv");
+        Relation relation = new Relation(file, true, ',', StandardCharsets.UTF_8);
+        RecordComparator recordComparator = SortedNeighborhood.suggestRecordComparatorFor(relation);
+
+        // The records of a UTF-16 file can not be sought, so the file is processed in memory
+        Path utf16File = Files.createTempFile("musicians", ".csv");
+        try {
+            Files.write(utf16File, new String(Files.readAllBytes(file), StandardCharsets.UTF_8).getBytes(StandardCharsets.UTF_16));
+            SortedNeighborhood snm = new SortedNeighborhood();
+            Set<Duplicate> expected = snm.detectDuplicates(relation, new int[]{1, 2, 0}, 4, recordComparator);
+            Set<Duplicate> streamed = snm.detectDuplicates(utf16File, true, ',', StandardCharsets.UTF_16, new int[]{1, 2, 0}, 4, recordComparator);
+
+            assertFalse(expected.isEmpty());
+            assertEquals(toSortedStrings(expected), toSortedStrings(streamed));
+        } finally {
+            Files.delete(utf16File);
+        }
+    }
+
+    private static List<String> toSortedStrings(Set<Duplicate> duplicates) {
+        return duplicates.stream().sorted().map(Duplicate::toString).collect(Collectors.toList());
+    }
+
     private List<Duplicate> parseCDGoldstandard(Relation cdGold, Relation cd) {
         List<Duplicate> duplicatesGold = new ArrayList<>(cdGold.getRecords().length);
         for (String[] record : cdGold.getRecords()) {
@@ -0,0 +1,70 @@
+package de.di.helper;
+
+import de.di.similarity_measures.helper.Hashing;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class KernelsTest {
+
+    @Test
+    public void testKernelsMatchScalarLoops() {
+        Random random = new Random(6);
+        // All lengths around the vector sizes cover the vector loops and their scalar tails
+        for (int length = 0; length < 100; length++) {
+            long[] values1 = new long[length];
+            long[] values2 = new long[length];
+            int equal = 0;
+            for (int i = 0; i < length; i++) {
+                values1[i] = random.nextInt(3);
+                values2[i] = random.nextInt(3);
+                equal += (values1[i] == values2[i]) ? 1 : 0;
+            }
+            assertEquals(equal, Kernels.countEqual(values1, values2, length));
+            if (length > 0)
+                assertEquals(equal - ((values1[length - 1] == values2[length - 1]) ? 1 : 0), Kernels.countEqual(values1, values2, length - 1));
+        }
+    }
+
+    @Test
+    public void testGatherMatchesScalarLoop() {
+        Random random = new Random(7);
+        for (int length = 0; length < 100; length++) {
+            int[] values = new int[length + 1];
+            int[] indexes = new int[length];
+            for (int i = 0; i < values.length; i++)
+                values[i] = random.nextInt(10) - 1;
+            for (int i = 0; i < length; i++)
+                indexes[i] = random.nextInt(values.length);
+            int[] result = new int[length];
+            Kernels.gather(values, indexes, length, result);
+            for (int i = 0; i < length; i++)
+                assertEquals(values[indexes[i]], result[i]);
+        }
+    }
+
+    @Test
+    public void testHashPackedQGramsMatchesScalarLoop() {
+        Random random = new Random(8);
+        for (int q = 1; q <= 4; q++) {
+            for (int numTokens = 0; numTokens < 100; numTokens++) {
+                long[] chars = new long[numTokens + q - 1];
+                for (int i = 0; i < chars.length; i++)
+                    chars[i] = random.nextInt(Character.MAX_VALUE + 1);
+                long[] hashes = new long[numTokens];
+                Kernels.hashPackedQGrams(chars, numTokens, q, hashes);
+                for (int i = 0; i < numTokens; i++)
+                    assertEquals(Hashing.mix64(pack(chars, i, q)), hashes[i]);
+            }
+        }
+    }
+
+    private static long pack(long[] chars, int position, int q) {
+        long code = 0;
+        for (int j = 0; j < q; j++)
+            code = (code << 16) | chars[position + j];
+        return code;
+    }
+}
@@ -0,0 +1,140 @@
+package de.di.helper;
+
+import de.di.Relation;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MappedCsvReaderTest {
+
+    @Test
+    public void testEquivalenceOnDataFiles() throws IOException {
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(Paths.get("data"))) {
+            files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            char separator = file.toString().contains("schema_matching") ? ',' : ';';
+            boolean hasHeader = !file.toString().contains("ground_truth");
+            assertEquivalent(file, hasHeader, separator, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testEquivalenceOnQuotesAndEscapes() throws IOException {
+        String content = "a;b;c\r\n" +
+                "\"x;y\";\"say \"\"hi\"\"\";z\n" +
+                "ab\"cd\"ef;\"\";\n" +
+                "\\\"q;e\\\\f;g\\h\n" +
+                "\"multi\r\nline\";\"two\n\nbreaks\";end\r" +
+                "\n" +
+                "short\n" +
+                "ü\"ä\"ö;üü\"x\"y;\"ü\"ü\n" +
+                "1;2;3;4;5";
+        Path file = Files.createTempFile("mapped", ".csv");
+        try {
+            Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+            assertEquivalent(file, true, ';', StandardCharsets.UTF_8);
+            assertEquivalent(file, false, ';', StandardCharsets.UTF_8);
+            assertEquivalent(file, true, ';', StandardCharsets.ISO_8859_1);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testEquivalenceOnRandomInput() throws IOException {
+        char[] alphabet = new char[]{'a', 'b', ' ', ';', ';', '"', '"', '\\', '\n', '\r', 'ü', '€'};
+        Random random = new Random(42);
+        Path file = Files.createTempFile("mapped", ".csv");
+        try {
+            for (int run = 0; run < 500; run++) {
+                StringBuilder content = new StringBuilder();
+                int length = random.nextInt(60);
+                for (int i = 0; i < length; i++)
+                    content.append(alphabet[random.nextInt(alphabet.length)]);
+                Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+                assertEquivalent(file, run % 2 == 0, ';', StandardCharsets.UTF_8);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testChunkedScanning() throws Exception {
+        char[] alphabet = new char[]{'a', 'b', ';', '"', '"', '\\', '\n', '\n', '\r', 'ü'};
+        Random random = new Random(7);
+        Path file = Files.createTempFile("mapped", ".csv");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int run = 0; run < 300; run++) {
+                StringBuilder content = new StringBuilder();
+                int length = random.nextInt(200);
+                for (int i = 0; i < length; i++)
+                    content.append(alphabet[random.nextInt(alphabet.length)]);
+                Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+
+                Relation expected;
+                try {
+                    expected = new Relation(file, false, ';', StandardCharsets.UTF_8, false);
+                } catch (RuntimeException e) {
+                    continue;
+                }
+                MappedCsvReader reader = pool.submit(() -> new MappedCsvReader(file, false, ';', StandardCharsets.UTF_8, 1 + random.nextInt(16))).get();
+                assertEquals(expected.getNumRecords(), reader.getNumRecords());
+                for (int i = 0; i < expected.getAttributes().length; i++)
+                    assertArrayEquals(expected.getColumn(i).decode(), reader.decodeColumn(i).decode());
+            }
+        } finally {
+            pool.shutdown();
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testSupport() {
+        assertTrue(MappedCsvReader.supports(';', StandardCharsets.UTF_8));
+        assertTrue(MappedCsvReader.supports(',', StandardCharsets.ISO_8859_1));
+        assertEquals(false, MappedCsvReader.supports(';', StandardCharsets.UTF_16));
+        assertEquals(false, MappedCsvReader.supports('"', StandardCharsets.UTF_8));
+    }
+
+    private static void assertEquivalent(Path file, boolean hasHeader, char separator, Charset charset) {
+        Relation expected;
+        try {
+            expected = new Relation(file, hasHeader, separator, charset, false);
+        } catch (RuntimeException e) {
+            // Unterminated quotes need to be rejected by both parsers
+            boolean rejected = false;
+            try {
+                new Relation(file, hasHeader, separator, charset, true);
+            } catch (RuntimeException e2) {
+                rejected = true;
+            }
+            assertTrue(file + " should be rejected", rejected);
+            return;
+        }
+        Relation actual = new Relation(file, hasHeader, separator, charset, true);
+
+        String message = file.toString().replace(File.separatorChar, '/');
+        assertArrayEquals(message, expected.getAttributes(), actual.getAttributes());
+        assertEquals(message, expected.getNumRecords(), actual.getNumRecords());
+        assertArrayEquals(message, expected.getRecords(), actual.getRecords());
+    }
+}
@@ -0,0 +1,76 @@
+package de.di.helper;
+
+import de.di.Relation;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RecordStreamTest {
+
+    @Test
+    public void testStreamsMatchRelation() throws IOException {
+        Path[] files = new Path[]{
+                Paths.get("data", "data_profiling", "tpch_nation.csv"),
+                Paths.get("data", "schema_matching", "Musicians_joinable", "source", "musicians_joinable_source.csv")
+        };
+        for (Path file : files) {
+            char separator = file.toString().contains("schema_matching") ? ',' : ';';
+            Relation relation = new Relation(file, true, separator, StandardCharsets.UTF_8);
+            int numColumns = relation.getEncodedColumns().length;
+
+            try (RecordStream mapped = MappedCsvReader.stream(file, true, separator, StandardCharsets.UTF_8);
+                 RecordStream csv = new CsvRecordStream(file, true, separator, StandardCharsets.UTF_8)) {
+                assertArrayEquals(relation.getAttributes(), mapped.getHeader());
+                assertArrayEquals(relation.getAttributes(), csv.getHeader());
+                for (String[] record : relation.getRecords()) {
+                    assertTrue(mapped.next());
+                    assertTrue(csv.next());
+                    assertArrayEquals(record, mapped.getFields(numColumns));
+                    assertArrayEquals(record, csv.getFields(numColumns));
+                }
+                assertFalse(mapped.next());
+                assertFalse(csv.next());
+            }
+        }
+    }
+
+    @Test
+    public void testSeek() {
+        Path file = Paths.get("data", "data_profiling", "tpch_region.csv");
+        Relation relation = new Relation(file, true, ';', StandardCharsets.UTF_8);
+
+        try (RecordStream records = RecordStream.open(file, true, ';', StandardCharsets.UTF_8)) {
+            List<Long> positions = new ArrayList<>();
+            while (records.next())
+                positions.add(records.getPosition());
+            assertEquals(relation.getNumRecords(), positions.size());
+
+            for (int i = positions.size() - 1; i >= 0; i--) {
+                records.seek(positions.get(i));
+                assertTrue(records.next());
+                assertArrayEquals(relation.getRecords()[i], records.getFields(relation.getAttributes().length));
+            }
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSeekUnsupported() throws IOException {
+        Path file = Files.createTempFile("stream", ".csv");
+        try (RecordStream records = RecordStream.open(file, false, ';', StandardCharsets.UTF_16)) {
+            records.seek(0);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
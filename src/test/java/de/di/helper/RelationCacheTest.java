@@ -0,0 +1,72 @@
+package de.di.helper;
+
+import de.di.Relation;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class RelationCacheTest {
+
+    @Test
+    public void testEviction() {
+        Path region = Paths.get("data", "data_profiling", "tpch_region.csv");
+        Path nation = Paths.get("data", "data_profiling", "tpch_nation.csv");
+        Path supplier = Paths.get("data", "data_profiling", "tpch_supplier.csv");
+        RelationCache cache = new RelationCache(2);
+
+        Relation relation = cache.get(region, true, ';', StandardCharsets.UTF_8);
+        assertSame(relation, cache.get(region, true, ';', StandardCharsets.UTF_8));
+        assertNotSame(relation, cache.get(region, false, ';', StandardCharsets.UTF_8));
+
+        // The region relation with header was used least recently
+        cache.get(nation, true, ';', StandardCharsets.UTF_8);
+        assertEquals(2, cache.size());
+        assertNotSame(relation, cache.get(region, true, ';', StandardCharsets.UTF_8));
+
+        assertEquals(5, cache.getAll(Paths.get("data", "data_profiling").toString(), true, ';', StandardCharsets.UTF_8).size());
+        assertEquals(2, cache.size());
+        assertSame(cache.get(supplier, true, ';', StandardCharsets.UTF_8), cache.get(supplier, true, ';', StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testInvalidation() throws IOException {
+        Path file = Files.createTempFile("cache", ".csv");
+        try {
+            RelationCache cache = new RelationCache(4);
+            Files.write(file, "a;b\n1;2\n".getBytes(StandardCharsets.UTF_8));
+            Relation relation = cache.get(file, true, ';', StandardCharsets.UTF_8);
+            assertSame(relation, cache.get(file, true, ';', StandardCharsets.UTF_8));
+
+            Files.write(file, "a;b\n3;4\n".getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+            assertArrayEquals(new String[]{"3", "4"}, cache.get(file, true, ';', StandardCharsets.UTF_8).getRecords()[0]);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testParallelGetAll() {
+        String folder = Paths.get("data", "data_profiling").toString();
+        RelationCache cache = new RelationCache(8);
+
+        List<Relation> relations = cache.getAll(folder, true, ';', StandardCharsets.UTF_8, 4);
+        List<Relation> expected = Relation.readAllRelationsIn(folder, true, ';', StandardCharsets.UTF_8, 1);
+        assertEquals(expected.size(), relations.size());
+        for (int i = 0; i < relations.size(); i++) {
+            assertEquals(expected.get(i).getName(), relations.get(i).getName());
+            assertSame(relations.get(i), cache.getAll(folder, true, ';', StandardCharsets.UTF_8, 4).get(i));
+        }
+    }
+}
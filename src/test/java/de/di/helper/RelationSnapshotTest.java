@@ -0,0 +1,134 @@
+package de.di.helper;
+
+import de.di.Relation;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class RelationSnapshotTest {
+
+    private Path previousDirectory;
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        this.previousDirectory = RelationSnapshot.getCacheDirectory();
+        this.directory = Files.createTempDirectory("snapshots");
+        RelationSnapshot.setCacheDirectory(this.directory);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        RelationSnapshot.setCacheDirectory(this.previousDirectory);
+        try (Stream<Path> paths = Files.walk(this.directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList()))
+                Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testRoundTrip() {
+        Path[] files = new Path[]{
+                Paths.get("data", "data_profiling", "tpch_supplier.csv"),
+                Paths.get("data", "data_profiling", "abcde.csv")
+        };
+        for (Path file : files) {
+            assertNull(RelationSnapshot.load(file, true, ';', StandardCharsets.UTF_8));
+            Relation parsed = new Relation(file, true, ';', StandardCharsets.UTF_8);
+
+            RelationSnapshot snapshot = RelationSnapshot.load(file, true, ';', StandardCharsets.UTF_8);
+            assertNotNull(snapshot);
+            assertEquals(parsed.getNumRecords(), snapshot.getNumRecords());
+
+            Relation loaded = new Relation(file, true, ';', StandardCharsets.UTF_8);
+            assertEquals(parsed.getName(), loaded.getName());
+            assertArrayEquals(parsed.getAttributes(), loaded.getAttributes());
+            assertArrayEquals(parsed.getRecords(), loaded.getRecords());
+        }
+    }
+
+    @Test
+    public void testSettingsAreKeys() {
+        Path file = Paths.get("data", "data_profiling", "tpch_region.csv");
+        new Relation(file, true, ';', StandardCharsets.UTF_8);
+
+        assertNotNull(RelationSnapshot.load(file, true, ';', StandardCharsets.UTF_8));
+        assertNull(RelationSnapshot.load(file, false, ';', StandardCharsets.UTF_8));
+        assertNull(RelationSnapshot.load(file, true, ',', StandardCharsets.UTF_8));
+        assertNull(RelationSnapshot.load(file, true, ';', StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void testInvalidation() throws IOException {
+        Path file = Files.createTempFile("snapshot", ".csv");
+        try {
+            Files.write(file, "a;b\n1;2\n".getBytes(StandardCharsets.UTF_8));
+            new Relation(file, true, ';', StandardCharsets.UTF_8);
+            assertNotNull(RelationSnapshot.load(file, true, ';', StandardCharsets.UTF_8));
+
+            // Same size, but new content and modification time
+            Files.write(file, "a;b\n3;4\n".getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+            assertNull(RelationSnapshot.load(file, true, ';', StandardCharsets.UTF_8));
+            assertArrayEquals(new String[]{"3", "4"}, new Relation(file, true, ';', StandardCharsets.UTF_8).getRecords()[0]);
+
+            // A corrupt snapshot is ignored
+            List<Path> snapshots;
+            try (Stream<Path> paths = Files.list(this.directory)) {
+                snapshots = paths.collect(Collectors.toList());
+            }
+            for (Path snapshot : snapshots)
+                Files.write(snapshot, new byte[]{1, 2, 3});
+            assertNull(RelationSnapshot.load(file, true, ';', StandardCharsets.UTF_8));
+            assertArrayEquals(new String[]{"3", "4"}, new Relation(file, true, ';', StandardCharsets.UTF_8).getRecords()[0]);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testFileStateBeforeParsing() throws IOException {
+        Path file = Files.createTempFile("snapshot", ".csv");
+        try {
+            Files.write(file, "a;b\n1;2\n".getBytes(StandardCharsets.UTF_8));
+            long lastModified = Files.getLastModifiedTime(file).to(TimeUnit.NANOSECONDS);
+
+            // A snapshot of content that was parsed before the file changed is never loaded for the new file state
+            Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+            Relation relation = new Relation("snapshot", new String[]{"a", "b"}, new String[][]{{"1", "2"}});
+            RelationSnapshot.write(file, true, ';', StandardCharsets.UTF_8, Files.size(file), lastModified, relation.getAttributes(), relation.getNumRecords(), 2, relation::getColumn);
+            assertNull(RelationSnapshot.load(file, true, ';', StandardCharsets.UTF_8));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testOwnerOnlyDirectory() throws IOException {
+        Assume.assumeTrue(this.directory.getFileSystem().supportedFileAttributeViews().contains("posix"));
+
+        Path cacheDirectory = this.directory.resolve("cache");
+        RelationSnapshot.setCacheDirectory(cacheDirectory);
+        new Relation(Paths.get("data", "data_profiling", "tpch_region.csv"), true, ';', StandardCharsets.UTF_8);
+        assertEquals(PosixFilePermissions.fromString("rwx------"), Files.getPosixFilePermissions(cacheDirectory));
+    }
+}
@@ -0,0 +1,66 @@
+package de.di.similarity_measures;
+
+import de.di.similarity_measures.helper.Hashing;
+import de.di.similarity_measures.helper.Tokenizer;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static de.di.similarity_measures.SimilarityFixtures.randomString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BBitSignatureStoreTest {
+
+    @Test
+    public void testCountMatches() {
+        Random random = new Random(1);
+        LocalitySensitiveHashing localitySensitiveHashing = new LocalitySensitiveHashing(new Tokenizer(2, false), false, 100);
+        for (int bits : new int[]{1, 2, 4, 8}) {
+            BBitSignatureStore store = new BBitSignatureStore(localitySensitiveHashing, bits);
+            long[][] signatures = new long[20][100];
+            for (int s = 0; s < signatures.length; s++) {
+                for (int i = 0; i < 100; i++)
+                    signatures[s][i] = (s > 0 && random.nextBoolean()) ? signatures[s - 1][i] : random.nextLong();
+                assertEquals(s, store.add(signatures[s]));
+            }
+            for (int s1 = 0; s1 < signatures.length; s1++) {
+                for (int s2 = 0; s2 < signatures.length; s2++) {
+                    int expected = 0;
+                    for (int i = 0; i < 100; i++)
+                        if (((Hashing.mix64(signatures[s1][i]) ^ Hashing.mix64(signatures[s2][i])) & ((1L << bits) - 1)) == 0)
+                            expected++;
+                    assertEquals(expected, store.countMatches(s1, s2));
+                    assertEquals(expected, store.countMatches(s1, store.pack(signatures[s2])));
+                }
+            }
+            assertEquals(signatures.length * (long) ((100 * bits + 63) / 64) * Long.BYTES, store.getNumBytes());
+        }
+    }
+
+    @Test
+    public void testJaccardEstimation() {
+        Random random = new Random(2);
+        Tokenizer tokenizer = new Tokenizer(3, true);
+        Jaccard jaccard = new Jaccard(tokenizer, false);
+        LocalitySensitiveHashing localitySensitiveHashing = new LocalitySensitiveHashing(tokenizer, false, 512);
+        for (int bits : new int[]{2, 4, 8}) {
+            BBitSignatureStore store = new BBitSignatureStore(localitySensitiveHashing, bits);
+            double totalError = 0;
+            for (int run = 0; run < 50; run++) {
+                String string1 = randomString(random, "abcdefgh", 20, 319);
+                String string2 = random.nextBoolean() ? randomString(random, "abcdefgh", 20, 319) : string1.substring(random.nextInt(string1.length() + 1));
+                int id1 = store.add(string1);
+                int id2 = store.add(string2);
+                totalError += Math.abs(jaccard.calculate(string1, string2) - store.estimateJaccard(id1, id2));
+                assertEquals(store.estimateJaccard(id1, id2), store.similarity(id1, id2), 0);
+            }
+            assertTrue("average error " + totalError / 50, totalError / 50 < 0.05);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedBits() {
+        new BBitSignatureStore(new LocalitySensitiveHashing(new Tokenizer(2, false), false, 64), 3);
+    }
+}
@@ -0,0 +1,55 @@
+package de.di.similarity_measures;
+
+import de.di.similarity_measures.structures.SimilarPair;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static de.di.similarity_measures.SimilarityFixtures.assertPairs;
+import static de.di.similarity_measures.SimilarityFixtures.randomEditedStrings;
+import static org.junit.Assert.assertEquals;
+
+public class EditDistanceJoinTest {
+
+    @Test
+    public void testSelfJoinIsExact() {
+        Random random = new Random(9);
+        String[] values = randomEditedStrings(random, "abcdef", 0, 11, 3, 400);
+        for (boolean withDamerau : new boolean[]{false, true}) {
+            for (int maxDistance = 0; maxDistance <= 3; maxDistance++) {
+                List<SimilarPair> expected = new ArrayList<>();
+                for (int i = 0; i < values.length; i++)
+                    for (int j = i + 1; j < values.length; j++)
+                        if (Levenshtein.distance(values[i], values[j], withDamerau) <= maxDistance)
+                            expected.add(new SimilarPair(i, j, new Levenshtein(withDamerau).calculate(values[i], values[j])));
+                assertPairs(expected, new EditDistanceJoin(maxDistance, withDamerau).selfJoin(values), 0.000001);
+            }
+        }
+    }
+
+    @Test
+    public void testJoinIsExact() {
+        Random random = new Random(10);
+        String[] values1 = randomEditedStrings(random, "abcdef", 0, 11, 3, 200);
+        String[] values2 = randomEditedStrings(random, "abcdef", 0, 11, 3, 250);
+        for (boolean withDamerau : new boolean[]{false, true}) {
+            for (int maxDistance = 0; maxDistance <= 2; maxDistance++) {
+                List<SimilarPair> expected = new ArrayList<>();
+                for (int i = 0; i < values1.length; i++)
+                    for (int j = 0; j < values2.length; j++)
+                        if (Levenshtein.distance(values1[i], values2[j], withDamerau) <= maxDistance)
+                            expected.add(new SimilarPair(i, j, new Levenshtein(withDamerau).calculate(values1[i], values2[j])));
+                assertPairs(expected, new EditDistanceJoin(maxDistance, withDamerau).join(values1, values2), 0.000001);
+            }
+        }
+    }
+
+    @Test
+    public void testTransposition() {
+        assertEquals(0, new EditDistanceJoin(1, false).selfJoin(new String[]{"abcd", "bacd"}).size());
+        assertEquals(1, new EditDistanceJoin(1, true).selfJoin(new String[]{"abcd", "bacd"}).size());
+        assertEquals(1, new EditDistanceJoin(1, true).selfJoin(new String[]{"", "a"}).size());
+    }
+}
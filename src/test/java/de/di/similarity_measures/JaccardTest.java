@@ -3,6 +3,15 @@ package de.di.similarity_measures;
 import de.di.similarity_measures.helper.Tokenizer;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static de.di.similarity_measures.SimilarityFixtures.randomString;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 public class JaccardTest {
@@ -76,4 +85,80 @@ public class JaccardTest {
         result = jaccard.calculate(new String[]{"a", "", "a", "b", "c", "", "d"}, new String[]{"a", "b", "", "b", "c", "f", ""});
         assertEquals((double) 4 / 6, result, 0.000001);
     }
+
+    @Test
+    public void testHashedTokens() {
+        Random random = new Random(2);
+        for (int tokenSize = 1; tokenSize <= 6; tokenSize++) {
+            for (boolean bagSemantics : new boolean[]{false, true}) {
+                Tokenizer tokenizer = new Tokenizer(tokenSize, true);
+                Jaccard jaccard = new Jaccard(tokenizer, bagSemantics);
+                for (int run = 0; run < 200; run++) {
+                    String string1 = randomString(random, "abc ", 0, 20);
+                    String string2 = randomString(random, "abc ", 0, 20);
+                    double expected = jaccard.calculate(tokenizer.tokenize(string1), tokenizer.tokenize(string2));
+                    assertEquals(expected, jaccard.calculate(string1, string2), 0);
+                    assertEquals(expected, jaccard.compareProfiles(jaccard.prepare(string1), jaccard.prepare(string2), 0.5), 0);
+
+                    int[] tokens1 = new int[tokenizer.numTokens(string1)];
+                    int[] tokens2 = new int[tokenizer.numTokens(string2)];
+                    assertEquals(expected, jaccard.calculate(tokens1, tokenizer.tokenize(string1, tokens1), tokens2, tokenizer.tokenize(string2, tokens2)), 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testStringListsAreNotModified() {
+        Jaccard jaccard = new Jaccard(new Tokenizer(2, false), true);
+        String[] strings1 = new String[]{"c", "a", "b", "a"};
+        String[] strings2 = new String[]{"b", "d", "a"};
+        assertEquals((double) 2 / 7, jaccard.calculate(strings1, strings2), 0.000001);
+        assertArrayEquals(new String[]{"c", "a", "b", "a"}, strings1);
+        assertArrayEquals(new String[]{"b", "d", "a"}, strings2);
+    }
+
+    @Test
+    public void testSortedMerge() {
+        Random random = new Random(3);
+        for (boolean bagSemantics : new boolean[]{false, true}) {
+            Jaccard jaccard = new Jaccard(new Tokenizer(2, false), bagSemantics);
+            for (int run = 0; run < 500; run++) {
+                String[] strings1 = randomString(random, "abc ", 0, 12).split("");
+                String[] strings2 = randomString(random, "abc ", 0, 12).split("");
+                long[] tokens1 = Arrays.stream(strings1).mapToLong(String::hashCode).toArray();
+                long[] tokens2 = Arrays.stream(strings2).mapToLong(String::hashCode).toArray();
+                int[] intTokens1 = Arrays.stream(strings1).mapToInt(String::hashCode).toArray();
+                int[] intTokens2 = Arrays.stream(strings2).mapToInt(String::hashCode).toArray();
+
+                double expected = referenceJaccard(strings1, strings2, bagSemantics);
+                assertEquals(expected, jaccard.calculate(strings1, strings2), 0);
+                assertEquals(expected, jaccard.calculate(tokens1, tokens1.length, tokens2, tokens2.length), 0);
+                assertEquals(expected, jaccard.calculate(intTokens1, intTokens1.length, intTokens2, intTokens2.length), 0);
+                Arrays.sort(tokens1);
+                Arrays.sort(tokens2);
+                assertEquals(expected, jaccard.calculateSorted(tokens1, tokens1.length, tokens2, tokens2.length), 0);
+            }
+        }
+    }
+
+    private static double referenceJaccard(String[] strings1, String[] strings2, boolean bagSemantics) {
+        if (!bagSemantics) {
+            Set<String> intersection = new HashSet<>(Arrays.asList(strings1));
+            intersection.retainAll(Arrays.asList(strings2));
+            Set<String> union = new HashSet<>(Arrays.asList(strings1));
+            union.addAll(Arrays.asList(strings2));
+            return (double) intersection.size() / union.size();
+        }
+        Map<String, Integer> counts2 = new HashMap<>();
+        for (String string : strings2)
+            counts2.merge(string, 1, Integer::sum);
+        int intersection = 0;
+        for (String string : strings1)
+            if (counts2.getOrDefault(string, 0) > 0) {
+                counts2.merge(string, -1, Integer::sum);
+                intersection++;
+            }
+        return (double) intersection / (strings1.length + strings2.length);
+    }
 }
@@ -0,0 +1,80 @@
+package de.di.similarity_measures;
+
+import de.di.similarity_measures.LevenshteinIndex.Match;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static de.di.similarity_measures.SimilarityFixtures.randomDistinctStrings;
+import static de.di.similarity_measures.SimilarityFixtures.randomString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LevenshteinIndexTest {
+
+    @Test
+    public void testRangeIsExact() {
+        Random random = new Random(21);
+        String[] values = randomDistinctStrings(random, "abcdefghij", 4, 11, 500);
+        for (boolean withDamerau : new boolean[]{false, true}) {
+            LevenshteinIndex index = new LevenshteinIndex(values, withDamerau);
+            for (int run = 0; run < 30; run++) {
+                String query = randomString(random, "abcdefghij", 4, 11);
+                for (int maxDistance = 0; maxDistance <= 3; maxDistance++) {
+                    List<Match> expected = new ArrayList<>();
+                    for (int i = 0; i < values.length; i++) {
+                        int distance = Levenshtein.distance(query, values[i], withDamerau);
+                        if (distance <= maxDistance)
+                            expected.add(new Match(i, values[i], distance));
+                    }
+                    expected.sort((m1, m2) -> m1.getDistance() != m2.getDistance() ? Integer.compare(m1.getDistance(), m2.getDistance()) : Integer.compare(m1.getIndex(), m2.getIndex()));
+                    List<Match> matches = index.range(query, maxDistance);
+                    assertEquals(expected.size(), matches.size());
+                    for (int k = 0; k < matches.size(); k++) {
+                        assertEquals(expected.get(k).getIndex(), matches.get(k).getIndex());
+                        assertEquals(expected.get(k).getDistance(), matches.get(k).getDistance());
+                    }
+                }
+            }
+            assertEquals(120, index.getNumQueries());
+        }
+    }
+
+    @Test
+    public void testTopK() {
+        Random random = new Random(22);
+        String[] values = randomDistinctStrings(random, "abcdefghij", 4, 11, 500);
+        for (boolean withDamerau : new boolean[]{false, true}) {
+            LevenshteinIndex index = new LevenshteinIndex(values, withDamerau);
+            for (int run = 0; run < 30; run++) {
+                String query = randomString(random, "abcdefghij", 4, 11);
+                int[] distances = new int[values.length];
+                for (int i = 0; i < values.length; i++)
+                    distances[i] = Levenshtein.distance(query, values[i], withDamerau);
+                int[] sorted = distances.clone();
+                Arrays.sort(sorted);
+
+                List<Match> matches = index.topK(query, 5);
+                assertEquals(5, matches.size());
+                for (int k = 0; k < matches.size(); k++) {
+                    assertEquals(sorted[k], matches.get(k).getDistance());
+                    assertEquals(distances[matches.get(k).getIndex()], matches.get(k).getDistance());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSavedComputations() {
+        Random random = new Random(23);
+        String[] values = randomDistinctStrings(random, "abcdefghij", 4, 11, 2000);
+        LevenshteinIndex index = new LevenshteinIndex(values, false);
+        for (int run = 0; run < 20; run++)
+            index.range(values[random.nextInt(values.length)], 1);
+        assertEquals(20L * values.length, index.getNumDistanceComputations() + index.getNumSavedComputations());
+        assertTrue(index.getNumSavedComputations() > index.getNumDistanceComputations());
+    }
+}
@@ -2,7 +2,12 @@ package de.di.similarity_measures;
 
 import org.junit.Test;
 
+import java.util.Random;
+
+import static de.di.similarity_measures.SimilarityFixtures.edit;
+import static de.di.similarity_measures.SimilarityFixtures.randomString;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class LevenshteinTest {
 
@@ -77,4 +82,104 @@ public class LevenshteinTest {
         result = levenshtein.calculate(new String[]{"a", "", "a", "b", "c", "c", ""}, new String[]{"a", "", "a", "b", "c", "f", "e"});
         assertEquals(1 - (double) 2 / 7, result, 0.000001);
     }
+
+    private static int dynamicProgrammingDistance(String string1, String string2, boolean withDamerau) {
+        int[][] d = new int[string1.length() + 1][string2.length() + 1];
+        for (int i = 0; i <= string1.length(); i++)
+            d[i][0] = i;
+        for (int j = 0; j <= string2.length(); j++)
+            d[0][j] = j;
+        for (int i = 1; i <= string1.length(); i++) {
+            for (int j = 1; j <= string2.length(); j++) {
+                int cost = (string1.charAt(i - 1) == string2.charAt(j - 1)) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (withDamerau && i > 1 && j > 1 && string1.charAt(i - 1) == string2.charAt(j - 2) && string1.charAt(i - 2) == string2.charAt(j - 1))
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+            }
+        }
+        return d[string1.length()][string2.length()];
+    }
+
+
+    @Test
+    public void testBitParallelDistance() {
+        Random random = new Random(42);
+        // Small alphabets produce many matches and transpositions; the lengths cover one and several words
+        for (String alphabet : new String[]{"ab", "abc\u20ac", "abcdefghijklmnopqrstuvwxyz \u00e4\u4e2d"}) {
+            for (int i = 0; i < 2000; i++) {
+                int maxLength = (i % 4 == 0) ? 200 : 70;
+                String string1 = randomString(random, alphabet, 0, maxLength);
+                String string2 = (i % 3 == 0) ? string1 + randomString(random, alphabet, 0, 5) : randomString(random, alphabet, 0, maxLength);
+                for (boolean withDamerau : new boolean[]{false, true})
+                    assertEquals(string1 + " / " + string2, dynamicProgrammingDistance(string1, string2, withDamerau), Levenshtein.distance(string1, string2, withDamerau));
+            }
+        }
+    }
+
+    @Test
+    public void testScratchReuse() {
+        Random random = new Random(5);
+        // Alternating long and short patterns must not see masks or rows left behind by the previous call
+        for (int i = 0; i < 3000; i++) {
+            int maxLength = (i % 2 == 0) ? 400 : 10;
+            String string1 = randomString(random, "ab\u00e4\u4e2d\u20ac", 0, maxLength);
+            String string2 = randomString(random, "ab\u00e4\u4e2d\u20ac", 0, maxLength);
+            boolean withDamerau = random.nextBoolean();
+            int maxDistance = (i % 3 == 0) ? 1000 : random.nextInt(10);
+            int expected = Math.min(dynamicProgrammingDistance(string1, string2, withDamerau), maxDistance + 1);
+            assertEquals(expected, Levenshtein.distance(string1.toCharArray(), string2.toCharArray(), withDamerau, maxDistance));
+            assertEquals(expected, Levenshtein.distance(string1, string2, withDamerau, maxDistance));
+        }
+    }
+
+    @Test
+    public void testWordBoundaries() {
+        for (int length : new int[]{63, 64, 65, 127, 128, 129}) {
+            String string1 = "x".repeat(length);
+            assertEquals(0, Levenshtein.distance(string1, string1, false));
+            assertEquals(1, Levenshtein.distance(string1, "y" + string1.substring(1), false));
+            assertEquals(length, Levenshtein.distance(string1, "y".repeat(length), true));
+            String swapped = "ab" + "c".repeat(length) + "de";
+            assertEquals(2, Levenshtein.distance(swapped, "ba" + "c".repeat(length) + "ed", true));
+            assertEquals(4, Levenshtein.distance(swapped, "ba" + "c".repeat(length) + "ed", false));
+        }
+    }
+
+    @Test
+    public void testBoundedDistance() {
+        Random random = new Random(7);
+        for (String alphabet : new String[]{"ab", "abcd", "abcdefghijklmnopqrstuvwxyz"}) {
+            for (int i = 0; i < 1500; i++) {
+                // Long, similar strings take the banded path
+                int maxLength = (i % 2 == 0) ? 300 : 60;
+                String string1 = randomString(random, alphabet, 0, maxLength);
+                String string2 = (i % 3 == 0) ? randomString(random, alphabet, 0, maxLength) : edit(random, string1, alphabet, random.nextInt(12));
+                for (boolean withDamerau : new boolean[]{false, true}) {
+                    int exact = dynamicProgrammingDistance(string1, string2, withDamerau);
+                    int maxDistance = random.nextInt(40);
+                    assertEquals(string1 + " / " + string2, Math.min(exact, maxDistance + 1), Levenshtein.distance(string1, string2, withDamerau, maxDistance));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBoundedSimilarity() {
+        Random random = new Random(11);
+        Levenshtein levenshtein = new Levenshtein(true);
+        for (int i = 0; i < 3000; i++) {
+            String string1 = randomString(random, "abc", 0, 30);
+            String string2 = edit(random, string1, "abc", random.nextInt(6));
+            double exact = levenshtein.calculate(string1, string2);
+            double minSimilarity = random.nextDouble() * 1.2 - 0.1;
+            double bounded = levenshtein.calculate(string1, string2, minSimilarity);
+            assertEquals(bounded, levenshtein.compareProfiles(levenshtein.prepare(string1), levenshtein.prepare(string2), minSimilarity), 0);
+            if (exact >= minSimilarity)
+                assertEquals(exact, bounded, 0);
+            else
+                assertTrue(bounded < minSimilarity);
+            // A bound that equals the similarity must not reject the pair
+            assertEquals(exact, levenshtein.calculate(string1, string2, exact), 0);
+        }
+    }
 }
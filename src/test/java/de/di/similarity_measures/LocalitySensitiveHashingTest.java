@@ -3,7 +3,11 @@ package de.di.similarity_measures;
 import de.di.similarity_measures.helper.Tokenizer;
 import org.junit.Test;
 
+import java.util.Random;
+
+import static de.di.similarity_measures.SimilarityFixtures.randomString;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class LocalitySensitiveHashingTest {
 
@@ -48,4 +52,55 @@ public class LocalitySensitiveHashingTest {
         result = localitySensitiveHashing.calculate(new String[]{"aa", "", "ab", "ba", "cb", "", "da"}, new String[]{"", "bb", "ab", "ba", "cb", "fa", "eb"});
         assertEquals((double) 1 / 1, result, 0.000001);
     }
+
+    @Test
+    public void testJaccardApproximation() {
+        Random random = new Random(4);
+        for (boolean onePermutation : new boolean[]{false, true}) {
+            for (boolean bagSemantics : new boolean[]{false, true}) {
+                Tokenizer tokenizer = new Tokenizer(3, true);
+                Jaccard jaccard = new Jaccard(tokenizer, bagSemantics);
+                LocalitySensitiveHashing localitySensitiveHashing = new LocalitySensitiveHashing(tokenizer, bagSemantics, 256, onePermutation);
+                double totalError = 0;
+                for (int run = 0; run < 100; run++) {
+                    String string1 = randomString(random, "abcdef", 0, 400);
+                    String string2 = random.nextBoolean() ? randomString(random, "abcdef", 0, 400) : string1.substring(random.nextInt(string1.length() + 1));
+                    double result = localitySensitiveHashing.calculate(string1, string2);
+                    totalError += Math.abs(jaccard.calculate(string1, string2) - result);
+                    assertEquals(result, localitySensitiveHashing.compareProfiles(localitySensitiveHashing.prepare(string1), localitySensitiveHashing.prepare(string2), 0), 0);
+                }
+                // The standard deviation of an estimate with 256 values is at most 1/32
+                assertTrue("average error " + totalError / 100, totalError / 100 < 0.04);
+            }
+        }
+    }
+
+    @Test
+    public void testIdenticalValues() {
+        for (boolean onePermutation : new boolean[]{false, true}) {
+            LocalitySensitiveHashing set = new LocalitySensitiveHashing(new Tokenizer(2, false), false, 64, onePermutation);
+            assertEquals(1, set.calculate("Data Integration", "Data Integration"), 0);
+            assertEquals(1, set.calculate(new String[]{"aa", "ba", "ba"}, new String[]{"ba", "aa"}), 0);
+            LocalitySensitiveHashing bag = new LocalitySensitiveHashing(new Tokenizer(2, false), true, 64, onePermutation);
+            assertEquals(0.5, bag.calculate("Data Integration", "Data Integration"), 0);
+        }
+    }
+
+    @Test
+    public void testBagApproximationOfRepetitiveValues() {
+        Random random = new Random(8);
+        Tokenizer tokenizer = new Tokenizer(2, false);
+        Jaccard jaccard = new Jaccard(tokenizer, true);
+        for (boolean onePermutation : new boolean[]{false, true}) {
+            LocalitySensitiveHashing localitySensitiveHashing = new LocalitySensitiveHashing(tokenizer, true, 256, onePermutation);
+            double totalError = 0;
+            for (int run = 0; run < 50; run++) {
+                // The same few tokens repeat with different frequencies, so that only the occurrence counts differ
+                String string1 = "ab".repeat(1 + random.nextInt(100)) + "cd".repeat(1 + random.nextInt(100));
+                String string2 = "ab".repeat(1 + random.nextInt(100)) + "cd".repeat(1 + random.nextInt(100));
+                totalError += Math.abs(jaccard.calculate(string1, string2) - localitySensitiveHashing.calculate(string1, string2));
+            }
+            assertTrue("average error " + totalError / 50, totalError / 50 < 0.03);
+        }
+    }
 }
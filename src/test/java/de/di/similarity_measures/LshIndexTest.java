@@ -0,0 +1,76 @@
+package de.di.similarity_measures;
+
+import de.di.similarity_measures.helper.Tokenizer;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static de.di.similarity_measures.SimilarityFixtures.randomString;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LshIndexTest {
+
+    @Test
+    public void testQuery() {
+        LocalitySensitiveHashing localitySensitiveHashing = new LocalitySensitiveHashing(new Tokenizer(3, true), false, 64);
+        LshIndex index = new LshIndex(localitySensitiveHashing, 16, 4);
+        assertEquals(0, index.insertAll("Data Integration", "Big Data Systems", "Data Integration"));
+        assertEquals(3, index.insert("Data Integrations"));
+        assertEquals(4, index.size());
+
+        int[] candidates = index.query("Data Integration");
+        assertTrue(Arrays.binarySearch(candidates, 0) >= 0);
+        assertTrue(Arrays.binarySearch(candidates, 2) >= 0);
+        assertTrue(Arrays.binarySearch(candidates, 3) >= 0);
+        assertFalse(Arrays.binarySearch(candidates, 1) >= 0);
+        assertArrayEquals(new int[0], index.query("xyz"));
+    }
+
+    @Test
+    public void testCandidatePairs() {
+        Random random = new Random(7);
+        LocalitySensitiveHashing localitySensitiveHashing = new LocalitySensitiveHashing(new Tokenizer(2, true), false, 32);
+        LshIndex index = new LshIndex(localitySensitiveHashing, 8, 4);
+        String[] values = new String[200];
+        for (int i = 0; i < values.length; i++)
+            values[i] = (i % 2 == 1) ? values[i - 1] + "x" : randomString(random, "abcdefghijklmnopqrstuvwxyz", 12, 12);
+        index.insertAll(values);
+
+        Set<Long> pairs = new HashSet<>();
+        index.forEachCandidatePair((id1, id2) -> {
+            assertTrue(id1 > id2);
+            assertTrue("pair reported twice", pairs.add((long) id1 << 32 | id2));
+        });
+
+        Set<Long> expected = new HashSet<>();
+        for (int id = 0; id < values.length; id++)
+            for (int candidate : index.query(values[id]))
+                if (candidate < id)
+                    expected.add((long) id << 32 | candidate);
+        assertEquals(expected, pairs);
+    }
+
+    @Test
+    public void testOptimalBands() {
+        int[] low = LshIndex.optimalBands(0.2, 128);
+        int[] high = LshIndex.optimalBands(0.9, 128);
+        assertTrue(low[0] * low[1] <= 128);
+        assertTrue(high[0] * high[1] <= 128);
+        // A high threshold needs more rows per band and fewer bands than a low threshold
+        assertTrue(high[1] > low[1]);
+
+        LshIndex index = LshIndex.forThreshold(new LocalitySensitiveHashing(new Tokenizer(2, false), true, 64), 0.4);
+        assertEquals(0, index.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyBands() {
+        new LshIndex(new LocalitySensitiveHashing(new Tokenizer(2, false), false, 16), 5, 4);
+    }
+}
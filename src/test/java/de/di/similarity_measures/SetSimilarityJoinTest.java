@@ -0,0 +1,62 @@
+package de.di.similarity_measures;
+
+import de.di.similarity_measures.helper.Tokenizer;
+import de.di.similarity_measures.structures.SimilarPair;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static de.di.similarity_measures.SimilarityFixtures.assertPairs;
+import static de.di.similarity_measures.SimilarityFixtures.randomEditedStrings;
+import static org.junit.Assert.assertEquals;
+
+public class SetSimilarityJoinTest {
+
+    @Test
+    public void testSelfJoinIsExact() {
+        Random random = new Random(3);
+        String[] values = randomEditedStrings(random, "abcdefgh", 1, 15, 1, 400);
+        Tokenizer tokenizer = new Tokenizer(2, true);
+        Jaccard jaccard = new Jaccard(tokenizer, false);
+        for (double threshold : new double[]{0.3, 0.5, 0.7, 0.9, 1.0}) {
+            List<SimilarPair> expected = new ArrayList<>();
+            for (int i = 0; i < values.length; i++) {
+                for (int j = i + 1; j < values.length; j++) {
+                    double similarity = jaccard.calculate(values[i], values[j]);
+                    if (similarity >= threshold)
+                        expected.add(new SimilarPair(i, j, similarity));
+                }
+            }
+            assertPairs(expected, new SetSimilarityJoin(tokenizer, threshold).selfJoin(values), 0);
+        }
+    }
+
+    @Test
+    public void testJoinIsExact() {
+        Random random = new Random(5);
+        String[] values1 = randomEditedStrings(random, "abcdefgh", 1, 15, 1, 200);
+        String[] values2 = randomEditedStrings(random, "abcdefgh", 1, 15, 1, 300);
+        Tokenizer tokenizer = new Tokenizer(3, true);
+        Jaccard jaccard = new Jaccard(tokenizer, false);
+        for (double threshold : new double[]{0.2, 0.4, 0.6, 0.8}) {
+            List<SimilarPair> expected = new ArrayList<>();
+            for (int i = 0; i < values1.length; i++) {
+                for (int j = 0; j < values2.length; j++) {
+                    double similarity = jaccard.calculate(values1[i], values2[j]);
+                    if (similarity >= threshold)
+                        expected.add(new SimilarPair(i, j, similarity));
+                }
+            }
+            assertPairs(expected, new SetSimilarityJoin(tokenizer, threshold).join(values1, values2), 0);
+        }
+    }
+
+    @Test
+    public void testEmptyValues() {
+        SetSimilarityJoin join = new SetSimilarityJoin(new Tokenizer(3, false), 0.5);
+        assertEquals(0, join.selfJoin(new String[]{"", "ab", null, "ab"}).size());
+        assertEquals(1, join.selfJoin(new String[]{"", "abc", null, "abc"}).size());
+    }
+}
@@ -0,0 +1,101 @@
+package de.di.similarity_measures;
+
+import de.di.similarity_measures.structures.SimilarPair;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The shared random inputs and assertions of the similarity measure tests. Every test passes its own seeded Random
+ * and its own alphabet and lengths, so that its inputs are reproducible and fit the measure under test.
+ */
+public final class SimilarityFixtures {
+
+    private SimilarityFixtures() {
+    }
+
+    /**
+     * Generates a string of minLength to maxLength characters of the alphabet.
+     */
+    public static String randomString(Random random, String alphabet, int minLength, int maxLength) {
+        StringBuilder builder = new StringBuilder();
+        int length = minLength + random.nextInt(maxLength - minLength + 1);
+        for (int i = 0; i < length; i++)
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        return builder.toString();
+    }
+
+    /**
+     * Generates numStrings strings of minLength to maxLength characters of the alphabet.
+     */
+    public static String[] randomStrings(Random random, String alphabet, int minLength, int maxLength, int numStrings) {
+        String[] strings = new String[numStrings];
+        for (int i = 0; i < numStrings; i++)
+            strings[i] = randomString(random, alphabet, minLength, maxLength);
+        return strings;
+    }
+
+    /**
+     * Generates numStrings distinct strings of minLength to maxLength characters of the alphabet.
+     */
+    public static String[] randomDistinctStrings(Random random, String alphabet, int minLength, int maxLength, int numStrings) {
+        Set<String> strings = new LinkedHashSet<>();
+        while (strings.size() < numStrings)
+            strings.add(randomString(random, alphabet, minLength, maxLength));
+        return strings.toArray(new String[0]);
+    }
+
+    /**
+     * Generates numStrings strings of which about half are copies of their predecessor with up to maxEdits edits, so
+     * that there are similar pairs at every distance up to maxEdits.
+     */
+    public static String[] randomEditedStrings(Random random, String alphabet, int minLength, int maxLength, int maxEdits, int numStrings) {
+        String[] strings = new String[numStrings];
+        for (int i = 0; i < numStrings; i++)
+            strings[i] = (i > 0 && random.nextBoolean())
+                    ? edit(random, strings[i - 1], alphabet, random.nextInt(maxEdits + 1))
+                    : randomString(random, alphabet, minLength, maxLength);
+        return strings;
+    }
+
+    /**
+     * Applies numEdits random insertions, deletions, substitutions and transpositions of adjacent characters.
+     */
+    public static String edit(Random random, String string, String alphabet, int numEdits) {
+        StringBuilder builder = new StringBuilder(string);
+        for (int i = 0; i < numEdits; i++) {
+            int position = random.nextInt(builder.length() + 1);
+            int edit = random.nextInt(4);
+            if (edit == 0 || builder.length() == 0)
+                builder.insert(position, alphabet.charAt(random.nextInt(alphabet.length())));
+            else if (position == builder.length())
+                builder.deleteCharAt(position - 1);
+            else if (edit == 1)
+                builder.deleteCharAt(position);
+            else if (edit == 2)
+                builder.setCharAt(position, alphabet.charAt(random.nextInt(alphabet.length())));
+            else if (position + 1 < builder.length()) {
+                char c = builder.charAt(position);
+                builder.setCharAt(position, builder.charAt(position + 1));
+                builder.setCharAt(position + 1, c);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Asserts that a join reported exactly the expected pairs in the expected order.
+     */
+    public static void assertPairs(List<SimilarPair> expected, List<SimilarPair> pairs, double delta) {
+        assertEquals(expected.size(), pairs.size());
+        for (int k = 0; k < pairs.size(); k++) {
+            assertEquals(expected.get(k).getIndex1(), pairs.get(k).getIndex1());
+            assertEquals(expected.get(k).getIndex2(), pairs.get(k).getIndex2());
+            assertEquals(expected.get(k).getSimilarity(), pairs.get(k).getSimilarity(), delta);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package de.di.similarity_measures;
+
+import de.di.similarity_measures.helper.Tokenizer;
+import de.di.similarity_measures.structures.SimilarPair;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static de.di.similarity_measures.SimilarityFixtures.randomStrings;
+import static org.junit.Assert.assertEquals;
+
+public class SimilarityMeasureTest {
+
+    @Test
+    public void testBatchesMatchPairwiseCalculation() {
+        Random random = new Random(11);
+        String[] strings1 = randomStrings(random, "abcd", 1, 8, 150);
+        String[] strings2 = randomStrings(random, "abcd", 1, 8, 70);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            for (SimilarityMeasure measure : new SimilarityMeasure[]{
+                    new Levenshtein(false),
+                    new Jaccard(new Tokenizer(2, true), false),
+                    new LocalitySensitiveHashing(new Tokenizer(2, true), false, 32)}) {
+                double[][] matrix = measure.calculateMatrix(strings1, strings2, pool);
+                List<SimilarPair> expectedPairs = new ArrayList<>();
+                for (int i = 0; i < strings1.length; i++) {
+                    double[] row = new double[strings2.length];
+                    measure.calculate(strings1[i], strings2, row, pool);
+                    for (int j = 0; j < strings2.length; j++) {
+                        double similarity = measure.calculate(strings1[i], strings2[j]);
+                        assertEquals(similarity, matrix[i][j], 0);
+                        assertEquals(similarity, row[j], 0);
+                        if (similarity >= 0.4)
+                            expectedPairs.add(new SimilarPair(i, j, similarity));
+                    }
+                }
+
+                List<SimilarPair> pairs = measure.calculatePairs(strings1, strings2, 0.4, pool);
+                assertEquals(expectedPairs.size(), pairs.size());
+                for (int k = 0; k < pairs.size(); k++) {
+                    assertEquals(expectedPairs.get(k).getIndex1(), pairs.get(k).getIndex1());
+                    assertEquals(expectedPairs.get(k).getIndex2(), pairs.get(k).getIndex2());
+                    assertEquals(expectedPairs.get(k).getSimilarity(), pairs.get(k).getSimilarity(), 0);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testStringListMatrix() {
+        Jaccard jaccard = new Jaccard(new Tokenizer(2, false), false);
+        String[][] lists1 = new String[][]{{"aa", "ab"}, {"ba"}};
+        String[][] lists2 = new String[][]{{"aa"}, {"ab", "ba"}, {}};
+        double[][] matrix = jaccard.calculateMatrix(lists1, lists2);
+        for (int i = 0; i < lists1.length; i++)
+            for (int j = 0; j < lists2.length; j++)
+                assertEquals(jaccard.calculate(lists1[i], lists2[j]), matrix[i][j], 0);
+    }
+}
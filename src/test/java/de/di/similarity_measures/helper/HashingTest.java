@@ -0,0 +1,37 @@
+package de.di.similarity_measures.helper;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class HashingTest {
+
+    @Test
+    public void testMurmur3() {
+        assertEquals(Hashing.murmur3("Data Integration"), Hashing.murmur3(new StringBuilder("Data Integration")));
+        // Trailing zero characters change only the length, which must still change the hash
+        assertNotEquals(Hashing.murmur3("a"), Hashing.murmur3("a\u0000"));
+        assertNotEquals(Hashing.murmur3(""), Hashing.murmur3("\u0000"));
+
+        Set<Long> hashes = new HashSet<>();
+        for (int i = 0; i < 100000; i++)
+            hashes.add(Hashing.murmur3(Integer.toString(i)));
+        assertEquals(100000, hashes.size());
+    }
+
+    @Test
+    public void testMixIsBijective() {
+        Set<Long> hashes = new HashSet<>();
+        Set<Integer> intHashes = new HashSet<>();
+        for (int i = 0; i < 100000; i++) {
+            hashes.add(Hashing.mix64(i));
+            intHashes.add(Hashing.mix32(i));
+        }
+        assertEquals(100000, hashes.size());
+        assertEquals(100000, intHashes.size());
+    }
+}
@@ -3,6 +3,8 @@ package de.di.similarity_measures.helper;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
 public class MinHashTest {
 
@@ -23,4 +25,30 @@ public class MinHashTest {
         result = minHash.hash(new String[]{"abc", "bca", "bac", "xyz", "bca"});
         assertEquals("bca", result);
     }
+
+    @Test
+    public void testMinHashingOfHashedTokens() {
+        Tokenizer tokenizer = new Tokenizer(3, true);
+        long[] tokens = new long[tokenizer.numTokens("Data Integration")];
+        int numTokens = tokenizer.tokenize("Data Integration", tokens);
+        long[] reversed = new long[numTokens];
+        for (int i = 0; i < numTokens; i++)
+            reversed[i] = tokens[numTokens - 1 - i];
+
+        boolean differentMinima = false;
+        for (int i = 0; i < 8; i++) {
+            MinHash minHash = new MinHash(i);
+            long result = minHash.hash(tokens, numTokens);
+            // The minimum is one of the tokens and independent of their order
+            assertEquals(result, minHash.hash(reversed, numTokens));
+            boolean isToken = false;
+            for (int j = 0; j < numTokens; j++)
+                isToken |= tokens[j] == result;
+            assertTrue(isToken);
+            differentMinima |= result != new MinHash(0).hash(tokens, numTokens);
+        }
+        assertTrue(differentMinima);
+        assertEquals(0, new MinHash(0).hash(tokens, 0));
+        assertNotEquals(new MinHash(0).hash(new int[]{1, 2, 3}, 3), 0);
+    }
 }
@@ -2,6 +2,9 @@ package de.di.similarity_measures.helper;
 
 import org.junit.Test;
 
+import java.util.Random;
+
+import static de.di.similarity_measures.SimilarityFixtures.randomString;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
@@ -75,4 +78,53 @@ public class TokenizerTest {
         test = new String[]{p + p + p, p + p + p};
         assertArrayEquals(test, result);
     }
+
+    @Test
+    public void testHashedTokenization() {
+        Random random = new Random(1);
+        for (int tokenSize = 1; tokenSize <= 6; tokenSize++) {
+            for (boolean usePadding : new boolean[]{false, true}) {
+                Tokenizer tokenizer = new Tokenizer(tokenSize, usePadding);
+                for (int run = 0; run < 200; run++) {
+                    String string1 = randomString(random, "ab\u00e4\u4e2d", 0, 12);
+                    String string2 = randomString(random, "ab\u00e4\u4e2d", 0, 12);
+                    String[] tokens = concat(tokenizer.tokenize(string1), tokenizer.tokenize(string2));
+
+                    long[] longHashes = new long[tokens.length + 3];
+                    int[] intHashes = new int[tokens.length];
+                    int numTokens1 = tokenizer.tokenize(string1, longHashes);
+                    assertEquals(tokenizer.tokenize(string1).length, numTokens1);
+                    assertEquals(numTokens1, tokenizer.numTokens(string1));
+                    long[] longHashes2 = new long[tokenizer.numTokens(string2)];
+                    tokenizer.tokenize(string2, longHashes2);
+                    System.arraycopy(longHashes2, 0, longHashes, numTokens1, longHashes2.length);
+                    int[] intHashes2 = new int[tokenizer.numTokens(string2)];
+                    tokenizer.tokenize(string1, intHashes);
+                    tokenizer.tokenize(string2, intHashes2);
+                    System.arraycopy(intHashes2, 0, intHashes, numTokens1, intHashes2.length);
+
+                    // Equal tokens must get equal hashes, also across strings; the alphabet is small enough to rule out collisions
+                    for (int i = 0; i < tokens.length; i++) {
+                        for (int j = 0; j < tokens.length; j++) {
+                            assertEquals(tokens[i] + " / " + tokens[j], tokens[i].equals(tokens[j]), longHashes[i] == longHashes[j]);
+                            assertEquals(tokens[i] + " / " + tokens[j], tokens[i].equals(tokens[j]), intHashes[i] == intHashes[j]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHashedTokenizationWithTooSmallBuffer() {
+        new Tokenizer(2, true).tokenize("Integration", new long[5]);
+    }
+
+
+    private static String[] concat(String[] strings1, String[] strings2) {
+        String[] strings = new String[strings1.length + strings2.length];
+        System.arraycopy(strings1, 0, strings, 0, strings1.length);
+        System.arraycopy(strings2, 0, strings, strings1.length, strings2.length);
+        return strings;
+    }
 }
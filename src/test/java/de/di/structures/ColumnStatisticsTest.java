@@ -0,0 +1,59 @@
+package de.di.structures;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ColumnStatisticsTest {
+
+    @Test
+    public void testStatistics() {
+        String[] values = new String[]{"42", "", "7", "-3", "42", ""};
+        ColumnStatistics statistics = ColumnStatistics.of(DictionaryColumn.encode(values));
+
+        assertEquals(6, statistics.getNumValues());
+        assertEquals(2, statistics.getNumEmptyValues());
+        assertEquals(4, statistics.getNumDistinctValues());
+        assertTrue(statistics.isDistinctCountExact());
+        assertEquals("", statistics.getMinValue());
+        assertEquals("7", statistics.getMaxValue());
+        assertEquals(7.0 / 6, statistics.getAverageLength(), 0.000001);
+        assertEquals(2, statistics.getMaxLength());
+        assertEquals(ColumnStatistics.Type.INTEGER, statistics.getType());
+    }
+
+    @Test
+    public void testBuilderMatchesDictionary() {
+        String[] values = new String[]{"1.5", "abc", "", "1e3", "abc", "Zeta"};
+        ColumnStatistics.Builder builder = new ColumnStatistics.Builder();
+        for (String value : values)
+            builder.add(value);
+        ColumnStatistics streamed = builder.build();
+        ColumnStatistics encoded = ColumnStatistics.of(DictionaryColumn.encode(values));
+
+        assertFalse(streamed.isDistinctCountExact());
+        assertEquals(encoded.getDistinctEstimate(), streamed.getDistinctEstimate());
+        assertEquals(encoded.getMinValue(), streamed.getMinValue());
+        assertEquals(encoded.getMaxValue(), streamed.getMaxValue());
+        assertEquals(encoded.getAverageLength(), streamed.getAverageLength(), 0.000001);
+        assertEquals(encoded.getNumEmptyValues(), streamed.getNumEmptyValues());
+        assertEquals(ColumnStatistics.Type.STRING, streamed.getType());
+    }
+
+    @Test
+    public void testTypes() {
+        assertEquals(ColumnStatistics.Type.EMPTY, ColumnStatistics.Type.of(""));
+        assertEquals(ColumnStatistics.Type.INTEGER, ColumnStatistics.Type.of("+12"));
+        assertEquals(ColumnStatistics.Type.DECIMAL, ColumnStatistics.Type.of("-.5"));
+        assertEquals(ColumnStatistics.Type.DECIMAL, ColumnStatistics.Type.of("2.5E-3"));
+        assertEquals(ColumnStatistics.Type.STRING, ColumnStatistics.Type.of(" 1"));
+        assertEquals(ColumnStatistics.Type.STRING, ColumnStatistics.Type.of("NaN"));
+
+        ColumnStatistics empty = ColumnStatistics.of(DictionaryColumn.encode(new String[0]));
+        assertNull(empty.getMinValue());
+        assertEquals(ColumnStatistics.Type.EMPTY, empty.getType());
+    }
+}
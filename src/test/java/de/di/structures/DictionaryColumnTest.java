@@ -0,0 +1,56 @@
+package de.di.structures;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DictionaryColumnTest {
+
+    @Test
+    public void testEncoding() {
+        String[] values = new String[]{"b", "a", "c", "a", "", "b"};
+        DictionaryColumn column = DictionaryColumn.encode(values);
+
+        assertEquals(6, column.size());
+        assertEquals(4, column.cardinality());
+        assertFalse(column.isUnique());
+        assertArrayEquals(new String[]{"", "a", "b", "c"}, column.getDictionary());
+        assertArrayEquals(new int[]{2, 1, 3, 1, 0, 2}, column.getCodes());
+        assertArrayEquals(values, column.decode());
+        assertArrayEquals(new int[]{1, 2, 2, 1}, column.countCodes());
+    }
+
+    @Test
+    public void testOrderPreservation() {
+        String[] values = new String[]{"Marburg", "Berlin", "marburg", "Aachen", "Berlin"};
+        DictionaryColumn column = DictionaryColumn.encode(values);
+
+        for (int i = 0; i < values.length; i++)
+            for (int j = 0; j < values.length; j++)
+                assertEquals(Integer.signum(values[i].compareTo(values[j])), Integer.signum(Integer.compare(column.getCode(i), column.getCode(j))));
+    }
+
+    @Test
+    public void testMap() {
+        DictionaryColumn column = DictionaryColumn.encode(new String[]{" a", "a ", "b", "a"});
+        DictionaryColumn trimmed = column.map(String::trim);
+
+        assertArrayEquals(new String[]{"a", "b"}, trimmed.getDictionary());
+        assertArrayEquals(new int[]{0, 0, 1, 0}, trimmed.getCodes());
+        assertTrue(DictionaryColumn.encode(new String[]{"x", "y"}).isUnique());
+    }
+
+    @Test
+    public void testEstimateSavedBytes() {
+        assertEquals(48, DictionaryColumn.estimateSize("abc"));
+        assertEquals(56, DictionaryColumn.estimateSize("abcdefghi"));
+        assertEquals(48, DictionaryColumn.estimateSize("€"));
+
+        DictionaryColumn column = DictionaryColumn.encode(new String[]{"abc", "abc", "abc", "x"});
+        assertEquals(2 * 48, column.estimateSavedBytes());
+        assertEquals(0, DictionaryColumn.encode(new String[]{"a", "b"}).estimateSavedBytes());
+    }
+}
@@ -0,0 +1,38 @@
+package de.di.structures;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HyperLogLogTest {
+
+    @Test
+    public void testAccuracy() {
+        for (int numDistinct : new int[]{0, 1, 100, 5000, 200000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (int repetition = 0; repetition < 3; repetition++)
+                for (int i = 0; i < numDistinct; i++)
+                    sketch.add("value" + i);
+
+            // Four standard errors of the default precision
+            double tolerance = 4 * 1.04 / Math.sqrt(1 << HyperLogLog.DEFAULT_PRECISION);
+            assertTrue(numDistinct + " ~ " + sketch.estimate(), Math.abs(sketch.estimate() - numDistinct) <= Math.max(1, tolerance * numDistinct));
+        }
+    }
+
+    @Test
+    public void testMerge() {
+        HyperLogLog sketch1 = new HyperLogLog();
+        HyperLogLog sketch2 = new HyperLogLog();
+        HyperLogLog union = new HyperLogLog();
+        for (int i = 0; i < 1000; i++) {
+            sketch1.add("a" + i);
+            sketch2.add("b" + i);
+            union.add("a" + i);
+            union.add("b" + i);
+        }
+        sketch1.merge(sketch2);
+        assertEquals(union.estimate(), sketch1.estimate());
+    }
+}
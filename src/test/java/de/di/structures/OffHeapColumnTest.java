@@ -0,0 +1,103 @@
+package de.di.structures;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OffHeapColumnTest {
+
+    private static final String[] VALUES = new String[]{"Marburg", "", "Köln", "Berlin", "€ 5", "Berlin", " a ", "Köln"};
+
+    private static void assertSameColumn(EncodedColumn expected, EncodedColumn actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.cardinality(), actual.cardinality());
+        assertArrayEquals(expected.getDictionary(), actual.getDictionary());
+        assertArrayEquals(expected.getCodes(), actual.getCodes());
+        assertArrayEquals(expected.decode(), actual.decode());
+        assertArrayEquals(expected.countCodes(), actual.countCodes());
+        assertEquals(expected.isUnique(), actual.isUnique());
+        assertEquals(expected.estimateSavedBytes(), actual.estimateSavedBytes());
+        for (int record = 0; record < expected.size(); record++)
+            assertEquals(expected.getValue(record), actual.getValue(record));
+    }
+
+    @Test
+    public void testDirectBuffers() {
+        DictionaryColumn column = DictionaryColumn.encode(VALUES);
+        assertSameColumn(column, OffHeapColumn.of(column));
+        assertSameColumn(column.map(String::trim), OffHeapColumn.of(column).map(String::trim));
+    }
+
+    @Test
+    public void testMappedFiles() throws IOException {
+        Path directory = Files.createTempDirectory("columns");
+        try {
+            DictionaryColumn column = DictionaryColumn.encode(VALUES);
+            OffHeapColumn offHeap = OffHeapColumn.of(column, directory);
+            assertSameColumn(column, offHeap);
+            assertSameColumn(column.map(String::trim), offHeap.map(String::trim));
+            assertSameColumn(column.map(String::toUpperCase), offHeap.map(String::toUpperCase));
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.collect(Collectors.toList()))
+                    Files.delete(file);
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void testBuilder() {
+        OffHeapColumn.Builder builder = new OffHeapColumn.Builder(null);
+        for (String value : VALUES)
+            builder.add(value);
+        assertEquals(VALUES.length, builder.size());
+        assertSameColumn(DictionaryColumn.encode(VALUES), builder.build());
+        assertSameColumn(DictionaryColumn.encode(new String[0]), new OffHeapColumn.Builder(null).build());
+    }
+
+    @Test
+    public void testBuilderGrowsAndSortsLikeStrings() throws IOException {
+        // Characters from U+E000 to U+FFFF sort after supplementary characters in String order, but not in UTF-8 order
+        String[] alphabet = new String[]{"a", "b", "ä", "\uE000", "\uFFFD", "\uD83D\uDE00", "\uD800\uDC00"};
+        Random random = new Random(9);
+        String[] values = new String[5000];
+        for (int i = 0; i < values.length; i++) {
+            StringBuilder value = new StringBuilder();
+            for (int length = random.nextInt(4); length > 0; length--)
+                value.append(alphabet[random.nextInt(alphabet.length)]);
+            values[i] = value.toString();
+        }
+
+        Path directory = Files.createTempDirectory("columns");
+        try {
+            OffHeapColumn.Builder builder = new OffHeapColumn.Builder(directory);
+            for (String value : values)
+                builder.add(value);
+            assertSameColumn(DictionaryColumn.encode(values), builder.build());
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.collect(Collectors.toList()))
+                    Files.delete(file);
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void testEmptyColumn() {
+        DictionaryColumn column = DictionaryColumn.encode(new String[0]);
+        OffHeapColumn offHeap = OffHeapColumn.of(column);
+        assertSameColumn(column, offHeap);
+        assertTrue(offHeap.isUnique());
+    }
+}
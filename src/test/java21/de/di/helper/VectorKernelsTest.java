@@ -0,0 +1,74 @@
+package de.di.helper;
+
+import de.di.similarity_measures.helper.Hashing;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class VectorKernelsTest {
+
+    @Test
+    public void testVectorKernelsMatchScalarLoops() {
+        Random random = new Random(6);
+        // All lengths around the vector sizes cover the vector loops and their scalar tails
+        for (int length = 0; length < 100; length++) {
+            long[] values1 = new long[length];
+            long[] values2 = new long[length];
+            int equal = 0;
+            for (int i = 0; i < length; i++) {
+                values1[i] = random.nextInt(3);
+                values2[i] = random.nextInt(3);
+                equal += (values1[i] == values2[i]) ? 1 : 0;
+            }
+            assertEquals(equal, VectorKernels.countEqual(values1, values2, length));
+            // Arrays that are longer than the compared length must not contribute their remaining values
+            if (length > 0)
+                assertEquals(equal - ((values1[length - 1] == values2[length - 1]) ? 1 : 0), VectorKernels.countEqual(values1, values2, length - 1));
+        }
+    }
+
+    @Test
+    public void testVectorGatherMatchesScalarLoop() {
+        Random random = new Random(7);
+        for (int length = 0; length < 100; length++) {
+            int[] values = new int[length + 1];
+            int[] indexes = new int[length];
+            for (int i = 0; i < values.length; i++)
+                values[i] = random.nextInt(10) - 1;
+            for (int i = 0; i < length; i++)
+                indexes[i] = random.nextInt(values.length);
+            int[] result = new int[length];
+            VectorKernels.gather(values, indexes, length, result);
+            for (int i = 0; i < length; i++)
+                assertEquals(values[indexes[i]], result[i]);
+        }
+    }
+
+    @Test
+    public void testVectorHashPackedQGramsMatchesScalarLoop() {
+        Random random = new Random(8);
+        for (int q = 1; q <= 4; q++) {
+            for (int numTokens = 0; numTokens < 100; numTokens++) {
+                long[] chars = new long[numTokens + q - 1];
+                for (int i = 0; i < chars.length; i++)
+                    chars[i] = random.nextInt(Character.MAX_VALUE + 1);
+                long[] hashes = new long[numTokens];
+                VectorKernels.hashPackedQGrams(chars, numTokens, q, hashes);
+                for (int i = 0; i < numTokens; i++) {
+                    long code = 0;
+                    for (int j = 0; j < q; j++)
+                        code = (code << 16) | chars[i + j];
+                    assertEquals(Hashing.mix64(code), hashes[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testKernelsUseVectorApi() {
+        // The simd profile runs the tests with the jdk.incubator.vector module
+        assertEquals(!Boolean.getBoolean("di.kernels.scalar"), Kernels.isVectorized());
+    }
+}